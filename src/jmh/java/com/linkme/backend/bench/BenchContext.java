@@ -0,0 +1,92 @@
+package com.linkme.backend.bench;
+
+import com.linkme.backend.mapper.BlockMapper;
+import com.linkme.backend.mapper.FollowMapper;
+import com.linkme.backend.mapper.HeartMapper;
+import com.linkme.backend.mapper.LikeMapper;
+import com.linkme.backend.mapper.MatchExclusionMapper;
+import com.linkme.backend.mapper.MatchMapper;
+import com.linkme.backend.mapper.MatchScoringWeightMapper;
+import com.linkme.backend.mapper.PersonalityTraitMapper;
+import com.linkme.backend.mapper.PrivacySettingMapper;
+import com.linkme.backend.mapper.UserHobbyMapper;
+import com.linkme.backend.mapper.UserMapper;
+import com.linkme.backend.mapper.UserMatchingDimensionMapper;
+import com.linkme.backend.mapper.UserMatchingPreferenceMapper;
+import com.linkme.backend.mapper.UserPersonalityMapper;
+import com.linkme.backend.mapper.UserRelationshipQualityMapper;
+import com.linkme.backend.match.MatchFeatureStore;
+import com.linkme.backend.service.NotificationService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基准测试用的 Spring 容器
+ *
+ * 注册全部 Mapper 的内存实现（见 SyntheticPopulation）、通知服务与 Redis 的空实现、内存版指标注册表，
+ * 由各基准再注册需要的组件后 refresh。
+ *
+ * @author riki
+ * @version 1.1
+ */
+final class BenchContext {
+
+    private BenchContext() {
+    }
+
+    /**
+     * 创建尚未 refresh 的容器
+     *
+     * @param population 合成用户群体
+     * @param properties 覆盖的配置项
+     * @return 容器
+     */
+    static AnnotationConfigApplicationContext create(SyntheticPopulation population, Map<String, Object> properties) {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("bench", properties));
+
+        context.registerBean(UserMapper.class, () -> population.mapper(UserMapper.class));
+        context.registerBean(BlockMapper.class, () -> population.mapper(BlockMapper.class));
+        context.registerBean(HeartMapper.class, () -> population.mapper(HeartMapper.class));
+        context.registerBean(FollowMapper.class, () -> population.mapper(FollowMapper.class));
+        context.registerBean(LikeMapper.class, () -> population.mapper(LikeMapper.class));
+        context.registerBean(MatchMapper.class, () -> population.mapper(MatchMapper.class));
+        context.registerBean(MatchExclusionMapper.class, () -> population.mapper(MatchExclusionMapper.class));
+        context.registerBean(UserMatchingPreferenceMapper.class, () -> population.mapper(UserMatchingPreferenceMapper.class));
+        context.registerBean(UserHobbyMapper.class, () -> population.mapper(UserHobbyMapper.class));
+        context.registerBean(UserPersonalityMapper.class, () -> population.mapper(UserPersonalityMapper.class));
+        context.registerBean(UserRelationshipQualityMapper.class, () -> population.mapper(UserRelationshipQualityMapper.class));
+        context.registerBean(UserMatchingDimensionMapper.class, () -> population.mapper(UserMatchingDimensionMapper.class));
+        context.registerBean(PrivacySettingMapper.class, () -> population.mapper(PrivacySettingMapper.class));
+        context.registerBean(PersonalityTraitMapper.class, () -> population.mapper(PersonalityTraitMapper.class));
+        context.registerBean(MatchScoringWeightMapper.class, () -> population.mapper(MatchScoringWeightMapper.class));
+        context.registerBean(NotificationService.class, () -> population.mapper(NotificationService.class));
+        context.registerBean(MeterRegistry.class, SimpleMeterRegistry::new);
+        // 基准中物化列表关闭，Redis 连接不会被使用
+        context.registerBean(StringRedisTemplate.class,
+                () -> new StringRedisTemplate(population.mapper(RedisConnectionFactory.class)));
+        return context;
+    }
+
+    /**
+     * 预热特征库并等待完成
+     */
+    static void preload(MatchFeatureStore store, int users) throws InterruptedException {
+        store.preload();
+        long deadline = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(10);
+        while (!store.isPreloaded()) {
+            if (System.currentTimeMillis() > deadline) {
+                throw new IllegalStateException("匹配特征库预热超时: users=" + users);
+            }
+            Thread.sleep(100);
+        }
+        store.eligibilityIndex();
+    }
+}
@@ -0,0 +1,132 @@
+package com.linkme.backend.bench;
+
+import com.linkme.backend.controller.dto.HeartResponse;
+import com.linkme.backend.match.CandidateFeatureLoader;
+import com.linkme.backend.match.HeartIndex;
+import com.linkme.backend.match.HeartWriteBuffer;
+import com.linkme.backend.match.MatchExclusionIndex;
+import com.linkme.backend.match.MatchFeatureStore;
+import com.linkme.backend.service.HeartService;
+import com.linkme.backend.service.impl.HeartServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 红心接收基准测试
+ *
+ * 驱动 HeartServiceImpl.sendHeart：随机用户之间连续发送红心，每 8 次中有 1 次回赠上一条红心（触发匹配）。
+ * 后台按配置的间隔批量落库（数据库由 SyntheticPopulation 的空实现替代，只衡量接收链路本身），
+ * 每轮结束打印索引大小与未落库的积压数，用于确认写入速度跟得上接收速度。
+ *
+ * 输出持续吞吐量 hearts/s（ops/s），配合 -prof gc 输出分配速率；多线程用 -t 指定。
+ *
+ * @author riki
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class HeartIngestBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    private AnnotationConfigApplicationContext context;
+
+    private HeartService heartService;
+
+    private HeartIndex heartIndex;
+
+    private HeartWriteBuffer heartWriteBuffer;
+
+    /**
+     * 启用 HeartWriteBuffer 的定时落库
+     */
+    @Configuration
+    @EnableScheduling
+    static class Scheduling {
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        SyntheticPopulation population = new SyntheticPopulation(users, 20240601L);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("linkme.match.feature-store.batch-size", "1000");
+        context = BenchContext.create(population, properties);
+        context.register(Scheduling.class, CandidateFeatureLoader.class, MatchFeatureStore.class,
+                HeartIndex.class, HeartWriteBuffer.class, MatchExclusionIndex.class, HeartServiceImpl.class);
+        context.refresh();
+
+        BenchContext.preload(context.getBean(MatchFeatureStore.class), users);
+        heartIndex = context.getBean(HeartIndex.class);
+        heartIndex.preload();
+        while (!heartIndex.isPreloaded()) {
+            Thread.sleep(10);
+        }
+        heartService = context.getBean(HeartService.class);
+        heartWriteBuffer = context.getBean(HeartWriteBuffer.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        System.out.println("  heartIndex=" + heartIndex.size() + ", pendingWrites=" + heartWriteBuffer.pending());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    /**
+     * 每个线程各自的滑动序列
+     */
+    @State(Scope.Thread)
+    public static class Swiper {
+        long position = System.nanoTime();
+        int lastFrom;
+        int lastTo;
+    }
+
+    @Benchmark
+    public HeartResponse heart(Swiper swiper) {
+        long i = swiper.position++;
+        int from;
+        int to;
+        if ((i & 7) == 0 && swiper.lastFrom != 0) {
+            from = swiper.lastTo;
+            to = swiper.lastFrom;
+        } else {
+            from = 1 + (int) (((i * 2654435761L) & 0x7fffffffL) % users);
+            to = 1 + (int) (((i * 40503L + 17) & 0x7fffffffL) % users);
+            if (to == from) {
+                to = to % users + 1;
+            }
+        }
+        swiper.lastFrom = from;
+        swiper.lastTo = to;
+        return heartService.sendHeart(from, to);
+    }
+}
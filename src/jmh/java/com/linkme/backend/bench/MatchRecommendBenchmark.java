@@ -0,0 +1,208 @@
+package com.linkme.backend.bench;
+
+import com.linkme.backend.controller.dto.MatchCompatibilityResponse;
+import com.linkme.backend.controller.dto.MatchRecommendationFeedResponse;
+import com.linkme.backend.controller.dto.MatchRecommendationResponse;
+import com.linkme.backend.match.CandidateFeatureLoader;
+import com.linkme.backend.match.CollaborativeFilteringJob;
+import com.linkme.backend.match.GeoGridIndex;
+import com.linkme.backend.match.MatchCandidateScanner;
+import com.linkme.backend.match.MatchExclusionIndex;
+import com.linkme.backend.match.MatchFeatureStore;
+import com.linkme.backend.match.MatchListRefresher;
+import com.linkme.backend.match.MatchFacts;
+import com.linkme.backend.match.MatchListStore;
+import com.linkme.backend.match.MatchPairCache;
+import com.linkme.backend.match.MatchScorer;
+import com.linkme.backend.match.MatchScoringPipeline;
+import com.linkme.backend.match.MatchScoringRegistry;
+import com.linkme.backend.match.MatchSnapshotStore;
+import com.linkme.backend.match.MatchStageMetrics;
+import com.linkme.backend.match.UserFeatureVector;
+import com.linkme.backend.service.MatchRecommendService;
+import com.linkme.backend.service.impl.MatchRecommendServiceImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 匹配推荐基准测试
+ *
+ * 在只包含匹配相关组件的 Spring 容器中驱动 MatchRecommendServiceImpl，
+ * Mapper 由 SyntheticPopulation 的内存实现替代，Redis 物化列表关闭（每次请求都实时扫描）。
+ *
+ * - fullScanPage：推荐第一页（全量扫描 Top-20 + 回表），吞吐量 ops/s
+ * - fullScanPageLatency：同上，采样耗时 ms/op（含 p0.99）
+ * - feedFirstPage / feedFirstPageLatency：推荐流首页（全量扫描 Top-1000 + 建快照 + 回表）
+ * - scorePair：单对用户打分（不经缓存，即全量扫描的内层循环）的平均耗时 ns/op
+ * - scorePairCached：同一组 4096 个用户对反复打分，对称部分命中 MatchPairCache 时的平均耗时 ns/op
+ * - geoRadiusQuery：经纬度网格上一次同城半径查询（默认 50km）的平均耗时 us/op
+ * - compatibility：资料页匹配度查询（MatchRecommendService.getCompatibility）的平均耗时 us/op
+ *
+ * 配合 -prof gc 输出分配速率（gc.alloc.rate.norm 即每次请求分配的字节数）。
+ * 运行方式见 README 的"性能基准"一节。
+ *
+ * @author riki
+ * @version 1.3
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class MatchRecommendBenchmark {
+
+    private static final int PAIR_POOL_SIZE = 4096;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int users;
+
+    private AnnotationConfigApplicationContext context;
+
+    private MatchRecommendService matchRecommendService;
+
+    private MatchScorer matchScorer;
+
+    private UserFeatureVector[] pairPool;
+
+    private int todayYmd;
+
+    private MatchScoringPipeline pipeline;
+
+    private GeoGridIndex geo;
+
+    private UserFeatureVector[] geoViewers;
+
+    private double geoRadiusKm;
+
+    private final BitSet geoHits = new BitSet();
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        SyntheticPopulation population = new SyntheticPopulation(users, 20240601L);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("linkme.match.list.enabled", "false");
+        properties.put("linkme.match.full-scan.latency-budget-ms", "60000");
+        properties.put("linkme.match.feature-store.batch-size", "1000");
+        context = BenchContext.create(population, properties);
+        context.register(CandidateFeatureLoader.class, MatchFeatureStore.class, MatchScoringRegistry.class,
+                CollaborativeFilteringJob.class, MatchPairCache.class,
+                MatchScorer.class, MatchCandidateScanner.class, MatchListStore.class, MatchListRefresher.class,
+                MatchSnapshotStore.class, MatchExclusionIndex.class, MatchStageMetrics.class,
+                MatchRecommendServiceImpl.class);
+        context.refresh();
+
+        MatchFeatureStore store = context.getBean(MatchFeatureStore.class);
+        BenchContext.preload(store, users);
+
+        matchRecommendService = context.getBean(MatchRecommendService.class);
+        matchScorer = context.getBean(MatchScorer.class);
+        todayYmd = MatchFeatureStore.todayYmd();
+        pipeline = matchScorer.pipeline();
+        pairPool = new UserFeatureVector[PAIR_POOL_SIZE];
+        for (int i = 0; i < PAIR_POOL_SIZE; i++) {
+            pairPool[i] = store.get(viewerId(i));
+        }
+        geo = store.eligibilityIndex().geo();
+        geoViewers = Arrays.stream(pairPool).filter(v -> v != null && v.hasLocation()).toArray(UserFeatureVector[]::new);
+        geoRadiusKm = store.sameCityRadiusKm();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    /**
+     * 每个线程轮换请求用户，避免所有请求命中同一个 viewer
+     */
+    @State(Scope.Thread)
+    public static class ViewerCursor {
+        int position;
+    }
+
+    @Benchmark
+    public List<MatchRecommendationResponse> fullScanPage(ViewerCursor cursor) {
+        return matchRecommendService.getRecommendations(viewerId(cursor.position++), 1, 20);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<MatchRecommendationResponse> fullScanPageLatency(ViewerCursor cursor) {
+        return fullScanPage(cursor);
+    }
+
+    @Benchmark
+    public MatchRecommendationFeedResponse feedFirstPage(ViewerCursor cursor) {
+        return matchRecommendService.getRecommendationFeed(viewerId(cursor.position++), null, 20);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MatchRecommendationFeedResponse feedFirstPageLatency(ViewerCursor cursor) {
+        return feedFirstPage(cursor);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scorePair(ViewerCursor cursor) {
+        int i = cursor.position++;
+        return matchScorer.score(pipeline, pairPool[i & (PAIR_POOL_SIZE - 1)],
+                pairPool[(i * 7 + 1) & (PAIR_POOL_SIZE - 1)], todayYmd, new MatchFacts());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int scorePairCached(ViewerCursor cursor) {
+        int i = cursor.position++;
+        return matchScorer.scoreCached(pipeline, pairPool[i & (PAIR_POOL_SIZE - 1)],
+                pairPool[(i * 7 + 1) & (PAIR_POOL_SIZE - 1)], todayYmd, new MatchFacts());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int geoRadiusQuery(ViewerCursor cursor) {
+        UserFeatureVector viewer = geoViewers[(cursor.position++ & 0x7fffffff) % geoViewers.length];
+        geoHits.clear();
+        return geo.within(viewer.latitude(), viewer.longitude(), geoRadiusKm, geoHits);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MatchCompatibilityResponse compatibility(ViewerCursor cursor) {
+        int i = cursor.position++;
+        return matchRecommendService.getCompatibility(viewerId(i), viewerId(i * 7 + 1));
+    }
+
+    private int viewerId(int position) {
+        return 1 + (int) (((position & 0x7fffffffL) * 2654435761L) % users);
+    }
+}
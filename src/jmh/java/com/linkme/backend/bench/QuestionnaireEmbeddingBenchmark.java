@@ -0,0 +1,98 @@
+package com.linkme.backend.bench;
+
+import com.linkme.backend.match.CandidateFeatureLoader;
+import com.linkme.backend.match.MatchFeatureStore;
+import com.linkme.backend.match.QuestionnaireEmbeddingIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 问卷向量基准测试
+ *
+ * 特征库预热后直接对 QuestionnaireEmbeddingIndex 计时，simd 参数切换 SIMD / 标量点积内核：
+ * - nearest：对全体用户暴力点积求 Top-100，ms/op（对照 MatchRecommendBenchmark.fullScanPage 的逐对打分）
+ * - similarityPair：单对用户的相似度，ns/op（对照 MatchRecommendBenchmark.scorePair）
+ *
+ * @author riki
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g", "--add-modules=jdk.incubator.vector"})
+public class QuestionnaireEmbeddingBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int users;
+
+    @Param({"true", "false"})
+    public boolean simd;
+
+    private AnnotationConfigApplicationContext context;
+
+    private QuestionnaireEmbeddingIndex embeddings;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        SyntheticPopulation population = new SyntheticPopulation(users, 20240601L);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("linkme.match.feature-store.batch-size", "1000");
+        properties.put("linkme.match.embedding.simd", String.valueOf(simd));
+        context = BenchContext.create(population, properties);
+        context.register(CandidateFeatureLoader.class, MatchFeatureStore.class);
+        context.refresh();
+        MatchFeatureStore store = context.getBean(MatchFeatureStore.class);
+        BenchContext.preload(store, users);
+        embeddings = store.embeddings();
+        System.out.println("\n[embedding] kernel=" + embeddings.kernel().name());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    /**
+     * 每个线程轮换查询用户
+     */
+    @State(Scope.Thread)
+    public static class ViewerCursor {
+        int position;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long[] nearest(ViewerCursor cursor) {
+        return embeddings.nearest(userId(cursor.position++), 100);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public int similarityPair(ViewerCursor cursor) {
+        int i = cursor.position++;
+        return embeddings.similarity(userId(i), userId(i * 7 + 1));
+    }
+
+    private int userId(int position) {
+        return 1 + (int) (((position & 0x7fffffffL) * 2654435761L) % users);
+    }
+}
@@ -0,0 +1,381 @@
+package com.linkme.backend.bench;
+
+import com.linkme.backend.entity.DimensionPrioritySelection;
+import com.linkme.backend.entity.PersonalityTraitOption;
+import com.linkme.backend.entity.PrivacySetting;
+import com.linkme.backend.entity.User;
+import com.linkme.backend.entity.UserHobbySelection;
+import com.linkme.backend.entity.UserMatchingPreference;
+import com.linkme.backend.entity.UserPersonalitySelection;
+import com.linkme.backend.entity.UserRelationshipQualitySelection;
+import com.linkme.backend.match.MatchDimension;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 基准测试用的合成用户群体与内存版 Mapper
+ *
+ * 用户 1..size 的资料、问卷与隐私设置都由 (seed, userId) 确定性地生成，不占用额外内存，
+ * 同一个 userId 每次查询得到相同的数据。分布大致参照线上：
+ * - 年龄 18~45，30 个城市，约 75% 填写了匹配偏好
+ * - 每人 3~8 个爱好（6 个分类，每类 10 个）、7 个性格分类各选一项、0~3 项关系品质
+ * - 每个维度约 20% 的概率被设为 must，约 5% 的用户关闭了匹配
+ *
+ * 性格字典与 test.sql 中的种子数据一致。红心 / 匹配 / 屏蔽 / 通知相关的写入直接返回成功，
+ * 查询返回空（即没有历史红心与屏蔽关系）。
+ *
+ * @author riki
+ * @version 1.1
+ */
+public final class SyntheticPopulation {
+
+    private static final String[] REGIONS = {
+            "北京", "上海", "广州", "深圳", "杭州", "南京", "苏州", "成都", "重庆", "武汉",
+            "西安", "长沙", "天津", "郑州", "青岛", "厦门", "宁波", "合肥", "福州", "济南",
+            "大连", "沈阳", "昆明", "贵阳", "南宁", "哈尔滨", "长春", "石家庄", "太原", "南昌"};
+
+    /** 与 REGIONS 一一对应的城市中心经纬度 */
+    private static final double[][] REGION_CENTERS = {
+            {39.90, 116.40}, {31.23, 121.47}, {23.13, 113.26}, {22.54, 114.06}, {30.27, 120.16},
+            {32.06, 118.80}, {31.30, 120.58}, {30.57, 104.07}, {29.56, 106.55}, {30.59, 114.31},
+            {34.34, 108.94}, {28.23, 112.94}, {39.13, 117.20}, {34.75, 113.63}, {36.07, 120.38},
+            {24.48, 118.09}, {29.87, 121.54}, {31.82, 117.23}, {26.07, 119.30}, {36.65, 117.12},
+            {38.91, 121.61}, {41.81, 123.43}, {25.04, 102.71}, {26.65, 106.63}, {22.82, 108.32},
+            {45.80, 126.53}, {43.82, 125.32}, {38.04, 114.51}, {37.87, 112.55}, {28.68, 115.86}};
+
+    private static final String[] DISTANCE_PREFERENCES = {"same_city", "same_city_or_remote", "unlimited"};
+
+    private static final int HOBBY_CATEGORIES = 6;
+
+    private static final int HOBBIES_PER_CATEGORY = 10;
+
+    private static final int QUALITY_COUNT = 10;
+
+    /** {optionId, categoryId, traitType, categoryCode, categoryName, code, name} */
+    private static final Object[][] TRAIT_OPTIONS = {
+            {1, 1, "self", "social_energy", "社交能量来源", "extrovert", "外向型（社交充电）"},
+            {2, 1, "self", "social_energy", "社交能量来源", "introvert", "内向型（独处充电）"},
+            {3, 1, "self", "social_energy", "社交能量来源", "ambivert", "中间型（看情况）"},
+            {4, 2, "self", "decision_style", "决策方式", "rational", "理性型（逻辑优先）"},
+            {5, 2, "self", "decision_style", "决策方式", "emotional", "感性型（感受优先）"},
+            {6, 2, "self", "decision_style", "决策方式", "balanced", "平衡型"},
+            {7, 3, "self", "life_pace", "生活节奏", "planned", "计划型（凡事按规划）"},
+            {8, 3, "self", "life_pace", "生活节奏", "spontaneous", "随性型（走一步看一步）"},
+            {9, 3, "self", "life_pace", "生活节奏", "flexible", "弹性型"},
+            {10, 4, "self", "communication_style", "沟通风格", "direct", "直接坦率型"},
+            {11, 4, "self", "communication_style", "沟通风格", "tactful", "委婉体贴型"},
+            {12, 4, "self", "communication_style", "沟通风格", "humorous", "幽默风趣型"},
+            {13, 4, "self", "communication_style", "沟通风格", "listener", "倾听为主型"},
+            {14, 4, "self", "communication_style", "沟通风格", "quiet", "偶尔沉默型"},
+            {15, 5, "ideal", "ideal_social_style", "希望对方的社交风格", "outgoing", "热情健谈"},
+            {16, 5, "ideal", "ideal_social_style", "希望对方的社交风格", "composed", "沉稳内敛"},
+            {17, 5, "ideal", "ideal_social_style", "希望对方的社交风格", "same_wavelength", "同频即可"},
+            {18, 6, "ideal", "ideal_action_style", "希望对方的处事风格", "meticulous", "严谨细致"},
+            {19, 6, "ideal", "ideal_action_style", "希望对方的处事风格", "efficient", "高效行动"},
+            {20, 6, "ideal", "ideal_action_style", "希望对方的处事风格", "adaptable", "灵活变通"},
+            {21, 6, "ideal", "ideal_action_style", "希望对方的处事风格", "reliable", "踏实靠谱"},
+            {22, 7, "ideal", "ideal_emotion", "希望对方的情绪特质", "optimistic", "乐观积极"},
+            {23, 7, "ideal", "ideal_emotion", "希望对方的情绪特质", "rational_calm", "冷静理智"},
+            {24, 7, "ideal", "ideal_emotion", "希望对方的情绪特质", "empathetic", "敏感共情"},
+            {25, 7, "ideal", "ideal_emotion", "希望对方的情绪特质", "stable", "情绪稳定"}};
+
+    /** 每个性格分类的 [首个选项ID, 选项数] */
+    private static final int[][] TRAIT_CATEGORY_RANGES = {{1, 3}, {4, 3}, {7, 3}, {10, 5}, {15, 3}, {18, 4}, {22, 4}};
+
+    private final int size;
+
+    private final long seed;
+
+    private final LocalDate today = LocalDate.now();
+
+    public SyntheticPopulation(int size, long seed) {
+        this.size = size;
+        this.seed = seed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 生成指定接口的内存实现，只支持匹配链路用到的查询方法，其余方法抛出 UnsupportedOperationException
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T mapper(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (proxy, method, args) -> invoke(type, method, args));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object invoke(Class<?> type, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "toString":
+                return "Synthetic" + type.getSimpleName() + "(" + size + ")";
+            case "hashCode":
+                return System.identityHashCode(this) ^ type.hashCode();
+            case "equals":
+                return false;
+            case "selectMatchProfilesAfter":
+                return usersAfter((Integer) args[0], (Integer) args[1]);
+            case "selectMatchProfilesByIds":
+            case "selectBatchIds":
+                return users((List<Integer>) args[0]);
+            case "selectMatchCandidates":
+                return recentCandidates((Integer) args[0], (Integer) args[1], (Integer) args[2]);
+            case "selectByUserIds":
+                return type.getSimpleName().startsWith("UserMatchingPreference")
+                        ? preferences((List<Integer>) args[0])
+                        : qualities((List<Integer>) args[0]);
+            case "selectSelectionsByUserIds":
+                return type.getSimpleName().startsWith("UserHobby")
+                        ? hobbies((List<Integer>) args[0])
+                        : personalities((List<Integer>) args[0]);
+            case "selectMustDimensionsByUserIds":
+                return dimensions((List<Integer>) args[0], true);
+            case "selectPriorityDimensionsByUserIds":
+                return dimensions((List<Integer>) args[0], false);
+            case "selectMatchSettingsByUserIds":
+                return privacySettings((List<Integer>) args[0]);
+            case "selectBlockRelatedUserIds":
+            case "selectAll":
+            case "selectPairsAfter":
+            case "selectAuthorInteractionsAfter":
+            case "selectToUserIdsByFromUserId":
+            case "selectPartnerIdsByUserId":
+                return Collections.emptyList();
+            case "selectByFromAndTo":
+            case "selectByUserPair":
+            case "selectByBlockerAndBlocked":
+            case "createNotification":
+                return null;
+            case "selectByUserId":
+                // 排除集合尚未持久化（其余 Mapper 的 selectByUserId 不在匹配链路上）
+                return null;
+            case "insertBatchIgnore":
+            case "upsertBatch":
+                return ((List<?>) args[0]).size();
+            case "insertIgnore":
+                return 1;
+            case "selectAllOptions":
+                return traitOptions();
+            default:
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+        }
+    }
+
+    private SplittableRandom random(int userId, int salt) {
+        return new SplittableRandom(seed * 1_000_003L + userId * 31L + salt);
+    }
+
+    private boolean exists(Integer userId) {
+        return userId != null && userId >= 1 && userId <= size;
+    }
+
+    private List<User> usersAfter(int lastUserId, int limit) {
+        List<User> users = new ArrayList<>(limit);
+        for (int id = lastUserId + 1; id <= size && users.size() < limit; id++) {
+            users.add(user(id));
+        }
+        return users;
+    }
+
+    private List<User> users(List<Integer> userIds) {
+        List<User> users = new ArrayList<>(userIds.size());
+        for (Integer id : userIds) {
+            if (exists(id)) {
+                users.add(user(id));
+            }
+        }
+        return users;
+    }
+
+    private List<User> recentCandidates(int currentUserId, int offset, int limit) {
+        List<User> users = new ArrayList<>(limit);
+        int skipped = 0;
+        for (int id = size; id >= 1 && users.size() < limit; id--) {
+            if (id == currentUserId || !allowMatch(id)) {
+                continue;
+            }
+            if (skipped++ >= offset) {
+                users.add(user(id));
+            }
+        }
+        return users;
+    }
+
+    private User user(int userId) {
+        SplittableRandom r = random(userId, 1);
+        User u = new User();
+        u.setUserId(userId);
+        u.setNickname("user" + userId);
+        u.setGender(r.nextBoolean() ? "male" : "female");
+        u.setBirthday(today.minusDays(365L * 18 + r.nextInt(365 * 27)));
+        int region = r.nextInt(REGIONS.length);
+        u.setRegion(REGIONS[region]);
+        // 约 70% 的用户有经纬度，分布在城市中心附近（标准差约 0.2°，即 20km 左右）
+        if (r.nextInt(10) < 7) {
+            u.setLatitude(REGION_CENTERS[region][0] + gaussian(r) * 0.2);
+            u.setLongitude(REGION_CENTERS[region][1] + gaussian(r) * 0.2);
+        }
+        return u;
+    }
+
+    private static double gaussian(SplittableRandom r) {
+        double u1 = 1.0 - r.nextDouble();
+        double u2 = r.nextDouble();
+        return Math.sqrt(-2.0 * Math.log(u1)) * Math.cos(2.0 * Math.PI * u2);
+    }
+
+    private List<UserMatchingPreference> preferences(List<Integer> userIds) {
+        List<UserMatchingPreference> result = new ArrayList<>();
+        for (Integer id : userIds) {
+            SplittableRandom r = random(id, 2);
+            if (!exists(id) || r.nextInt(4) == 0) {
+                continue;
+            }
+            UserMatchingPreference p = new UserMatchingPreference();
+            p.setUserId(id);
+            boolean unlimited = r.nextInt(5) == 0;
+            p.setAgeUnlimited(unlimited);
+            if (!unlimited) {
+                int min = 18 + r.nextInt(12);
+                p.setAgeMin(min);
+                p.setAgeMax(min + 3 + r.nextInt(12));
+            }
+            p.setDistancePreference(DISTANCE_PREFERENCES[r.nextInt(DISTANCE_PREFERENCES.length)]);
+            p.setRelationshipModeId(1 + r.nextInt(4));
+            p.setCommunicationExpectationId(1 + r.nextInt(4));
+            result.add(p);
+        }
+        return result;
+    }
+
+    private List<UserHobbySelection> hobbies(List<Integer> userIds) {
+        List<UserHobbySelection> result = new ArrayList<>();
+        for (Integer id : userIds) {
+            if (!exists(id)) {
+                continue;
+            }
+            SplittableRandom r = random(id, 3);
+            int count = 3 + r.nextInt(6);
+            long picked = 0;
+            for (int i = 0; i < count; i++) {
+                int hobbyId = 1 + r.nextInt(HOBBY_CATEGORIES * HOBBIES_PER_CATEGORY);
+                if ((picked & (1L << hobbyId)) != 0) {
+                    continue;
+                }
+                picked |= 1L << hobbyId;
+                UserHobbySelection h = new UserHobbySelection();
+                h.setUserId(id);
+                h.setHobbyId(hobbyId);
+                h.setCategoryId((hobbyId - 1) / HOBBIES_PER_CATEGORY + 1);
+                result.add(h);
+            }
+        }
+        return result;
+    }
+
+    private List<UserPersonalitySelection> personalities(List<Integer> userIds) {
+        List<UserPersonalitySelection> result = new ArrayList<>();
+        for (Integer id : userIds) {
+            if (!exists(id)) {
+                continue;
+            }
+            SplittableRandom r = random(id, 4);
+            for (int[] range : TRAIT_CATEGORY_RANGES) {
+                Object[] option = TRAIT_OPTIONS[range[0] - 1 + r.nextInt(range[1])];
+                UserPersonalitySelection s = new UserPersonalitySelection();
+                s.setUserId(id);
+                s.setOptionId((Integer) option[0]);
+                s.setCategoryId((Integer) option[1]);
+                s.setTraitType((String) option[2]);
+                s.setCategoryName((String) option[4]);
+                s.setOptionName((String) option[6]);
+                result.add(s);
+            }
+        }
+        return result;
+    }
+
+    private List<UserRelationshipQualitySelection> qualities(List<Integer> userIds) {
+        List<UserRelationshipQualitySelection> result = new ArrayList<>();
+        for (Integer id : userIds) {
+            if (!exists(id)) {
+                continue;
+            }
+            SplittableRandom r = random(id, 5);
+            int count = r.nextInt(4);
+            int first = 1 + r.nextInt(QUALITY_COUNT);
+            for (int i = 0; i < count; i++) {
+                UserRelationshipQualitySelection q = new UserRelationshipQualitySelection();
+                q.setUserId(id);
+                q.setQualityId((first + i * 3 - 1) % QUALITY_COUNT + 1);
+                result.add(q);
+            }
+        }
+        return result;
+    }
+
+    private List<DimensionPrioritySelection> dimensions(List<Integer> userIds, boolean must) {
+        MatchDimension[] dimensions = MatchDimension.values();
+        List<DimensionPrioritySelection> result = new ArrayList<>();
+        for (Integer id : userIds) {
+            if (!exists(id)) {
+                continue;
+            }
+            SplittableRandom r = random(id, 6);
+            int order = 0;
+            for (MatchDimension d : dimensions) {
+                boolean isMust = r.nextInt(5) == 0;
+                if (isMust == must && (must || r.nextInt(3) == 0)) {
+                    DimensionPrioritySelection s = new DimensionPrioritySelection();
+                    s.setUserId(id);
+                    s.setCode(d.code());
+                    s.setPriorityOrder(must ? null : ++order);
+                    result.add(s);
+                }
+            }
+        }
+        return result;
+    }
+
+    private boolean allowMatch(int userId) {
+        return random(userId, 7).nextInt(20) != 0;
+    }
+
+    private List<PrivacySetting> privacySettings(List<Integer> userIds) {
+        List<PrivacySetting> result = new ArrayList<>();
+        for (Integer id : userIds) {
+            if (!exists(id)) {
+                continue;
+            }
+            PrivacySetting ps = new PrivacySetting();
+            ps.setUserId(id);
+            ps.setAllowMatch(allowMatch(id));
+            result.add(ps);
+        }
+        return result;
+    }
+
+    private static List<PersonalityTraitOption> traitOptions() {
+        List<PersonalityTraitOption> options = new ArrayList<>(TRAIT_OPTIONS.length);
+        for (Object[] row : TRAIT_OPTIONS) {
+            PersonalityTraitOption o = new PersonalityTraitOption();
+            o.setOptionId((Integer) row[0]);
+            o.setCategoryId((Integer) row[1]);
+            o.setTraitType((String) row[2]);
+            o.setCategoryCode((String) row[3]);
+            o.setCategoryName((String) row[4]);
+            o.setCode((String) row[5]);
+            o.setName((String) row[6]);
+            options.add(o);
+        }
+        return options;
+    }
+}
@@ -3,6 +3,7 @@ package com.linkme.backend;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * LinkMe交友聊天社交软件后端应用启动类
@@ -16,6 +17,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  */
 @SpringBootApplication
 @MapperScan("com.linkme.backend.mapper")
+@EnableScheduling
 public class LinkMeApplication {
     public static void main(String[] args) {
         SpringApplication.run(LinkMeApplication.class, args);
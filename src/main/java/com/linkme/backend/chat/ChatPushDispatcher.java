@@ -0,0 +1,164 @@
+package com.linkme.backend.chat;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 事务提交后的异步推送分发器
+ *
+ * 消息、通知在事务中落库，只有它们的 WebSocket 推送登记到这里：
+ * - 当前有事务时在提交后（afterCommit）投递，事务回滚则不投递，客户端不会收到最终不存在的消息；
+ *   没有事务时立即投递
+ * - 推送按接收者分道：threads 条单线程通道，接收者ID取模选道，同一接收者的推送按提交顺序执行，
+ *   不会因多线程并发而乱序；不同接收者可并行
+ * - 投递只放入通道的有界队列，HTTP 请求线程不等待序列化与推送；
+ *   队列满时丢弃该次推送并计数（数据已落库，客户端可通过消息记录的 since 游标或通知列表补齐）
+ * - 任务异常只记录日志，不影响其他任务
+ *
+ * 指标：linkme.chat.push.dispatch_lag{kind}（提交到开始执行的延迟）、linkme.chat.push.duration{kind}（执行耗时）、
+ * linkme.chat.push.rejected{kind}、linkme.chat.push.failed{kind}、linkme.chat.push.queue_size。
+ *
+ * @author riki
+ * @version 1.1
+ */
+@Component
+public class ChatPushDispatcher {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${linkme.chat.push.threads:2}")
+    private int threads;
+
+    @Value("${linkme.chat.push.queue-capacity:10000}")
+    private int queueCapacity;
+
+    // 单线程通道，下标为接收者ID取模
+    private ThreadPoolExecutor[] lanes;
+
+    private final ConcurrentHashMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        int n = Math.max(threads, 1);
+        // 队列上限由各通道平分
+        int laneCapacity = Math.max(queueCapacity / n, 1);
+        lanes = new ThreadPoolExecutor[n];
+        for (int i = 0; i < n; i++) {
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(laneCapacity), r -> {
+                Thread t = new Thread(r, "chat-push-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        }
+        Gauge.builder("linkme.chat.push.queue_size", this, d -> d.queueSize())
+                .description("等待执行的推送任务数")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (lanes != null) {
+            for (ThreadPoolExecutor lane : lanes) {
+                lane.shutdown();
+            }
+        }
+    }
+
+    /**
+     * 登记一个推送任务：有事务时在提交后投递，否则立即投递
+     *
+     * 同一接收者的任务进入同一通道，按登记（提交）顺序执行。
+     *
+     * @param kind 任务类型（chat / notification），用作指标标签
+     * @param receiverId 接收者ID，用于选择通道
+     * @param task 任务
+     */
+    public void afterCommit(String kind, Integer receiverId, Runnable task) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(kind, receiverId, task);
+                }
+            });
+        } else {
+            dispatch(kind, receiverId, task);
+        }
+    }
+
+    private void dispatch(String kind, Integer receiverId, Runnable task) {
+        Meters m = meters(kind);
+        long committedAt = System.nanoTime();
+        ThreadPoolExecutor lane = lanes[Math.floorMod(receiverId != null ? receiverId : 0, lanes.length)];
+        try {
+            lane.execute(() -> {
+                long startedAt = System.nanoTime();
+                m.lag.record(startedAt - committedAt, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    m.failed.increment();
+                    System.err.println("推送任务执行失败: 类型=" + kind + ", 错误=" + e.getMessage());
+                    e.printStackTrace();
+                } finally {
+                    m.duration.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            m.rejected.increment();
+            System.err.println("推送队列已满，丢弃推送任务: 类型=" + kind);
+        }
+    }
+
+    private int queueSize() {
+        int size = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            size += lane.getQueue().size();
+        }
+        return size;
+    }
+
+    private Meters meters(String kind) {
+        return meters.computeIfAbsent(kind, k -> new Meters(
+                Timer.builder("linkme.chat.push.dispatch_lag")
+                        .description("事务提交到推送任务开始执行的延迟")
+                        .tag("kind", k)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                Timer.builder("linkme.chat.push.duration")
+                        .description("推送任务执行耗时")
+                        .tag("kind", k)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry),
+                Counter.builder("linkme.chat.push.rejected")
+                        .description("推送队列已满被丢弃的任务数")
+                        .tag("kind", k)
+                        .register(meterRegistry),
+                Counter.builder("linkme.chat.push.failed")
+                        .description("执行失败的推送任务数")
+                        .tag("kind", k)
+                        .register(meterRegistry)));
+    }
+
+    private record Meters(Timer lag, Timer duration, Counter rejected, Counter failed) {
+    }
+}
@@ -0,0 +1,177 @@
+package com.linkme.backend.chat;
+
+import com.linkme.backend.entity.UserUnreadCount;
+import com.linkme.backend.mapper.ConversationMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户总未读数计数器（Redis）
+ *
+ * 每个用户一个计数：key 为 chat:unread:{userId}，读取总未读数只需一次 GET。
+ * - 来源：会话表上的 user1_unread / user2_unread（发送、标记已读、清空消息时在事务中维护），
+ *   计数器是它们按用户求和的缓存
+ * - 变更：事务提交后 INCRBY（Lua 脚本，只改已存在的 key；不存在时等下次读取从 MySQL 加载，避免从 0 开始累加）；
+ *   结果小于 0 说明已经漂移，直接删除等待重新加载
+ * - 对账：有变更的用户记入待对账集合，每隔 reconcile-interval-ms 按批从 MySQL 重新求和覆盖；
+ *   另外每个 key 有 TTL，长期不活跃的用户过期后下次读取重新加载
+ *
+ * 加载 / 对账与并发变更之间可能丢失一次增减，该用户会因这次变更再次进入待对账集合，在下一轮修正。
+ * Redis 不可用时直接从 MySQL 求和（一次按索引的查询）。
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Component
+public class UnreadCounterStore {
+
+    private static final String KEY_PREFIX = "chat:unread:";
+
+    /**
+     * KEYS[1]：计数 key，ARGV[1]：增量；key 不存在时返回 nil，结果为负时删除 key 并返回 -1
+     */
+    private static final DefaultRedisScript<Long> ADD_IF_EXISTS = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return nil end\n"
+                    + "local value = redis.call('INCRBY', KEYS[1], ARGV[1])\n"
+                    + "if value < 0 then\n"
+                    + "  redis.call('DEL', KEYS[1])\n"
+                    + "  return -1\n"
+                    + "end\n"
+                    + "return value", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private ConversationMapper conversationMapper;
+
+    @Value("${linkme.chat.unread.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    @Value("${linkme.chat.unread.reconcile-batch:500}")
+    private int reconcileBatch;
+
+    private final Set<Integer> pendingReconcile = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 用户所有会话的未读消息总数
+     *
+     * @param userId 用户ID
+     * @return 未读总数
+     */
+    public int get(int userId) {
+        String key = key(userId);
+        try {
+            String cached = stringRedisTemplate.opsForValue().get(key);
+            if (cached != null) {
+                return Math.max(0, Integer.parseInt(cached));
+            }
+        } catch (DataAccessException | NumberFormatException e) {
+            System.err.println("读取未读计数失败，改为从数据库统计: userId=" + userId + ", " + e.getMessage());
+            return load(userId);
+        }
+
+        int total = load(userId);
+        try {
+            stringRedisTemplate.opsForValue().setIfAbsent(key, String.valueOf(total), ttlSeconds, TimeUnit.SECONDS);
+        } catch (DataAccessException e) {
+            System.err.println("写入未读计数失败: userId=" + userId + ", " + e.getMessage());
+        }
+        return total;
+    }
+
+    /**
+     * 增减用户的未读总数（有事务时在提交后执行，回滚的事务不影响计数）
+     *
+     * @param userId 用户ID
+     * @param delta  增量（负数为减少）
+     */
+    public void add(Integer userId, int delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doAdd(userId, delta);
+                }
+            });
+        } else {
+            doAdd(userId, delta);
+        }
+    }
+
+    private void doAdd(int userId, int delta) {
+        pendingReconcile.add(userId);
+        try {
+            stringRedisTemplate.execute(ADD_IF_EXISTS, List.of(key(userId)), String.valueOf(delta));
+        } catch (DataAccessException e) {
+            System.err.println("更新未读计数失败: userId=" + userId + ", " + e.getMessage());
+        }
+    }
+
+    /**
+     * 按批把有变更的用户的计数与 MySQL 对齐
+     */
+    @Scheduled(fixedDelayString = "${linkme.chat.unread.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        List<Integer> batch = new ArrayList<>(reconcileBatch);
+        Iterator<Integer> it = pendingReconcile.iterator();
+        while (it.hasNext()) {
+            batch.add(it.next());
+            it.remove();
+            if (batch.size() == reconcileBatch || !it.hasNext()) {
+                reconcileBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void reconcileBatch(List<Integer> userIds) {
+        Map<Integer, Integer> totals = new HashMap<>();
+        try {
+            for (UserUnreadCount row : conversationMapper.sumUnreadByUserIds(userIds)) {
+                totals.put(row.getUserId(), row.getUnreadCount());
+            }
+        } catch (Exception e) {
+            System.err.println("未读计数对账失败，下一轮重试: " + e.getMessage());
+            pendingReconcile.addAll(userIds);
+            return;
+        }
+        try {
+            for (Integer userId : userIds) {
+                stringRedisTemplate.opsForValue().set(key(userId), String.valueOf(totals.getOrDefault(userId, 0)),
+                        ttlSeconds, TimeUnit.SECONDS);
+            }
+        } catch (DataAccessException e) {
+            System.err.println("写入未读计数失败，下一轮重试: " + e.getMessage());
+            pendingReconcile.addAll(userIds);
+        }
+    }
+
+    private int load(int userId) {
+        List<UserUnreadCount> rows = conversationMapper.sumUnreadByUserIds(List.of(userId));
+        return rows.isEmpty() || rows.get(0).getUnreadCount() == null ? 0 : rows.get(0).getUnreadCount();
+    }
+
+    private static String key(int userId) {
+        return KEY_PREFIX + userId;
+    }
+}
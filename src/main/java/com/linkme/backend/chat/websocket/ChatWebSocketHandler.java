@@ -1,84 +1,146 @@
 package com.linkme.backend.chat.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.websocket.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.*;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * WebSocket聊天处理器
- * 
+ *
  * 功能描述：
  * - 处理WebSocket连接和消息传输
  * - 支持实时聊天功能
  * - 管理用户连接状态
- * 
- * @author Ahz
- * @version 1.2.2
+ * - 同一用户可同时保持多个连接（多端在线），超过 max-sessions-per-user 时关闭最早的连接
+ * - 每个连接包装为 ConcurrentWebSocketSessionDecorator：同一连接同一时刻只有一个线程在写，
+ *   其他推送方把消息放入该连接的缓冲区后立即返回；缓冲超过 buffer-size-limit 时按 overflow 策略
+ *   丢弃最早的消息（DROP）或断开连接（TERMINATE）
+ * - 单次写出超过 send-time-limit-ms 的慢连接被关闭（同时设置为 Tomcat 的阻塞发送超时，
+ *   卡住的写出在时限内返回，不会长期占用推送线程），客户端重连后用消息记录的 since 游标补齐
+ *
+ * 指标：linkme.chat.ws.sessions、linkme.chat.ws.send.limit_exceeded。
+ *
+ * @author Ahz, riki
+ * @version 1.4
  */
 @Component
 public class ChatWebSocketHandler implements WebSocketHandler {
-    
-    // 存储用户ID和WebSocket会话的映射
-    private static final ConcurrentHashMap<String, WebSocketSession> userSessions = new ConcurrentHashMap<>();
-    
-    // 存储会话ID和用户ID的映射（用于反向查找）
-    private static final ConcurrentHashMap<WebSocketSession, String> sessionUsers = new ConcurrentHashMap<>();
-    
+
+    // Tomcat 单个连接阻塞发送超时（毫秒）的会话属性
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${linkme.chat.ws.max-sessions-per-user:5}")
+    private int maxSessionsPerUser;
+
+    @Value("${linkme.chat.ws.send-time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${linkme.chat.ws.buffer-size-limit:524288}")
+    private int bufferSizeLimit;
+
+    @Value("${linkme.chat.ws.overflow:DROP}")
+    private ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy;
+
+    // 存储用户ID和该用户全部连接的映射（按建立顺序）
+    private final ConcurrentHashMap<String, CopyOnWriteArrayList<ConcurrentWebSocketSessionDecorator>> userSessions = new ConcurrentHashMap<>();
+
+    // 存储会话ID和连接的映射（用于反向查找）
+    private final ConcurrentHashMap<String, ConcurrentWebSocketSessionDecorator> sessions = new ConcurrentHashMap<>();
+
     private final ObjectMapper objectMapper = new ObjectMapper();
-    
+
+    private Counter limitExceededCounter;
+
+    @PostConstruct
+    public void init() {
+        limitExceededCounter = Counter.builder("linkme.chat.ws.send.limit_exceeded")
+                .description("因发送超时或缓冲超限被关闭的WebSocket连接数")
+                .register(meterRegistry);
+        Gauge.builder("linkme.chat.ws.sessions", sessions, Map::size)
+                .description("当前WebSocket连接数")
+                .register(meterRegistry);
+    }
+
     @Override
     public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
         // 从session attributes中获取用户ID（由拦截器设置）
         String userId = (String) session.getAttributes().get("userId");
         if (userId != null) {
-            // 如果用户已经存在连接，关闭旧连接
-            WebSocketSession oldSession = userSessions.get(userId);
-            if (oldSession != null && oldSession.isOpen()) {
-                try {
-                    oldSession.close();
-                } catch (IOException e) {
-                    System.err.println("关闭旧连接失败: " + e.getMessage());
+            limitBlockingSendTimeout(session);
+            ConcurrentWebSocketSessionDecorator outbound = new ConcurrentWebSocketSessionDecorator(
+                    session, sendTimeLimitMs, bufferSizeLimit, overflowStrategy);
+            sessions.put(session.getId(), outbound);
+            List<ConcurrentWebSocketSessionDecorator> evicted = new ArrayList<>();
+            userSessions.compute(userId, (key, list) -> {
+                CopyOnWriteArrayList<ConcurrentWebSocketSessionDecorator> result = list != null ? list : new CopyOnWriteArrayList<>();
+                result.add(outbound);
+                // 超过每个用户的连接上限时，关闭最早的连接
+                while (result.size() > Math.max(maxSessionsPerUser, 1)) {
+                    ConcurrentWebSocketSessionDecorator oldest = result.remove(0);
+                    sessions.remove(oldest.getId());
+                    evicted.add(oldest);
                 }
+                return result;
+            });
+            // 关闭帧的写出可能阻塞，放在 compute 之外
+            for (ConcurrentWebSocketSessionDecorator oldest : evicted) {
+                closeQuietly(oldest, CloseStatus.POLICY_VIOLATION.withReason("too many sessions"));
             }
-            
-            userSessions.put(userId, session);
-            sessionUsers.put(session, userId);
             System.out.println("WebSocket连接建立: 用户ID=" + userId + ", 会话ID=" + session.getId());
-            
+
             // 发送连接成功消息
             Map<String, Object> welcomeMsg = Map.of(
                 "type", "connected",
                 "message", "连接成功",
                 "userId", userId
             );
-            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(welcomeMsg)));
+            send(outbound, objectMapper.writeValueAsString(welcomeMsg));
         } else {
             System.err.println("WebSocket连接建立失败: 未找到用户ID");
             session.close();
         }
     }
-    
+
     @Override
     public void handleMessage(@NonNull WebSocketSession session, @NonNull WebSocketMessage<?> message) throws Exception {
         if (message instanceof TextMessage) {
+            ConcurrentWebSocketSessionDecorator outbound = sessions.get(session.getId());
+            if (outbound == null) {
+                return;
+            }
             String payload = ((TextMessage) message).getPayload();
             System.out.println("收到WebSocket消息: " + payload);
-            
+
             try {
                 // 解析消息
                 @SuppressWarnings("unchecked")
                 Map<String, Object> messageData = objectMapper.readValue(payload, Map.class);
                 String type = (String) messageData.get("type");
-                
+
                 if ("ping".equals(type)) {
                     // 心跳检测
                     Map<String, Object> pongMsg = Map.of("type", "pong");
-                    session.sendMessage(new TextMessage(objectMapper.writeValueAsString(pongMsg)));
+                    send(outbound, objectMapper.writeValueAsString(pongMsg));
                 } else if ("message".equals(type)) {
                     // 消息处理逻辑（如果需要通过WebSocket直接发送消息，可以在这里处理）
                     // 目前消息发送主要通过HTTP API，这里可以用于其他类型的实时通信
@@ -90,79 +152,134 @@ public class ChatWebSocketHandler implements WebSocketHandler {
                     "type", "error",
                     "message", "消息格式错误"
                 );
-                session.sendMessage(new TextMessage(objectMapper.writeValueAsString(errorMsg)));
+                send(outbound, objectMapper.writeValueAsString(errorMsg));
             }
         }
     }
-    
+
     @Override
     public void handleTransportError(@NonNull WebSocketSession session, @NonNull Throwable exception) throws Exception {
-        String userId = sessionUsers.get(session);
+        String userId = (String) session.getAttributes().get("userId");
         System.err.println("WebSocket传输错误: 用户ID=" + userId + ", 错误=" + exception.getMessage());
         removeSession(session);
     }
-    
+
     @Override
     public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus closeStatus) throws Exception {
-        String userId = sessionUsers.get(session);
+        String userId = (String) session.getAttributes().get("userId");
         System.out.println("WebSocket连接关闭: 用户ID=" + userId + ", 会话ID=" + session.getId());
         removeSession(session);
     }
-    
+
     @Override
     public boolean supportsPartialMessages() {
         return false;
     }
-    
+
     /**
      * 移除会话
      */
     private void removeSession(WebSocketSession session) {
-        String userId = sessionUsers.remove(session);
-        if (userId != null) {
-            userSessions.remove(userId);
+        ConcurrentWebSocketSessionDecorator outbound = sessions.remove(session.getId());
+        if (outbound != null) {
+            userSessions.computeIfPresent((String) outbound.getAttributes().get("userId"), (key, list) -> {
+                list.remove(outbound);
+                return list.isEmpty() ? null : list;
+            });
         }
     }
-    
+
     /**
-     * 向指定用户发送消息
-     * 
+     * 把 Tomcat 对单个连接的阻塞发送超时设为 send-time-limit-ms，卡住的写出按时失败返回
+     */
+    private void limitBlockingSendTimeout(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session container = nativeSession.getNativeSession(Session.class);
+            if (container != null) {
+                container.getUserProperties().put(BLOCKING_SEND_TIMEOUT, (long) sendTimeLimitMs);
+            }
+        }
+    }
+
+    /**
+     * 写出一条消息；超过发送时限或缓冲上限（TERMINATE）、写出失败时关闭并移除该连接
+     *
+     * 该连接正由其他线程写出时只放入缓冲区，不等待。
+     */
+    private void send(ConcurrentWebSocketSessionDecorator outbound, String message) {
+        if (!outbound.isOpen()) {
+            removeSession(outbound);
+            return;
+        }
+        try {
+            outbound.sendMessage(new TextMessage(message));
+            return;
+        } catch (SessionLimitExceededException e) {
+            limitExceededCounter.increment();
+            System.err.println("WebSocket慢连接被关闭: 用户ID=" + outbound.getAttributes().get("userId")
+                    + ", 会话ID=" + outbound.getId() + ", 原因=" + e.getMessage());
+            closeQuietly(outbound, e.getStatus());
+        } catch (Exception e) {
+            System.err.println("发送消息失败: 用户ID=" + outbound.getAttributes().get("userId")
+                    + ", 会话ID=" + outbound.getId() + ", 错误=" + e.getMessage());
+            closeQuietly(outbound, CloseStatus.SERVER_ERROR);
+        }
+        removeSession(outbound);
+    }
+
+    private void closeQuietly(ConcurrentWebSocketSessionDecorator outbound, CloseStatus status) {
+        try {
+            outbound.close(status);
+        } catch (Exception e) {
+            System.err.println("关闭WebSocket连接失败: 会话ID=" + outbound.getId() + ", 错误=" + e.getMessage());
+        }
+    }
+
+    /**
+     * 向指定用户发送消息（推送到该用户的全部连接）
+     *
+     * 某个连接正在写出时消息只进入其缓冲区；单次写出最长阻塞 send-time-limit-ms，超时的连接被关闭。
+     *
      * @param userId 用户ID
      * @param message 消息内容（JSON字符串）
      */
     public void sendMessageToUser(String userId, String message) {
-        WebSocketSession session = userSessions.get(userId);
-        if (session != null && session.isOpen()) {
-            try {
-                session.sendMessage(new TextMessage(message));
-            } catch (IOException e) {
-                System.err.println("发送消息失败: 用户ID=" + userId + ", 错误=" + e.getMessage());
-                // 如果发送失败，移除会话
-                removeSession(session);
-            }
+        List<ConcurrentWebSocketSessionDecorator> list = userSessions.get(userId);
+        if (list == null) {
+            return;
+        }
+        for (ConcurrentWebSocketSessionDecorator outbound : list) {
+            send(outbound, message);
         }
     }
-    
+
     /**
      * 检查用户是否在线
-     * 
+     *
      * @param userId 用户ID
-     * @return 是否在线
+     * @return 是否在线（任一连接打开即为在线）
      */
     public boolean isUserOnline(String userId) {
-        WebSocketSession session = userSessions.get(userId);
-        return session != null && session.isOpen();
+        List<ConcurrentWebSocketSessionDecorator> list = userSessions.get(userId);
+        if (list == null) {
+            return false;
+        }
+        for (ConcurrentWebSocketSessionDecorator outbound : list) {
+            if (outbound.isOpen()) {
+                return true;
+            }
+        }
+        return false;
     }
-    
+
     /**
      * 获取在线用户数量
-     * 
-     * @return 在线用户数量
+     *
+     * @return 在线用户数量（多端在线的用户只计一次）
      */
     public int getOnlineUserCount() {
-        return (int) userSessions.values().stream()
-                .filter(WebSocketSession::isOpen)
+        return (int) userSessions.keySet().stream()
+                .filter(this::isUserOnline)
                 .count();
     }
 }
-
@@ -3,6 +3,7 @@ package com.linkme.backend.controller;
 import com.linkme.backend.common.JwtUtil;
 import com.linkme.backend.common.R;
 import com.linkme.backend.controller.dto.ConversationCreateRequest;
+import com.linkme.backend.controller.dto.ConversationInboxResponse;
 import com.linkme.backend.controller.dto.ConversationResponse;
 import com.linkme.backend.controller.dto.MessageRequest;
 import com.linkme.backend.controller.dto.MessageResponse;
@@ -13,6 +14,7 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.servlet.http.HttpServletRequest;
@@ -26,8 +28,8 @@ import java.util.Map;
  * - 处理聊天相关的HTTP请求
  * - 包括会话管理、消息发送等功能
  * 
- * @author Ahz
- * @version 1.2.2
+ * @author Ahz, riki
+ * @version 1.5
  */
 @RestController
 @RequestMapping("/conversations")
@@ -40,6 +42,12 @@ public class ChatController {
     @Autowired
     private JwtUtil jwtUtil;
     
+    @Value("${linkme.chat.messages.max-size:100}")
+    private int messageMaxSize;
+    
+    @Value("${linkme.chat.messages.sync-max-size:500}")
+    private int messageSyncMaxSize;
+    
     /**
      * 从请求头中获取当前用户ID
      */
@@ -80,6 +88,33 @@ public class ChatController {
         return R.ok(conversations);
     }
     
+    /**
+     * 获取会话列表（游标分页）
+     * 
+     * @param cursor 上一页返回的游标
+     * @param size 每页数量
+     * @param request HTTP请求
+     * @return 一页会话与下一页游标
+     */
+    @GetMapping("/inbox")
+    @Operation(summary = "获取会话列表（游标分页）", description = "置顶优先、按最后活跃时间倒序，携带 nextCursor 翻页", 
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public R<ConversationInboxResponse> getConversationInbox(
+            @RequestParam(required = false) @Parameter(description = "上一页返回的游标，第一页不传") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "每页数量") Integer size,
+            HttpServletRequest request) {
+        Integer userId = getCurrentUserId(request);
+        if (userId == null) {
+            return R.fail(401, "未授权，请先登录");
+        }
+        
+        try {
+            return R.ok(chatService.getConversationInbox(userId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return R.fail(400, e.getMessage());
+        }
+    }
+    
     /**
      * 创建会话
      * 
@@ -144,26 +179,48 @@ public class ChatController {
     /**
      * 获取消息列表
      * 
+     * 传 before / after / since 之一时按消息ID游标查询，否则按页码查询；两者共用同一条查询与每页上限，
+     * 第一页与不传游标的最新一页相同。
+     * 
      * @param conversationId 会话ID
      * @param page 页码
      * @param size 每页数量
+     * @param before 返回早于该消息ID的一页（向上翻历史）
+     * @param after 返回晚于该消息ID的一页（向下翻）
+     * @param since 返回该消息ID之后的全部消息（断线重连后同步，单次最多 sync-max-size 条）
      * @param request HTTP请求
-     * @return 消息列表
+     * @return 消息列表（按时间正序）
      */
     @GetMapping("/{conversationId}/messages")
-    @Operation(summary = "获取消息列表", description = "获取指定会话的消息列表", 
+    @Operation(summary = "获取消息列表", description = "获取指定会话的消息列表，支持 before / after / since 消息ID游标", 
                security = @SecurityRequirement(name = "bearerAuth"))
     public R<List<MessageResponse>> getMessages(
             @PathVariable @Parameter(description = "会话ID") Integer conversationId,
             @RequestParam(defaultValue = "1") @Parameter(description = "页码") Integer page,
             @RequestParam(defaultValue = "50") @Parameter(description = "每页数量") Integer size,
+            @RequestParam(required = false) @Parameter(description = "返回早于该消息ID的一页") Integer before,
+            @RequestParam(required = false) @Parameter(description = "返回晚于该消息ID的一页") Integer after,
+            @RequestParam(required = false) @Parameter(description = "返回该消息ID之后的全部新消息（重连同步）") Integer since,
             HttpServletRequest request) {
         Integer userId = getCurrentUserId(request);
         if (userId == null) {
             return R.fail(401, "未授权，请先登录");
         }
         
-        List<MessageResponse> messages = chatService.getMessagesByConversationId(conversationId, userId, page, size);
+        int cursors = (before != null ? 1 : 0) + (after != null ? 1 : 0) + (since != null ? 1 : 0);
+        if (cursors > 1) {
+            return R.fail(400, "before、after、since 只能指定一个");
+        }
+        
+        List<MessageResponse> messages;
+        if (since != null) {
+            messages = chatService.getMessagesByCursor(conversationId, userId, null, since, messageSyncMaxSize);
+        } else if (cursors == 1) {
+            int pageSize = Math.max(1, Math.min(size, messageMaxSize));
+            messages = chatService.getMessagesByCursor(conversationId, userId, before, after, pageSize);
+        } else {
+            messages = chatService.getMessagesByConversationId(conversationId, userId, page, size);
+        }
         return R.ok(messages);
     }
     
@@ -2,15 +2,27 @@ package com.linkme.backend.controller;
 
 import com.linkme.backend.common.JwtUtil;
 import com.linkme.backend.common.R;
+import com.linkme.backend.controller.dto.HeartResponse;
+import com.linkme.backend.controller.dto.MatchCompatibilityResponse;
+import com.linkme.backend.controller.dto.MatchInboxResponse;
+import com.linkme.backend.controller.dto.MatchRecommendationFeedResponse;
 import com.linkme.backend.controller.dto.MatchRecommendationResponse;
+import com.linkme.backend.match.MatchStageMetrics;
+import com.linkme.backend.match.MatchStageTrace;
+import com.linkme.backend.service.HeartService;
+import com.linkme.backend.service.MatchInboxService;
 import com.linkme.backend.service.MatchRecommendService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -20,9 +32,13 @@ import java.util.List;
 /**
  * 匹配推荐控制器
  * - 提供推荐列表接口，供前端展示并发起聊天
+ * - 提供红心接口，互相红心即匹配成功
+ * - 提供匹配度查询接口（单个 / 批量），供资料页展示
+ * - 提供匹配收件箱接口（已匹配的用户、会话与最后一条消息）
+ * - 推荐接口带请求头 X-Match-Debug: true 时，在 Server-Timing 响应头中返回本次请求的分阶段耗时
  *
  * @author riki
- * @version 1.0
+ * @version 1.4
  */
 @RestController
 @RequestMapping("/match")
@@ -32,9 +48,24 @@ public class MatchController {
     @Autowired
     private MatchRecommendService matchRecommendService;
 
+    @Autowired
+    private HeartService heartService;
+
+    @Autowired
+    private MatchInboxService matchInboxService;
+
+    @Autowired
+    private MatchStageMetrics matchStageMetrics;
+
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Value("${linkme.match.debug-header.enabled:true}")
+    private boolean debugHeaderEnabled;
+
+    @Value("${linkme.match.compatibility.max-batch:100}")
+    private int compatibilityMaxBatch;
+
     /**
      * 从请求头 Authorization 中解析当前用户ID
      */
@@ -51,6 +82,27 @@ public class MatchController {
         return null;
     }
 
+    /**
+     * 请求带 X-Match-Debug: true 时开始记录分阶段耗时，否则返回 null
+     */
+    private MatchStageTrace startTrace(HttpServletRequest request) {
+        if (!debugHeaderEnabled || !"true".equalsIgnoreCase(request.getHeader("X-Match-Debug"))) {
+            return null;
+        }
+        return matchStageMetrics.startTrace();
+    }
+
+    /**
+     * 结束记录并写入 Server-Timing 响应头
+     */
+    private void finishTrace(MatchStageTrace trace, HttpServletResponse response) {
+        if (trace == null) {
+            return;
+        }
+        matchStageMetrics.endTrace();
+        response.setHeader("Server-Timing", trace.toServerTiming());
+    }
+
     /**
      * 获取匹配推荐列表
      */
@@ -60,13 +112,130 @@ public class MatchController {
     public R<List<MatchRecommendationResponse>> getRecommendations(
             @RequestParam(defaultValue = "1") @Parameter(description = "页码") Integer page,
             @RequestParam(defaultValue = "20") @Parameter(description = "每页数量") Integer size,
+            HttpServletRequest request, HttpServletResponse response) {
+        Integer currentUserId = getCurrentUserId(request);
+        if (currentUserId == null) {
+            return R.fail(401, "未授权，请先登录");
+        }
+
+        MatchStageTrace trace = startTrace(request);
+        try {
+            List<MatchRecommendationResponse> list = matchRecommendService.getRecommendations(currentUserId, page, size);
+            return R.ok(list);
+        } finally {
+            finishTrace(trace, response);
+        }
+    }
+
+    /**
+     * 获取匹配推荐流（游标分页，翻页期间顺序稳定）
+     */
+    @GetMapping("/recommendations/feed")
+    @Operation(summary = "获取匹配推荐流", description = "第一页生成排序快照并返回游标，之后携带 nextCursor 翻页",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public R<MatchRecommendationFeedResponse> getRecommendationFeed(
+            @RequestParam(required = false) @Parameter(description = "上一页返回的游标，第一页不传") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "每页数量（仅第一页生效）") Integer size,
+            HttpServletRequest request, HttpServletResponse response) {
+        Integer currentUserId = getCurrentUserId(request);
+        if (currentUserId == null) {
+            return R.fail(401, "未授权，请先登录");
+        }
+
+        MatchStageTrace trace = startTrace(request);
+        try {
+            return R.ok(matchRecommendService.getRecommendationFeed(currentUserId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return R.fail(400, e.getMessage());
+        } finally {
+            finishTrace(trace, response);
+        }
+    }
+
+    /**
+     * 查询与指定用户的匹配度
+     */
+    @GetMapping("/compatibility/{userId}")
+    @Operation(summary = "查询匹配度", description = "计算当前用户与指定用户的匹配度，规则与推荐列表一致",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public R<MatchCompatibilityResponse> getCompatibility(
+            @PathVariable @Parameter(description = "对方用户ID") Integer userId,
             HttpServletRequest request) {
         Integer currentUserId = getCurrentUserId(request);
         if (currentUserId == null) {
             return R.fail(401, "未授权，请先登录");
         }
+        if (userId == null || userId.equals(currentUserId)) {
+            return R.fail(400, "不能查询与自己的匹配度");
+        }
+
+        MatchCompatibilityResponse result = matchRecommendService.getCompatibility(currentUserId, userId);
+        if (result == null) {
+            return R.fail(404, "用户不存在");
+        }
+        return R.ok(result);
+    }
+
+    /**
+     * 批量查询匹配度
+     */
+    @GetMapping("/compatibility")
+    @Operation(summary = "批量查询匹配度", description = "userIds 以逗号分隔，按请求顺序返回（去重、不含自己）",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public R<List<MatchCompatibilityResponse>> getCompatibilities(
+            @RequestParam @Parameter(description = "对方用户ID列表，如 1,2,3") List<Integer> userIds,
+            HttpServletRequest request) {
+        Integer currentUserId = getCurrentUserId(request);
+        if (currentUserId == null) {
+            return R.fail(401, "未授权，请先登录");
+        }
+        if (userIds.size() > compatibilityMaxBatch) {
+            return R.fail(400, "一次最多查询 " + compatibilityMaxBatch + " 个用户");
+        }
+
+        return R.ok(matchRecommendService.getCompatibilities(currentUserId, userIds));
+    }
 
-        List<MatchRecommendationResponse> list = matchRecommendService.getRecommendations(currentUserId, page, size);
-        return R.ok(list);
+    /**
+     * 获取匹配收件箱（按匹配时间倒序，游标分页）
+     */
+    @GetMapping("/matches")
+    @Operation(summary = "获取匹配列表", description = "返回已匹配的用户摘要、会话ID、最后一条消息预览与未读数，携带 nextCursor 翻页",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public R<MatchInboxResponse> getMatches(
+            @RequestParam(required = false) @Parameter(description = "上一页返回的游标，第一页不传") String cursor,
+            @RequestParam(defaultValue = "20") @Parameter(description = "每页数量") Integer size,
+            HttpServletRequest request) {
+        Integer currentUserId = getCurrentUserId(request);
+        if (currentUserId == null) {
+            return R.fail(401, "未授权，请先登录");
+        }
+
+        try {
+            return R.ok(matchInboxService.getInbox(currentUserId, cursor, size));
+        } catch (IllegalArgumentException e) {
+            return R.fail(400, e.getMessage());
+        }
+    }
+
+    /**
+     * 给用户发送红心（互相红心即匹配成功）
+     */
+    @PostMapping("/hearts/{userId}")
+    @Operation(summary = "发送红心", description = "对方此前也红心过自己时匹配成功，返回 matched=true 并通知对方",
+            security = @SecurityRequirement(name = "bearerAuth"))
+    public R<HeartResponse> sendHeart(
+            @PathVariable @Parameter(description = "被红心的用户ID") Integer userId,
+            HttpServletRequest request) {
+        Integer currentUserId = getCurrentUserId(request);
+        if (currentUserId == null) {
+            return R.fail(401, "未授权，请先登录");
+        }
+
+        try {
+            return R.ok(heartService.sendHeart(currentUserId, userId));
+        } catch (IllegalArgumentException e) {
+            return R.fail(400, e.getMessage());
+        }
     }
 }
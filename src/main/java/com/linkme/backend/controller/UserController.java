@@ -14,11 +14,22 @@ import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLConnection;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 用户控制器
@@ -27,8 +38,8 @@ import java.util.Map;
  * - 处理用户相关的HTTP请求
  * - 包括用户注册、登录、信息管理等功能
  * 
- * @author Ahz
- * @version 1.2.2
+ * @author Ahz, riki
+ * @version 1.2.3
  */
 @RestController
 @RequestMapping("/user")
@@ -88,6 +99,82 @@ public class UserController {
         }
     }
     
+    /**
+     * 获取用户头像（图片二进制）
+     * 
+     * 消息列表、推送等只返回头像引用 /user/{userId}/avatar?v={avatarVersion}，客户端按引用单独获取头像：
+     * 请求的 v 与当前头像版本一致时允许长期缓存（版本变化即引用变化），否则按 ETag 协商缓存。
+     * 
+     * @param userId 用户ID
+     * @param v 头像版本（可选）
+     * @param webRequest 请求（用于 If-None-Match 协商）
+     * @return 头像图片；没有头像时返回 404
+     */
+    @GetMapping("/{userId}/avatar")
+    @Operation(summary = "获取用户头像", description = "返回用户头像图片，按头像版本缓存", 
+               security = @SecurityRequirement(name = "bearerAuth"))
+    public ResponseEntity<byte[]> getUserAvatar(@PathVariable @Parameter(description = "用户ID") Integer userId,
+                                                @RequestParam(required = false) @Parameter(description = "头像版本") Integer v,
+                                                WebRequest webRequest) {
+        User user = userService.getAvatar(userId);
+        String avatar = user != null ? user.getAvatarUrl() : null;
+        if (avatar == null || avatar.isBlank()) {
+            return ResponseEntity.notFound().build();
+        }
+        // 历史数据中可能仍是外部图片链接
+        if (avatar.startsWith("http://") || avatar.startsWith("https://")) {
+            return ResponseEntity.status(HttpStatus.FOUND).location(URI.create(avatar)).build();
+        }
+
+        int version = user.getAvatarVersion() != null ? user.getAvatarVersion() : 0;
+        String etag = "\"" + userId + "-" + version + "\"";
+        CacheControl cacheControl = v != null && v == version
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable()
+                : CacheControl.noCache().cachePrivate();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        // 支持 data URL（data:image/png;base64,...）与纯 Base64 两种存储格式
+        String contentType = null;
+        String data = avatar;
+        if (avatar.startsWith("data:")) {
+            int comma = avatar.indexOf(',');
+            if (comma < 0) {
+                return ResponseEntity.notFound().build();
+            }
+            String meta = avatar.substring(5, comma);
+            int semicolon = meta.indexOf(';');
+            contentType = semicolon >= 0 ? meta.substring(0, semicolon) : meta;
+            data = avatar.substring(comma + 1);
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(data);
+        } catch (IllegalArgumentException e) {
+            System.err.println("头像解码失败: 用户ID=" + userId + ", " + e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+        if (contentType == null || contentType.isEmpty()) {
+            try {
+                contentType = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(bytes));
+            } catch (IOException e) {
+                contentType = null;
+            }
+        }
+        MediaType mediaType;
+        try {
+            mediaType = contentType != null ? MediaType.parseMediaType(contentType) : MediaType.APPLICATION_OCTET_STREAM;
+        } catch (Exception e) {
+            mediaType = MediaType.APPLICATION_OCTET_STREAM;
+        }
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(bytes);
+    }
+    
     /**
      * 更新用户信息
      * 
@@ -113,13 +200,23 @@ public class UserController {
             System.out.println("birthday: " + user.getBirthday());
             System.out.println("region: " + user.getRegion());
             
+            // 经纬度可选，需同时提供且在合法范围内
+            if ((user.getLatitude() == null) != (user.getLongitude() == null)) {
+                return R.fail(400, "经纬度需要同时提供");
+            }
+            if (user.getLatitude() != null
+                    && (Math.abs(user.getLatitude()) > 90 || Math.abs(user.getLongitude()) > 180)) {
+                return R.fail(400, "经纬度超出范围");
+            }
+            
             // 检查是否有字段需要更新
             boolean hasFieldToUpdate = user.getNickname() != null || 
                                       user.getBio() != null || 
                                       user.getAvatarUrl() != null ||
                                       user.getGender() != null ||
                                       user.getBirthday() != null ||
-                                      user.getRegion() != null;
+                                      user.getRegion() != null ||
+                                      user.getLatitude() != null;
             
             System.out.println("是否有字段需要更新: " + hasFieldToUpdate);
             
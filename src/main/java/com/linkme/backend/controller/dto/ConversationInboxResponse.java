@@ -0,0 +1,27 @@
+package com.linkme.backend.controller.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 会话列表返回 DTO
+ * 
+ * 功能描述：
+ * - 一页会话（置顶优先、按最后活跃时间倒序）与下一页游标
+ * 
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class ConversationInboxResponse {
+    /**
+     * 当前页会话
+     */
+    private List<ConversationResponse> items;
+    
+    /**
+     * 下一页游标（没有更多时为 null）
+     */
+    private String nextCursor;
+}
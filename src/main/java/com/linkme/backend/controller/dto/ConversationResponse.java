@@ -11,7 +11,7 @@ import java.time.LocalDateTime;
  * - 包含会话的完整信息，包括对方用户信息和最后一条消息
  * 
  * @author Ahz
- * @version 1.2
+ * @version 1.3
  */
 @Data
 public class ConversationResponse {
@@ -31,7 +31,7 @@ public class ConversationResponse {
     private String otherUserNickname;
     
     /**
-     * 对方用户头像
+     * 对方用户头像引用（/user/{userId}/avatar?v={avatarVersion}，没有头像时为 null），不携带 Base64 头像
      */
     private String otherUserAvatar;
     
@@ -0,0 +1,22 @@
+package com.linkme.backend.controller.dto;
+
+import lombok.Data;
+
+/**
+ * 发送红心返回 DTO
+ * - 对方此前也红心过自己时 matched 为 true
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class HeartResponse {
+    /** 被红心的用户ID */
+    private Integer targetUserId;
+
+    /** 是否已互相红心（匹配成功） */
+    private Boolean matched;
+
+    /** 匹配ID（匹配成功时返回） */
+    private Integer matchId;
+}
@@ -0,0 +1,19 @@
+package com.linkme.backend.controller.dto;
+
+import lombok.Data;
+
+/**
+ * 匹配度查询返回 DTO
+ * - 资料页展示"你们的匹配度"
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class MatchCompatibilityResponse {
+    /** 对方用户ID */
+    private Integer userId;
+
+    /** 匹配度（0-100）；对方不存在或已关闭匹配时为 null */
+    private Integer matchScore;
+}
@@ -0,0 +1,58 @@
+package com.linkme.backend.controller.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 匹配收件箱条目 DTO
+ * - 一条匹配关系：对方摘要资料、会话与最后一条消息预览
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class MatchInboxItemResponse {
+    /** 匹配ID */
+    private Integer matchId;
+
+    /** 匹配时间 */
+    private LocalDateTime matchedAt;
+
+    /** 对方用户ID */
+    private Integer userId;
+
+    /** 对方昵称 */
+    private String nickname;
+
+    /** 对方头像 */
+    private String avatarUrl;
+
+    /** 对方性别 */
+    private String gender;
+
+    /** 对方生日 */
+    private LocalDate birthday;
+
+    /** 对方地区 */
+    private String region;
+
+    /** 会话ID（还没有会话时为 null） */
+    private Integer conversationId;
+
+    /** 最后一条消息预览（文本消息截取前若干字，其他类型为 null） */
+    private String lastMessage;
+
+    /** 最后一条消息类型 */
+    private String lastMessageType;
+
+    /** 最后一条消息发送者ID */
+    private Integer lastMessageSenderId;
+
+    /** 最后一条消息时间 */
+    private LocalDateTime lastMessageTime;
+
+    /** 未读消息数量 */
+    private Integer unreadCount;
+}
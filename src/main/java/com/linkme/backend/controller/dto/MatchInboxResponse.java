@@ -0,0 +1,21 @@
+package com.linkme.backend.controller.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 匹配收件箱返回 DTO
+ * - 一页匹配（按匹配时间倒序）与下一页游标
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class MatchInboxResponse {
+    /** 当前页匹配 */
+    private List<MatchInboxItemResponse> items;
+
+    /** 下一页游标（没有更多时为 null） */
+    private String nextCursor;
+}
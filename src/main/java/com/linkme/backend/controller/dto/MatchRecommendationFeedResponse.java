@@ -0,0 +1,21 @@
+package com.linkme.backend.controller.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 匹配推荐流返回 DTO
+ * - 一页推荐结果与下一页游标
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class MatchRecommendationFeedResponse {
+    /** 当前页推荐 */
+    private List<MatchRecommendationResponse> items;
+
+    /** 下一页游标（没有更多时为 null） */
+    private String nextCursor;
+}
@@ -10,8 +10,8 @@ import java.time.LocalDateTime;
  * - 用于返回消息信息给客户端
  * - 包含消息的完整信息
  * 
- * @author Ahz
- * @version 1.2
+ * @author Ahz, riki
+ * @version 1.3
  */
 @Data
 public class MessageResponse {
@@ -36,7 +36,7 @@ public class MessageResponse {
     private String senderNickname;
     
     /**
-     * 发送者头像
+     * 发送者头像引用（/user/{userId}/avatar?v={avatarVersion}，没有头像时为 null）
      */
     private String senderAvatar;
     
@@ -15,7 +15,7 @@ import java.time.LocalDateTime;
  * - 输出：会话信息
  * 
  * @author Ahz, riki
- * @version 1.2.2
+ * @version 1.3
  */
 @Data
 public class Conversation {
@@ -58,4 +58,44 @@ public class Conversation {
      * 用户2是否置顶
      */
     private Boolean user2Pinned;
+    
+    /**
+     * 最后一条消息ID（冗余字段，发送消息时更新）
+     */
+    private Integer lastMessageId;
+    
+    /**
+     * 最后一条消息预览（文本消息截断，其他类型为空）
+     */
+    private String lastMessagePreview;
+    
+    /**
+     * 最后一条消息类型
+     */
+    private String lastMessageType;
+    
+    /**
+     * 最后一条消息发送者ID
+     */
+    private Integer lastMessageSenderId;
+    
+    /**
+     * 最后一条消息时间
+     */
+    private LocalDateTime lastMessageAt;
+    
+    /**
+     * 最后活跃时间 - 最后一条消息时间，没有消息时为创建时间
+     */
+    private LocalDateTime lastActivityAt;
+    
+    /**
+     * 用户1未读消息数
+     */
+    private Integer user1Unread;
+    
+    /**
+     * 用户2未读消息数
+     */
+    private Integer user2Unread;
 }
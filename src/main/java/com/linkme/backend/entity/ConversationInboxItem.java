@@ -0,0 +1,78 @@
+package com.linkme.backend.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 会话列表投影
+ * 
+ * 功能描述：
+ * - 会话列表一次查询的结果行：会话的冗余字段按当前用户一侧展开，并联表带出对方昵称和头像版本
+ * - 不读取头像内容（avatar_url 可能是 Base64），响应中的头像为按版本生成的头像引用
+ * - 不对应单独的表
+ * 
+ * @author riki
+ * @version 1.1
+ */
+@Data
+public class ConversationInboxItem {
+    /**
+     * 会话ID
+     */
+    private Integer conversationId;
+    
+    /**
+     * 对方用户ID
+     */
+    private Integer otherUserId;
+    
+    /**
+     * 对方用户昵称
+     */
+    private String otherUserNickname;
+    
+    /**
+     * 对方用户头像版本（0 表示没有头像）
+     */
+    private Integer otherUserAvatarVersion;
+    
+    /**
+     * 最后一条消息预览
+     */
+    private String lastMessagePreview;
+    
+    /**
+     * 最后一条消息类型
+     */
+    private String lastMessageType;
+    
+    /**
+     * 最后一条消息时间
+     */
+    private LocalDateTime lastMessageAt;
+    
+    /**
+     * 最后活跃时间（分页游标）
+     */
+    private LocalDateTime lastActivityAt;
+    
+    /**
+     * 当前用户的未读消息数
+     */
+    private Integer unreadCount;
+    
+    /**
+     * 当前用户是否免打扰
+     */
+    private Boolean muted;
+    
+    /**
+     * 当前用户是否置顶（分页游标）
+     */
+    private Boolean pinned;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+}
@@ -10,6 +10,7 @@ import lombok.Data;
  */
 @Data
 public class DimensionPrioritySelection {
+    private Integer userId;
     private String code;
     private Integer priorityOrder;
 }
@@ -0,0 +1,37 @@
+package com.linkme.backend.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 匹配排除集合实体类
+ * 
+ * 功能描述：
+ * - 持久化 MatchExclusionIndex 中某个用户的排除集合，重启后按需加载
+ * - 位图为 RoaringBitmap 的标准序列化格式
+ * 
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class MatchExclusion {
+    /**
+     * 用户ID - 主键，排除集合的所有者
+     */
+    private Integer userId;
+    
+    /**
+     * 已红心/已匹配的用户ID位图
+     */
+    private byte[] interactedBitmap;
+    
+    /**
+     * 按曝光次数分层的用户ID位图（第 i 层为至少曝光 i+1 次的用户，逐层拼接）
+     */
+    private byte[] impressionBitmaps;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,32 @@
+package com.linkme.backend.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 匹配打分权重实体类
+ * 
+ * 功能描述：
+ * - 存储运行时可调整的匹配打分权重，覆盖 application.yml 中的默认值
+ * - 键名与配置项 linkme.match.scoring.* 相同（如 base-score）
+ * 
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class MatchScoringWeight {
+    /**
+     * 权重键 - 主键，如 base-score、must-not-satisfied-penalty
+     */
+    private String weightKey;
+    
+    /**
+     * 权重值
+     */
+    private Integer weightValue;
+    
+    /**
+     * 更新时间
+     */
+    private LocalDateTime updatedAt;
+}
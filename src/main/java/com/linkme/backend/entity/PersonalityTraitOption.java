@@ -0,0 +1,24 @@
+package com.linkme.backend.entity;
+
+import lombok.Data;
+
+/**
+ * 性格特质选项（含所属分类，查询视图）
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class PersonalityTraitOption {
+    private Integer optionId;
+    private Integer categoryId;
+    private String traitType;
+
+    /** 选项稳定编码（匹配规则使用，与显示名称无关） */
+    private String code;
+    private String name;
+
+    /** 分类稳定编码 */
+    private String categoryCode;
+    private String categoryName;
+}
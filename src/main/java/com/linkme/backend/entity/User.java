@@ -1,6 +1,7 @@
 package com.linkme.backend.entity;
 
 import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -16,8 +17,8 @@ import java.time.LocalDateTime;
  * - 输入：用户注册信息（邮箱、密码、昵称等）
  * - 输出：用户详细信息（包含头像、简介、标签等）
  * 
- * @author Ahz
- * @version 1.0
+ * @author Ahz, riki
+ * @version 1.2
  */
 @Data
 public class User {
@@ -67,11 +68,29 @@ public class User {
      */
     private String region;
     
+    /**
+     * 纬度 - 可选，匹配推荐按实际距离计分；只接收不返回，避免暴露精确位置
+     */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private Double latitude;
+    
+    /**
+     * 经度 - 可选，与纬度同时设置
+     */
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private Double longitude;
+    
     /**
      * 头像URL - 用户头像图片链接
      */
     private String avatarUrl;
     
+    /**
+     * 头像版本 - 每次更换头像加 1，0 表示没有头像（头像引用 /user/{userId}/avatar?v={avatarVersion}）
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer avatarVersion;
+    
     /**
      * 简介 - 个人简介
      */
@@ -0,0 +1,16 @@
+package com.linkme.backend.entity;
+
+import lombok.Data;
+
+/**
+ * 用户爱好选择（查询视图）
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class UserHobbySelection {
+    private Integer userId;
+    private Integer hobbyId;
+    private Integer categoryId;
+}
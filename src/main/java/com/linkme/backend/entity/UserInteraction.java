@@ -0,0 +1,31 @@
+package com.linkme.backend.entity;
+
+import lombok.Data;
+
+/**
+ * 用户互动投影
+ * 
+ * 功能描述：
+ * - 协同过滤离线任务读取的"谁对谁有过互动"记录（如点赞了谁的帖子）
+ * - 只包含游标与双方用户ID，不对应单独的表
+ * 
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class UserInteraction {
+    /**
+     * 游标 - 来源表的主键，用于按主键分批读取
+     */
+    private Integer cursorId;
+    
+    /**
+     * 发起互动的用户ID
+     */
+    private Integer actorId;
+    
+    /**
+     * 被互动的用户ID
+     */
+    private Integer targetId;
+}
@@ -0,0 +1,26 @@
+package com.linkme.backend.entity;
+
+import lombok.Data;
+
+/**
+ * 用户总未读数投影
+ * 
+ * 功能描述：
+ * - 按用户汇总会话表上该用户一侧的未读数（对账未读计数器时使用）
+ * - 只包含用户ID与未读数量，不对应单独的表
+ * 
+ * @author riki
+ * @version 1.0
+ */
+@Data
+public class UserUnreadCount {
+    /**
+     * 用户ID
+     */
+    private Integer userId;
+    
+    /**
+     * 所有会话的未读消息总数
+     */
+    private Integer unreadCount;
+}
@@ -62,5 +62,12 @@ public interface BlockMapper {
      * @return 屏蔽数量
      */
     int countByBlockerId(@Param("blockerId") Integer blockerId);
+    
+    /**
+     * 查询与指定用户存在屏蔽关系的用户ID（屏蔽了对方或被对方屏蔽）
+     * 
+     * @param userId 用户ID
+     * @return 用户ID列表
+     */
+    List<Integer> selectBlockRelatedUserIds(@Param("userId") Integer userId);
 }
-
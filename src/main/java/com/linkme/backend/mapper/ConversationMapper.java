@@ -1,9 +1,12 @@
 package com.linkme.backend.mapper;
 
 import com.linkme.backend.entity.Conversation;
+import com.linkme.backend.entity.ConversationInboxItem;
+import com.linkme.backend.entity.UserUnreadCount;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -14,7 +17,7 @@ import java.util.List;
  * - 支持私聊会话管理
  * 
  * @author Ahz, riki
- * @version 1.2.2
+ * @version 1.5
  */
 @Mapper
 public interface ConversationMapper {
@@ -37,6 +40,41 @@ public interface ConversationMapper {
      */
     List<Conversation> selectByUserId(@Param("userId") Integer userId, @Param("offset") Integer offset, @Param("limit") Integer limit);
     
+    /**
+     * 根据会话ID查询会话信息并锁定该行（事务内读取未读数后归零，与并发发送串行）
+     * 
+     * @param conversationId 会话ID
+     * @return 会话信息
+     */
+    Conversation selectByIdForUpdate(@Param("conversationId") Integer conversationId);
+    
+    /**
+     * 会话列表的一页（置顶优先、按最后活跃时间倒序，联表带出对方昵称和头像，一次查询）
+     * 
+     * @param userId 用户ID
+     * @param beforePinned 上一页最后一条是否置顶（游标）
+     * @param beforeActivityAt 上一页最后一条的最后活跃时间（游标，第一页为 null）
+     * @param beforeConversationId 上一页最后一条的会话ID（游标）
+     * @param offset 偏移量（使用游标时为 0）
+     * @param limit 限制数量
+     * @return 会话列表
+     */
+    List<ConversationInboxItem> selectInboxPage(@Param("userId") Integer userId,
+                                                @Param("beforePinned") Boolean beforePinned,
+                                                @Param("beforeActivityAt") LocalDateTime beforeActivityAt,
+                                                @Param("beforeConversationId") Integer beforeConversationId,
+                                                @Param("offset") Integer offset,
+                                                @Param("limit") Integer limit);
+    
+    /**
+     * 按当前用户一侧查询单个会话
+     * 
+     * @param conversationId 会话ID
+     * @param userId 当前用户ID
+     * @return 会话信息（不存在或不是会话参与者时为 null）
+     */
+    ConversationInboxItem selectInboxItemById(@Param("conversationId") Integer conversationId, @Param("userId") Integer userId);
+    
     /**
      * 根据两个用户ID查询会话
      * 
@@ -46,6 +84,15 @@ public interface ConversationMapper {
      */
     Conversation selectByUserPair(@Param("user1Id") Integer user1Id, @Param("user2Id") Integer user2Id);
     
+    /**
+     * 批量查询用户与多个对方用户之间的会话（匹配收件箱）
+     * 
+     * @param userId 用户ID
+     * @param partnerIds 对方用户ID列表
+     * @return 会话列表（没有会话的对方不返回）
+     */
+    List<Conversation> selectByUserAndPartners(@Param("userId") Integer userId, @Param("partnerIds") List<Integer> partnerIds);
+    
     /**
      * 插入新会话
      * 
@@ -54,6 +101,48 @@ public interface ConversationMapper {
      */
     int insert(Conversation conversation);
     
+    /**
+     * 按用户汇总所有会话中该用户一侧的未读数（未读计数器的加载与对账）
+     * 
+     * @param userIds 用户ID列表
+     * @return 每个有会话的用户一条
+     */
+    List<UserUnreadCount> sumUnreadByUserIds(@Param("userIds") List<Integer> userIds);
+    
+    /**
+     * 发送消息后更新最后一条消息，并给接收者的未读数加 1
+     * 
+     * @param conversationId 会话ID
+     * @param messageId 消息ID
+     * @param preview 消息预览
+     * @param contentType 消息类型
+     * @param senderId 发送者ID
+     * @param receiverId 接收者ID
+     * @param sentAt 发送时间
+     * @return 影响行数
+     */
+    int updateLastMessage(@Param("conversationId") Integer conversationId, @Param("messageId") Integer messageId,
+                          @Param("preview") String preview, @Param("contentType") String contentType,
+                          @Param("senderId") Integer senderId, @Param("receiverId") Integer receiverId,
+                          @Param("sentAt") LocalDateTime sentAt);
+    
+    /**
+     * 将用户一侧的未读数归零
+     * 
+     * @param conversationId 会话ID
+     * @param userId 用户ID
+     * @return 影响行数
+     */
+    int resetUnread(@Param("conversationId") Integer conversationId, @Param("userId") Integer userId);
+    
+    /**
+     * 清除最后一条消息与双方未读数（清空消息后）
+     * 
+     * @param conversationId 会话ID
+     * @return 影响行数
+     */
+    int clearLastMessage(@Param("conversationId") Integer conversationId);
+    
     /**
      * 根据会话ID删除会话
      * 
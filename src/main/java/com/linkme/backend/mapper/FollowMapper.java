@@ -14,7 +14,7 @@ import java.util.List;
  * - 支持关注和取消关注功能
  * 
  * @author Ahz, riki
- * @version 1.0
+ * @version 1.1
  */
 @Mapper
 public interface FollowMapper {
@@ -80,4 +80,16 @@ public interface FollowMapper {
      * @return 粉丝数量
      */
     int countByFolloweeId(@Param("followeeId") Integer followeeId);
+    
+    /**
+     * 按主键游标分批读取关注关系（协同过滤离线任务）
+     * 
+     * @param lastFollowerId 上一批最后一条的关注者ID（首批传 0）
+     * @param lastFolloweeId 上一批最后一条的被关注者ID（首批传 0）
+     * @param limit 每批数量
+     * @return 关注关系列表
+     */
+    List<Follow> selectPairsAfter(@Param("lastFollowerId") Integer lastFollowerId,
+                                  @Param("lastFolloweeId") Integer lastFolloweeId,
+                                  @Param("limit") Integer limit);
 }
@@ -12,9 +12,10 @@ import java.util.List;
  * 功能描述：
  * - 提供红心数据的增删改查操作
  * - 支持红心和取消红心功能
+ * - 支持批量写入与按主键游标分批读取（红心接收与互相红心检测使用）
  * 
  * @author Ahz, riki
- * @version 1.0
+ * @version 1.2
  */
 @Mapper
 public interface HeartMapper {
@@ -80,4 +81,29 @@ public interface HeartMapper {
      * @return 被红心数量
      */
     int countByToUserId(@Param("toUserId") Integer toUserId);
+    
+    /**
+     * 批量插入红心关系（已存在的关系忽略）
+     * 
+     * @param hearts 红心关系列表
+     * @return 影响行数
+     */
+    int insertBatchIgnore(@Param("hearts") List<Heart> hearts);
+    
+    /**
+     * 按主键游标分批查询红心关系（仅 heart_id / from_user_id / to_user_id）
+     * 
+     * @param lastHeartId 上一批最后一个红心ID（首批传 0）
+     * @param limit 每批数量
+     * @return 红心关系列表
+     */
+    List<Heart> selectPairsAfter(@Param("lastHeartId") Integer lastHeartId, @Param("limit") Integer limit);
+    
+    /**
+     * 查询用户红心过的全部用户ID（重建匹配排除集合）
+     * 
+     * @param fromUserId 发送者ID
+     * @return 接收者ID列表
+     */
+    List<Integer> selectToUserIdsByFromUserId(@Param("fromUserId") Integer fromUserId);
 }
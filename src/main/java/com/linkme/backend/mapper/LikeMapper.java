@@ -1,6 +1,7 @@
 package com.linkme.backend.mapper;
 
 import com.linkme.backend.entity.Like;
+import com.linkme.backend.entity.UserInteraction;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -14,7 +15,7 @@ import java.util.List;
  * - 支持点赞和取消点赞功能
  * 
  * @author Ahz, riki
- * @version 1.0
+ * @version 1.1
  */
 @Mapper
 public interface LikeMapper {
@@ -80,4 +81,13 @@ public interface LikeMapper {
      * @return 点赞数量
      */
     int countByUserId(@Param("userId") Integer userId);
+    
+    /**
+     * 按主键游标分批读取"点赞者 -> 帖子作者"（协同过滤离线任务）
+     * 
+     * @param lastLikeId 上一批最后一条的点赞ID（首批传 0）
+     * @param limit 每批数量
+     * @return 互动记录（cursorId 为点赞ID）
+     */
+    List<UserInteraction> selectAuthorInteractionsAfter(@Param("lastLikeId") Integer lastLikeId, @Param("limit") Integer limit);
 }
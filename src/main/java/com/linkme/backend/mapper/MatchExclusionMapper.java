@@ -0,0 +1,33 @@
+package com.linkme.backend.mapper;
+
+import com.linkme.backend.entity.MatchExclusion;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 匹配排除集合数据访问层
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Mapper
+public interface MatchExclusionMapper {
+
+    /**
+     * 查询用户的排除集合
+     *
+     * @param userId 用户ID
+     * @return 排除集合（不存在时返回 null）
+     */
+    MatchExclusion selectByUserId(@Param("userId") Integer userId);
+
+    /**
+     * 批量写入排除集合（已存在时覆盖）
+     *
+     * @param exclusions 排除集合列表
+     * @return 影响行数
+     */
+    int upsertBatch(@Param("exclusions") List<MatchExclusion> exclusions);
+}
@@ -4,6 +4,7 @@ import com.linkme.backend.entity.Match;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -14,7 +15,7 @@ import java.util.List;
  * - 支持匹配关系管理和状态更新
  * 
  * @author Ahz, riki
- * @version 1.0
+ * @version 1.2
  */
 @Mapper
 public interface MatchMapper {
@@ -37,6 +38,18 @@ public interface MatchMapper {
      */
     List<Match> selectByUserId(@Param("userId") Integer userId, @Param("offset") Integer offset, @Param("limit") Integer limit);
     
+    /**
+     * 匹配收件箱的一页（按匹配时间倒序，键集分页）
+     * 
+     * @param userId 用户ID
+     * @param beforeCreatedAt 上一页最后一条的匹配时间（第一页为 null）
+     * @param beforeMatchId 上一页最后一条的匹配ID（匹配时间相同时的次序）
+     * @param limit 限制数量
+     * @return 匹配列表
+     */
+    List<Match> selectInboxPage(@Param("userId") Integer userId, @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                @Param("beforeMatchId") Integer beforeMatchId, @Param("limit") Integer limit);
+    
     /**
      * 根据两个用户ID查询匹配关系
      * 
@@ -46,6 +59,14 @@ public interface MatchMapper {
      */
     Match selectByUserPair(@Param("user1Id") Integer user1Id, @Param("user2Id") Integer user2Id);
     
+    /**
+     * 查询与用户匹配过的全部用户ID（重建匹配排除集合）
+     * 
+     * @param userId 用户ID
+     * @return 对方用户ID列表
+     */
+    List<Integer> selectPartnerIdsByUserId(@Param("userId") Integer userId);
+    
     /**
      * 插入新匹配关系
      * 
@@ -54,6 +75,14 @@ public interface MatchMapper {
      */
     int insert(Match match);
     
+    /**
+     * 插入新匹配关系，同一对用户已存在匹配时忽略（依赖 uk_user_pair）
+     * 
+     * @param match 匹配关系
+     * @return 影响行数（1-新建，0-已存在）
+     */
+    int insertIgnore(Match match);
+    
     /**
      * 更新匹配状态
      * 
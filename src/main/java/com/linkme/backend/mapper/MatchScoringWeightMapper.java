@@ -0,0 +1,23 @@
+package com.linkme.backend.mapper;
+
+import com.linkme.backend.entity.MatchScoringWeight;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.util.List;
+
+/**
+ * 匹配打分权重数据访问层
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Mapper
+public interface MatchScoringWeightMapper {
+
+    /**
+     * 查询全部权重覆盖项
+     *
+     * @return 权重列表
+     */
+    List<MatchScoringWeight> selectAll();
+}
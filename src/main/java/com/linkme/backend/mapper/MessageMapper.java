@@ -13,8 +13,8 @@ import java.util.List;
  * - 提供消息数据的增删改查操作
  * - 支持消息发送、查询、删除等功能
  * 
- * @author Ahz
- * @version 1.2.2
+ * @author Ahz, riki
+ * @version 1.4
  */
 @Mapper
 public interface MessageMapper {
@@ -37,6 +37,21 @@ public interface MessageMapper {
      */
     List<Message> selectByConversationId(@Param("conversationId") Integer conversationId, @Param("offset") Integer offset, @Param("limit") Integer limit);
     
+    /**
+     * 按消息ID游标查询一页消息（不含对当前用户隐藏的消息）
+     * 
+     * @param conversationId 会话ID
+     * @param userId 当前用户ID
+     * @param beforeId 只返回ID小于该值的消息（向上翻历史；与 afterId 都为 null 时返回最新一页）
+     * @param afterId 只返回ID大于该值的消息（向下翻 / 同步新消息）
+     * @param offset 跳过的条数（按页码查询时为 (page - 1) × limit，游标查询为 0）
+     * @param limit 限制数量
+     * @return 消息列表（按消息ID正序）
+     */
+    List<Message> selectPageByCursor(@Param("conversationId") Integer conversationId, @Param("userId") Integer userId,
+                                     @Param("beforeId") Integer beforeId, @Param("afterId") Integer afterId,
+                                     @Param("offset") Integer offset, @Param("limit") Integer limit);
+    
     /**
      * 根据发送者ID查询消息列表
      * 
@@ -0,0 +1,23 @@
+package com.linkme.backend.mapper;
+
+import com.linkme.backend.entity.PersonalityTraitOption;
+import org.apache.ibatis.annotations.Mapper;
+
+import java.util.List;
+
+/**
+ * 性格特质字典数据访问层
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Mapper
+public interface PersonalityTraitMapper {
+
+    /**
+     * 查询全部性格特质选项及其分类
+     *
+     * @return 选项列表
+     */
+    List<PersonalityTraitOption> selectAllOptions();
+}
@@ -0,0 +1,25 @@
+package com.linkme.backend.mapper;
+
+import com.linkme.backend.entity.PrivacySetting;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 隐私设置数据访问层
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Mapper
+public interface PrivacySettingMapper {
+
+    /**
+     * 批量查询用户的匹配开关（仅 user_id / allow_match）
+     *
+     * @param userIds 用户ID列表
+     * @return 隐私设置列表（无记录的用户不返回，视为允许匹配）
+     */
+    List<PrivacySetting> selectMatchSettingsByUserIds(@Param("userIds") List<Integer> userIds);
+}
@@ -1,6 +1,7 @@
 package com.linkme.backend.mapper;
 
 import com.linkme.backend.entity.Hobby;
+import com.linkme.backend.entity.UserHobbySelection;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
@@ -21,4 +22,12 @@ public interface UserHobbyMapper {
      * @return 爱好列表
      */
     List<Hobby> selectHobbiesByUserId(@Param("userId") Integer userId);
+
+    /**
+     * 批量查询用户已选择的爱好（包含 category_id）
+     *
+     * @param userIds 用户ID列表
+     * @return 选择列表
+     */
+    List<UserHobbySelection> selectSelectionsByUserIds(@Param("userIds") List<Integer> userIds);
 }
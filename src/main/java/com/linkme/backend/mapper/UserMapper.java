@@ -4,6 +4,7 @@ import com.linkme.backend.entity.User;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,7 +15,7 @@ import java.util.List;
  * - 支持用户注册、登录、信息更新等功能
  * 
  * @author Ahz，riki
- * @version 1.2
+ * @version 1.5
  */
 @Mapper
 public interface UserMapper {
@@ -121,6 +122,47 @@ public interface UserMapper {
                                      @Param("offset") Integer offset,
                                      @Param("limit") Integer limit);
 
+    /**
+     * 按主键游标分批查询用户的匹配画像字段（不含头像/简介等大字段），用于预热匹配特征库
+     *
+     * @param lastUserId 上一批最后一个用户ID（首批传 0）
+     * @param limit 每批数量
+     * @return 用户信息列表（仅 user_id / gender / birthday / region）
+     */
+    List<User> selectMatchProfilesAfter(@Param("lastUserId") Integer lastUserId, @Param("limit") Integer limit);
+
+    /**
+     * 批量查询用户的摘要资料（列表展示用，不含简介、联系方式等字段）
+     *
+     * @param userIds 用户ID列表
+     * @return 用户信息列表（仅 user_id / nickname / avatar_url / gender / birthday / region）
+     */
+    List<User> selectSummariesByIds(@Param("userIds") List<Integer> userIds);
+
+    /**
+     * 批量查询用户的昵称和头像版本（消息列表补全发送者信息，不读取 Base64 头像）
+     *
+     * @param userIds 用户ID列表（调用方去重）
+     * @return 用户信息列表（仅 user_id / nickname / avatar_version）
+     */
+    List<User> selectNicknameAvatarByIds(@Param("userIds") Collection<Integer> userIds);
+
+    /**
+     * 查询用户头像
+     *
+     * @param userId 用户ID
+     * @return 用户信息（仅 user_id / avatar_url / avatar_version），用户不存在时为 null
+     */
+    User selectAvatarById(@Param("userId") Integer userId);
+
+    /**
+     * 批量查询用户的匹配画像字段（不含头像/简介等大字段）
+     *
+     * @param userIds 用户ID列表
+     * @return 用户信息列表（仅 user_id / gender / birthday / region）
+     */
+    List<User> selectMatchProfilesByIds(@Param("userIds") List<Integer> userIds);
+
     /**
      * 更新用户问卷完成状态
      *
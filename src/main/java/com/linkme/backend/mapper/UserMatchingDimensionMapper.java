@@ -26,6 +26,16 @@ public interface UserMatchingDimensionMapper {
      */
     List<DimensionPrioritySelection> selectPriorityDimensionsByUserId(@Param("userId") Integer userId);
 
+    /**
+     * 批量查询用户必须满足的维度（userId + code，priorityOrder 为空）
+     */
+    List<DimensionPrioritySelection> selectMustDimensionsByUserIds(@Param("userIds") List<Integer> userIds);
+
+    /**
+     * 批量查询用户优先考虑的维度（userId + code + priorityOrder）
+     */
+    List<DimensionPrioritySelection> selectPriorityDimensionsByUserIds(@Param("userIds") List<Integer> userIds);
+
     /**
      * 查询用户必须满足的维度ID列表
      */
@@ -0,0 +1,173 @@
+package com.linkme.backend.match;
+
+import com.linkme.backend.entity.DimensionPrioritySelection;
+import com.linkme.backend.entity.PrivacySetting;
+import com.linkme.backend.entity.User;
+import com.linkme.backend.entity.UserHobbySelection;
+import com.linkme.backend.entity.UserMatchingPreference;
+import com.linkme.backend.entity.UserPersonalitySelection;
+import com.linkme.backend.entity.UserRelationshipQualitySelection;
+import com.linkme.backend.mapper.PrivacySettingMapper;
+import com.linkme.backend.mapper.UserHobbyMapper;
+import com.linkme.backend.mapper.UserMatchingDimensionMapper;
+import com.linkme.backend.mapper.UserMatchingPreferenceMapper;
+import com.linkme.backend.mapper.UserPersonalityMapper;
+import com.linkme.backend.mapper.UserRelationshipQualityMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 候选用户特征批量加载器
+ *
+ * 对一批用户固定发起 7 次 IN 查询（偏好 / 爱好 / 性格特质 / 关系品质 / must 维度 / priority 维度 / 隐私设置），
+ * 查询次数与用户数量无关；结果按用户组装为不可变的 CandidateFeatures。
+ *
+ * @author riki
+ * @version 1.2
+ */
+@Component
+public class CandidateFeatureLoader {
+
+    @Autowired
+    private UserMatchingPreferenceMapper userMatchingPreferenceMapper;
+
+    @Autowired
+    private UserHobbyMapper userHobbyMapper;
+
+    @Autowired
+    private UserPersonalityMapper userPersonalityMapper;
+
+    @Autowired
+    private UserRelationshipQualityMapper userRelationshipQualityMapper;
+
+    @Autowired
+    private UserMatchingDimensionMapper userMatchingDimensionMapper;
+
+    @Autowired
+    private PrivacySettingMapper privacySettingMapper;
+
+    /**
+     * 批量加载用户特征
+     *
+     * @param users 用户列表（可同时包含当前用户与候选用户）
+     * @return 用户ID -> 特征
+     */
+    public Map<Integer, CandidateFeatures> load(Collection<User> users) {
+        if (users == null || users.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Integer, User> userById = new LinkedHashMap<>();
+        for (User u : users) {
+            if (u != null && u.getUserId() != null) {
+                userById.putIfAbsent(u.getUserId(), u);
+            }
+        }
+        if (userById.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Integer> userIds = new ArrayList<>(userById.keySet());
+
+        Map<Integer, UserMatchingPreference> preferenceByUserId = new HashMap<>();
+        List<UserMatchingPreference> preferences = userMatchingPreferenceMapper.selectByUserIds(userIds);
+        if (preferences != null) {
+            for (UserMatchingPreference p : preferences) {
+                if (p != null && p.getUserId() != null) {
+                    preferenceByUserId.put(p.getUserId(), p);
+                }
+            }
+        }
+
+        Map<Integer, Map<Integer, Integer>> hobbiesByUserId = new HashMap<>();
+        List<UserHobbySelection> hobbySelections = userHobbyMapper.selectSelectionsByUserIds(userIds);
+        if (hobbySelections != null) {
+            for (UserHobbySelection h : hobbySelections) {
+                if (h == null || h.getUserId() == null || h.getHobbyId() == null) {
+                    continue;
+                }
+                hobbiesByUserId
+                        .computeIfAbsent(h.getUserId(), k -> new HashMap<>())
+                        .put(h.getHobbyId(), h.getCategoryId());
+            }
+        }
+
+        Map<Integer, List<UserPersonalitySelection>> traitsByUserId = new HashMap<>();
+        List<UserPersonalitySelection> personalitySelections = userPersonalityMapper.selectSelectionsByUserIds(userIds);
+        if (personalitySelections != null) {
+            for (UserPersonalitySelection s : personalitySelections) {
+                if (s == null || s.getUserId() == null || s.getOptionId() == null) {
+                    continue;
+                }
+                traitsByUserId
+                        .computeIfAbsent(s.getUserId(), k -> new ArrayList<>())
+                        .add(s);
+            }
+        }
+
+        Map<Integer, Set<Integer>> qualitiesByUserId = new HashMap<>();
+        List<UserRelationshipQualitySelection> qualitySelections = userRelationshipQualityMapper.selectByUserIds(userIds);
+        if (qualitySelections != null) {
+            for (UserRelationshipQualitySelection q : qualitySelections) {
+                if (q == null || q.getUserId() == null || q.getQualityId() == null) {
+                    continue;
+                }
+                qualitiesByUserId
+                        .computeIfAbsent(q.getUserId(), k -> new HashSet<>())
+                        .add(q.getQualityId());
+            }
+        }
+
+        Map<Integer, Set<String>> mustCodesByUserId = new HashMap<>();
+        List<DimensionPrioritySelection> mustDimensions = userMatchingDimensionMapper.selectMustDimensionsByUserIds(userIds);
+        if (mustDimensions != null) {
+            for (DimensionPrioritySelection d : mustDimensions) {
+                if (d == null || d.getUserId() == null || d.getCode() == null) {
+                    continue;
+                }
+                mustCodesByUserId
+                        .computeIfAbsent(d.getUserId(), k -> new HashSet<>())
+                        .add(d.getCode());
+            }
+        }
+
+        Map<Integer, List<DimensionPrioritySelection>> priorityByUserId = new HashMap<>();
+        List<DimensionPrioritySelection> priorityDimensions = userMatchingDimensionMapper.selectPriorityDimensionsByUserIds(userIds);
+        if (priorityDimensions != null) {
+            for (DimensionPrioritySelection d : priorityDimensions) {
+                if (d == null || d.getUserId() == null || d.getCode() == null) {
+                    continue;
+                }
+                priorityByUserId
+                        .computeIfAbsent(d.getUserId(), k -> new ArrayList<>())
+                        .add(d);
+            }
+        }
+
+        Set<Integer> matchDisabledUserIds = new HashSet<>();
+        List<PrivacySetting> privacySettings = privacySettingMapper.selectMatchSettingsByUserIds(userIds);
+        if (privacySettings != null) {
+            for (PrivacySetting ps : privacySettings) {
+                if (ps != null && ps.getUserId() != null && Boolean.FALSE.equals(ps.getAllowMatch())) {
+                    matchDisabledUserIds.add(ps.getUserId());
+                }
+            }
+        }
+
+        Map<Integer, CandidateFeatures> result = new HashMap<>(userById.size() * 2);
+        for (Map.Entry<Integer, User> e : userById.entrySet()) {
+            Integer userId = e.getKey();
+            result.put(userId, new CandidateFeatures(
+                    e.getValue(),
+                    !matchDisabledUserIds.contains(userId),
+                    preferenceByUserId.get(userId),
+                    hobbiesByUserId.get(userId),
+                    traitsByUserId.get(userId),
+                    qualitiesByUserId.get(userId),
+                    mustCodesByUserId.get(userId),
+                    priorityByUserId.get(userId)));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,47 @@
+package com.linkme.backend.match;
+
+import com.linkme.backend.entity.DimensionPrioritySelection;
+import com.linkme.backend.entity.User;
+import com.linkme.backend.entity.UserMatchingPreference;
+import com.linkme.backend.entity.UserPersonalitySelection;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 候选用户匹配特征（不可变）
+ *
+ * 由 CandidateFeatureLoader 批量组装，是数据库形态的原始特征，
+ * 供 MatchFeatureStore 编码为紧凑的 UserFeatureVector：
+ * - hobbyCategoryById：爱好ID -> 爱好分类ID
+ * - traits：性格特质选择（含 trait_type / 分类名 / 选项名）
+ * - qualityIds：关系品质ID集合
+ * - mustDimensionCodes / priorityDimensions：该用户自己的 must / priority 维度
+ * - allowMatch：隐私设置中是否允许被推荐（无记录视为允许）
+ *
+ * @author riki
+ * @version 1.2
+ */
+public record CandidateFeatures(User user,
+                                boolean allowMatch,
+                                UserMatchingPreference preference,
+                                Map<Integer, Integer> hobbyCategoryById,
+                                List<UserPersonalitySelection> traits,
+                                Set<Integer> qualityIds,
+                                Set<String> mustDimensionCodes,
+                                List<DimensionPrioritySelection> priorityDimensions) {
+
+    public CandidateFeatures {
+        hobbyCategoryById = hobbyCategoryById == null ? Collections.emptyMap() : Collections.unmodifiableMap(hobbyCategoryById);
+        traits = traits == null ? Collections.emptyList() : Collections.unmodifiableList(traits);
+        qualityIds = qualityIds == null ? Collections.emptySet() : Collections.unmodifiableSet(qualityIds);
+        mustDimensionCodes = mustDimensionCodes == null ? Collections.emptySet() : Collections.unmodifiableSet(mustDimensionCodes);
+        priorityDimensions = priorityDimensions == null ? Collections.emptyList() : Collections.unmodifiableList(priorityDimensions);
+    }
+
+    public Integer userId() {
+        return user == null ? null : user.getUserId();
+    }
+}
@@ -0,0 +1,332 @@
+package com.linkme.backend.match;
+
+import java.util.Arrays;
+
+/**
+ * 协同过滤近邻表
+ *
+ * 由 CollaborativeFilteringJob 离线构建：输入为"谁对谁有过互动"的带权记录（红心 / 关注 / 点赞帖子作者），
+ * 全程使用原始 int / float 数组，不装箱：
+ * 1. 按发起者计数排序为 CSR（行 = 发起者，列 = 被互动的用户），同一对的多条记录合并权重，
+ *    每行只保留权重最高的 maxRowLength 项（限制活跃用户带来的平方级开销）
+ * 2. 转置为 CSC，对每个被互动的用户 T 累加与其共现的用户 C：sim(T, C) = Σ w(a,T)·w(a,C) / (|T|·|C|)（余弦），
+ *    每个 T 保留最相似的 itemNeighbors 个
+ * 3. 对每个发起者 V：affinity(V, C) = Σ_{T ∈ 行 V} w(V,T)·sim(T, C)，保留最高的 userNeighbors 个，
+ *    按该行最大值归一化为 1~100
+ *
+ * 计算量约为 Σ 行长² + 互动数 × itemNeighbors，累加器为按用户ID下标的稠密 float 数组，只清理触及的位置。
+ * 内存：构建期约 24 字节 × 最大用户ID + 40 字节 × 互动数 + 8 字节 × 被互动用户数 × itemNeighbors；
+ * 结果为按用户ID下标的偏移数组（4 字节 × 最大用户ID）+ 每个近邻 5 字节。
+ * 构建后只读，可被多个线程并发读取。
+ *
+ * @author riki
+ * @version 1.0
+ */
+public final class CollaborativeNeighborTable {
+
+    /** 空表（任务尚未完成时使用） */
+    public static final CollaborativeNeighborTable EMPTY =
+            new CollaborativeNeighborTable(new int[1], new int[0], new byte[0], 0);
+
+    private final int[] offsets;
+
+    private final int[] neighborIds;
+
+    private final byte[] affinities;
+
+    private final int interactions;
+
+    private CollaborativeNeighborTable(int[] offsets, int[] neighborIds, byte[] affinities, int interactions) {
+        this.offsets = offsets;
+        this.neighborIds = neighborIds;
+        this.affinities = affinities;
+        this.interactions = interactions;
+    }
+
+    /**
+     * viewer 对 candidate 的协同过滤亲和度
+     *
+     * @return 1~100；candidate 不在 viewer 的近邻中时返回 0
+     */
+    public int affinity(int viewerId, int candidateId) {
+        if (viewerId <= 0 || viewerId >= offsets.length - 1) {
+            return 0;
+        }
+        int from = offsets[viewerId];
+        int to = offsets[viewerId + 1];
+        if (from == to) {
+            return 0;
+        }
+        int i = Arrays.binarySearch(neighborIds, from, to, candidateId);
+        return i >= 0 ? affinities[i] : 0;
+    }
+
+    /**
+     * 有近邻的用户数
+     */
+    public int users() {
+        int users = 0;
+        for (int i = 0; i + 1 < offsets.length; i++) {
+            if (offsets[i + 1] > offsets[i]) {
+                users++;
+            }
+        }
+        return users;
+    }
+
+    /**
+     * 近邻总数
+     */
+    public int entries() {
+        return neighborIds.length;
+    }
+
+    /**
+     * 构建时合并后的互动数（去重后的 发起者-被互动者 对）
+     */
+    public int interactions() {
+        return interactions;
+    }
+
+    /**
+     * 从带权互动记录构建近邻表
+     *
+     * @param actors        发起者ID
+     * @param targets       被互动的用户ID
+     * @param weights       权重（大于 0）
+     * @param count         有效记录数（数组前 count 项）
+     * @param maxRowLength  每个发起者最多保留的互动数
+     * @param itemNeighbors 每个被互动用户保留的相似用户数
+     * @param userNeighbors 每个发起者保留的近邻数
+     * @return 近邻表
+     */
+    public static CollaborativeNeighborTable build(int[] actors, int[] targets, float[] weights, int count,
+                                                   int maxRowLength, int itemNeighbors, int userNeighbors) {
+        int maxId = 0;
+        for (int i = 0; i < count; i++) {
+            if (valid(actors[i], targets[i], weights[i])) {
+                maxId = Math.max(maxId, Math.max(actors[i], targets[i]));
+            }
+        }
+        if (maxId == 0) {
+            return EMPTY;
+        }
+        int n = maxId + 1;
+
+        // 1. CSR：行 = 发起者
+        int[] rawPtr = new int[n + 1];
+        for (int i = 0; i < count; i++) {
+            if (valid(actors[i], targets[i], weights[i])) {
+                rawPtr[actors[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            rawPtr[i + 1] += rawPtr[i];
+        }
+        long[] packed = new long[rawPtr[n]];
+        int[] fill = Arrays.copyOf(rawPtr, n);
+        for (int i = 0; i < count; i++) {
+            if (valid(actors[i], targets[i], weights[i])) {
+                packed[fill[actors[i]]++] = pack(targets[i], weights[i]);
+            }
+        }
+        fill = null;
+
+        int[] rowPtr = new int[n + 1];
+        int[] cols = new int[packed.length];
+        float[] vals = new float[packed.length];
+        int nnz = 0;
+        for (int a = 0; a < n; a++) {
+            int from = rawPtr[a];
+            int to = rawPtr[a + 1];
+            if (from < to) {
+                Arrays.sort(packed, from, to);
+                // 合并同一对的多条记录
+                int distinct = from;
+                for (int i = from; i < to; i++) {
+                    if (distinct > from && target(packed[distinct - 1]) == target(packed[i])) {
+                        packed[distinct - 1] = pack(target(packed[i]), weight(packed[distinct - 1]) + weight(packed[i]));
+                    } else {
+                        packed[distinct++] = packed[i];
+                    }
+                }
+                if (distinct - from > maxRowLength) {
+                    keepHeaviest(packed, from, distinct, maxRowLength);
+                    distinct = from + maxRowLength;
+                }
+                for (int i = from; i < distinct; i++) {
+                    cols[nnz] = target(packed[i]);
+                    vals[nnz++] = weight(packed[i]);
+                }
+            }
+            rowPtr[a + 1] = nnz;
+        }
+        packed = null;
+        rawPtr = null;
+
+        // 2. CSC 与列范数
+        int[] colPtr = new int[n + 1];
+        for (int i = 0; i < nnz; i++) {
+            colPtr[cols[i] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            colPtr[i + 1] += colPtr[i];
+        }
+        int[] colRows = new int[nnz];
+        float[] colVals = new float[nnz];
+        float[] colNorm = new float[n];
+        fill = Arrays.copyOf(colPtr, n);
+        for (int a = 0; a < n; a++) {
+            for (int q = rowPtr[a]; q < rowPtr[a + 1]; q++) {
+                int t = cols[q];
+                colRows[fill[t]] = a;
+                colVals[fill[t]++] = vals[q];
+                colNorm[t] += vals[q] * vals[q];
+            }
+        }
+        fill = null;
+        for (int t = 0; t < n; t++) {
+            colNorm[t] = (float) Math.sqrt(colNorm[t]);
+        }
+
+        // 3. 被互动用户之间的余弦相似度，每个保留 itemNeighbors 个
+        float[] acc = new float[n];
+        int[] touched = new int[n];
+        TopKHeap heap = new TopKHeap(itemNeighbors);
+        int[] simPtr = new int[n + 1];
+        int[] simIds = new int[1024];
+        float[] simVals = new float[simIds.length];
+        int sims = 0;
+        for (int t = 0; t < n; t++) {
+            int touchedCount = 0;
+            for (int p = colPtr[t]; p < colPtr[t + 1]; p++) {
+                int a = colRows[p];
+                float wa = colVals[p];
+                for (int q = rowPtr[a]; q < rowPtr[a + 1]; q++) {
+                    int c = cols[q];
+                    if (c != t) {
+                        if (acc[c] == 0f) {
+                            touched[touchedCount++] = c;
+                        }
+                        acc[c] += wa * vals[q];
+                    }
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                int c = touched[i];
+                float sim = acc[c] / (colNorm[t] * colNorm[c]);
+                acc[c] = 0f;
+                offer(heap, c, sim);
+            }
+            long[] top = heap.drainDescending();
+            if (sims + top.length > simIds.length) {
+                int capacity = Math.max(simIds.length * 2, sims + top.length);
+                simIds = Arrays.copyOf(simIds, capacity);
+                simVals = Arrays.copyOf(simVals, capacity);
+            }
+            for (long key : top) {
+                simIds[sims] = TopKHeap.userIdOf(key);
+                simVals[sims++] = Float.intBitsToFloat(TopKHeap.scoreOf(key));
+            }
+            simPtr[t + 1] = sims;
+        }
+        colRows = null;
+        colVals = null;
+
+        // 4. 每个发起者的近邻：沿自己的互动扩展到相似用户
+        heap = new TopKHeap(userNeighbors);
+        int[] offsets = new int[n + 1];
+        int[] neighborIds = new int[1024];
+        byte[] affinities = new byte[neighborIds.length];
+        long[] row = new long[Math.max(userNeighbors, 1)];
+        int entries = 0;
+        for (int v = 0; v < n; v++) {
+            int touchedCount = 0;
+            for (int q = rowPtr[v]; q < rowPtr[v + 1]; q++) {
+                int t = cols[q];
+                float w = vals[q];
+                for (int s = simPtr[t]; s < simPtr[t + 1]; s++) {
+                    int c = simIds[s];
+                    if (c != v) {
+                        if (acc[c] == 0f) {
+                            touched[touchedCount++] = c;
+                        }
+                        acc[c] += w * simVals[s];
+                    }
+                }
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                int c = touched[i];
+                offer(heap, c, acc[c]);
+                acc[c] = 0f;
+            }
+            long[] top = heap.drainDescending();
+            if (top.length > 0) {
+                float max = Float.intBitsToFloat(TopKHeap.scoreOf(top[0]));
+                for (int i = 0; i < top.length; i++) {
+                    float value = Float.intBitsToFloat(TopKHeap.scoreOf(top[i]));
+                    int affinity = Math.max(1, Math.round(100f * value / max));
+                    row[i] = ((long) TopKHeap.userIdOf(top[i]) << 8) | affinity;
+                }
+                // 按用户ID升序存放，查询时二分
+                Arrays.sort(row, 0, top.length);
+                if (entries + top.length > neighborIds.length) {
+                    int capacity = Math.max(neighborIds.length * 2, entries + top.length);
+                    neighborIds = Arrays.copyOf(neighborIds, capacity);
+                    affinities = Arrays.copyOf(affinities, capacity);
+                }
+                for (int i = 0; i < top.length; i++) {
+                    neighborIds[entries] = (int) (row[i] >>> 8);
+                    affinities[entries++] = (byte) (row[i] & 0xff);
+                }
+            }
+            offsets[v + 1] = entries;
+        }
+        return new CollaborativeNeighborTable(offsets, Arrays.copyOf(neighborIds, entries),
+                Arrays.copyOf(affinities, entries), nnz);
+    }
+
+    private static boolean valid(int actor, int target, float weight) {
+        return actor > 0 && target > 0 && actor != target && weight > 0f;
+    }
+
+    /**
+     * 高 32 位为用户ID、低 32 位为权重（正 float 的位模式，同一用户内不参与排序）
+     */
+    private static long pack(int target, float weight) {
+        return ((long) target << 32) | (Float.floatToRawIntBits(weight) & 0xffffffffL);
+    }
+
+    private static int target(long packed) {
+        return (int) (packed >>> 32);
+    }
+
+    private static float weight(long packed) {
+        return Float.intBitsToFloat((int) packed);
+    }
+
+    /**
+     * 正 float 的位模式与数值同序，可直接作为 TopKHeap 的分数位
+     */
+    private static void offer(TopKHeap heap, int userId, float value) {
+        if (value > 0f) {
+            heap.offerKey(TopKHeap.encode(userId, Float.floatToRawIntBits(value)));
+        }
+    }
+
+    /**
+     * 只保留 [from, to) 中权重最高的 keep 项，结果仍按用户ID升序放在 [from, from + keep)
+     */
+    private static void keepHeaviest(long[] packed, int from, int to, int keep) {
+        long[] byWeight = new long[to - from];
+        for (int i = from; i < to; i++) {
+            byWeight[i - from] = ((long) Float.floatToRawIntBits(weight(packed[i])) << 32) | target(packed[i]);
+        }
+        Arrays.sort(byWeight);
+        for (int i = 0; i < keep; i++) {
+            long k = byWeight[byWeight.length - 1 - i];
+            packed[from + i] = pack((int) k, Float.intBitsToFloat((int) (k >>> 32)));
+        }
+        Arrays.sort(packed, from, from + keep);
+    }
+}
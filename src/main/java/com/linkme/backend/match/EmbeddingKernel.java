@@ -0,0 +1,63 @@
+package com.linkme.backend.match;
+
+/**
+ * 向量点积内核
+ *
+ * 两个实现：ScalarEmbeddingKernel（普通循环）与 VectorEmbeddingKernel（jdk.incubator.vector，SIMD）。
+ * VectorEmbeddingKernel 位于 src/simd/java，只在 simd profile 下编译（默认构建不依赖孵化模块）；
+ * 运行时还需要在启动参数中加上 --add-modules jdk.incubator.vector。类不存在或模块未加载时 select 退回标量实现。
+ *
+ * @author riki
+ * @version 1.1
+ */
+public interface EmbeddingKernel {
+
+    /**
+     * a[aOffset, aOffset + length) 与 b[bOffset, bOffset + length) 的点积
+     */
+    float dot(float[] a, int aOffset, float[] b, int bOffset, int length);
+
+    /**
+     * query 与矩阵中连续 rows 行的点积
+     *
+     * @param query       查询向量所在数组
+     * @param queryOffset 查询向量起始下标
+     * @param matrix      按行连续存放的矩阵
+     * @param fromRow     起始行
+     * @param rows        行数
+     * @param dimensions  每行长度
+     * @param out         结果，out[i] 为第 fromRow + i 行的点积
+     */
+    default void dotRows(float[] query, int queryOffset, float[] matrix, int fromRow, int rows, int dimensions,
+                         float[] out) {
+        int offset = fromRow * dimensions;
+        for (int i = 0; i < rows; i++, offset += dimensions) {
+            out[i] = dot(query, queryOffset, matrix, offset, dimensions);
+        }
+    }
+
+    /**
+     * 实现名称（日志与基准输出使用）
+     */
+    String name();
+
+    /**
+     * 选择内核
+     *
+     * @param simd 是否优先使用 SIMD 实现
+     * @return SIMD 可用且开启时返回 VectorEmbeddingKernel，否则返回标量实现
+     */
+    static EmbeddingKernel select(boolean simd) {
+        if (simd && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (EmbeddingKernel) Class.forName("com.linkme.backend.match.VectorEmbeddingKernel")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ClassNotFoundException e) {
+                // 未以 simd profile 构建
+            } catch (ReflectiveOperationException | LinkageError e) {
+                System.err.println("SIMD 点积内核不可用，使用标量实现: " + e);
+            }
+        }
+        return new ScalarEmbeddingKernel();
+    }
+}
@@ -0,0 +1,179 @@
+package com.linkme.backend.match;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 经纬度网格索引
+ *
+ * 把有经纬度的用户按 cellDegrees × cellDegrees 的网格分桶，半径查询只遍历覆盖圆的外接矩形内的格子，
+ * 再逐个用距离精确判断：
+ * - 下标与 MatchEligibilityIndex 相同（特征快照数组下标），查询结果直接是 BitSet
+ * - 每个格子内的下标升序存放，坐标另存为 float 数组，查询时顺序访问
+ * - 距离用等距圆柱投影近似（百公里内误差远小于 1%），跨 180° 经线时取短边
+ * - 查询时经度方向按外接矩形中离赤道最远处的纬度缩放，结果是 distanceKm ≤ 半径的超集
+ *   （边缘最多多出不到 1%），用于候选生成，精确判断由调用方用 distanceKm 完成
+ *
+ * 查询代价约为"外接矩形内格子数 + 其中用户数"；默认 0.1°（约 11km）的格子、50km 半径约覆盖 100 个格子。
+ * 构建后只读，可被多个扫描线程并发使用。
+ *
+ * @author riki
+ * @version 1.0
+ */
+public final class GeoGridIndex {
+
+    /** 地球平均半径（km） */
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180.0;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final double cellDegrees;
+
+    private final int cols;
+
+    private final Map<Long, int[]> cells;
+
+    private final float[] latitudes;
+
+    private final float[] longitudes;
+
+    private final int located;
+
+    private GeoGridIndex(double cellDegrees, Map<Long, int[]> cells, float[] latitudes, float[] longitudes, int located) {
+        this.cellDegrees = cellDegrees;
+        this.cols = (int) Math.ceil(360.0 / cellDegrees);
+        this.cells = cells;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.located = located;
+    }
+
+    /**
+     * 从特征快照构建索引（没有经纬度的用户不进入索引）
+     *
+     * @param vectors     特征快照
+     * @param cellDegrees 网格边长（度）
+     * @return 索引
+     */
+    public static GeoGridIndex build(UserFeatureVector[] vectors, double cellDegrees) {
+        double cell = cellDegrees > 0 ? cellDegrees : 0.1;
+        int n = vectors.length;
+        float[] latitudes = new float[n];
+        float[] longitudes = new float[n];
+        long[] keyed = new long[n];
+        int located = 0;
+        GeoGridIndex shape = new GeoGridIndex(cell, Map.of(), latitudes, longitudes, 0);
+        for (int i = 0; i < n; i++) {
+            UserFeatureVector v = vectors[i];
+            latitudes[i] = v.latitude();
+            longitudes[i] = v.longitude();
+            if (v.hasLocation()) {
+                // 高位为格子编号、低 32 位为下标，排序后同一格子的下标连续且升序
+                keyed[located++] = (shape.cellKey(shape.row(v.latitude()), shape.col(v.longitude())) << 32) | i;
+            }
+        }
+        Arrays.sort(keyed, 0, located);
+
+        Map<Long, int[]> cells = new HashMap<>();
+        int from = 0;
+        while (from < located) {
+            long key = keyed[from] >>> 32;
+            int to = from + 1;
+            while (to < located && keyed[to] >>> 32 == key) {
+                to++;
+            }
+            int[] members = new int[to - from];
+            for (int j = from; j < to; j++) {
+                members[j - from] = (int) keyed[j];
+            }
+            cells.put(key, members);
+            from = to;
+        }
+        return new GeoGridIndex(cell, cells, latitudes, longitudes, located);
+    }
+
+    /**
+     * 有经纬度的用户数
+     */
+    public int located() {
+        return located;
+    }
+
+    /**
+     * 半径查询：把距离 (latitude, longitude) 不超过 radiusKm 的用户下标写入 out（超集，见类注释）
+     *
+     * @param latitude  圆心纬度
+     * @param longitude 圆心经度
+     * @param radiusKm  半径（km）
+     * @param out       结果位图（追加写入）
+     * @return 命中的用户数
+     */
+    public int within(double latitude, double longitude, double radiusKm, BitSet out) {
+        if (located == 0 || radiusKm < 0) {
+            return 0;
+        }
+        double latSpan = radiusKm / KM_PER_DEGREE;
+        double cosLat = Math.cos(Math.toRadians(Math.min(90.0, Math.abs(latitude) + latSpan)));
+        double lngSpan = cosLat <= 1e-6 ? 360.0 : latSpan / cosLat;
+        int rowFrom = row(Math.max(-90.0, latitude - latSpan));
+        int rowTo = row(Math.min(90.0, latitude + latSpan));
+        int colCount = lngSpan * 2 >= 360.0 ? cols : (int) Math.ceil(lngSpan * 2 / cellDegrees) + 1;
+        int colFrom = col(longitude - (colCount == cols ? 180.0 : lngSpan));
+        double radiusRad = radiusKm / EARTH_RADIUS_KM;
+        double maxSquared = radiusRad * radiusRad;
+
+        int hits = 0;
+        for (int r = rowFrom; r <= rowTo; r++) {
+            for (int c = 0; c < colCount; c++) {
+                int[] members = cells.getOrDefault(cellKey(r, (colFrom + c) % cols), EMPTY);
+                for (int i : members) {
+                    if (squaredAngle(latitude, longitude, cosLat, latitudes[i], longitudes[i]) <= maxSquared) {
+                        out.set(i);
+                        hits++;
+                    }
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * 两点间距离（km），等距圆柱投影近似
+     */
+    public static double distanceKm(double lat1, double lng1, double lat2, double lng2) {
+        double cosLat = Math.cos(Math.toRadians((lat1 + lat2) * 0.5));
+        return Math.sqrt(squaredAngle(lat1, lng1, cosLat, lat2, lng2)) * EARTH_RADIUS_KM;
+    }
+
+    /**
+     * 以弧度计的距离平方，经度差按 cosLat 缩放
+     */
+    private static double squaredAngle(double lat1, double lng1, double cosLat, double lat2, double lng2) {
+        double dLng = lng2 - lng1;
+        if (dLng > 180.0) {
+            dLng -= 360.0;
+        } else if (dLng < -180.0) {
+            dLng += 360.0;
+        }
+        double x = Math.toRadians(dLng) * cosLat;
+        double y = Math.toRadians(lat2 - lat1);
+        return x * x + y * y;
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90.0) / cellDegrees);
+    }
+
+    private int col(double longitude) {
+        int c = (int) Math.floor((longitude + 180.0) / cellDegrees) % cols;
+        return c < 0 ? c + cols : c;
+    }
+
+    private long cellKey(int row, int col) {
+        return (long) row * cols + col;
+    }
+}
@@ -0,0 +1,124 @@
+package com.linkme.backend.match;
+
+import com.linkme.backend.entity.Heart;
+import com.linkme.backend.mapper.HeartMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 常驻内存的红心索引
+ *
+ * 保存全部 (from, to) 红心关系（包括已接收但尚未落库的），互相红心检测只查内存：
+ * - 启动后按主键游标分批从 heart 表预热
+ * - 预热完成前内存未命中时回查数据库
+ * - 新红心在接收时立即加入索引，之后才进入批量写入队列
+ *
+ * 内存占用：每条关系约 70 字节（装箱 Long + 哈希节点），千万条约 700MB。
+ * 索引只在本实例内有效；多实例部署时互相红心检测依赖各实例各自的索引，
+ * 匹配记录的唯一性由 match_user 的唯一键保证。
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Component
+public class HeartIndex {
+
+    @Autowired
+    private HeartMapper heartMapper;
+
+    @Value("${linkme.match.heart.preload:true}")
+    private boolean preloadEnabled;
+
+    @Value("${linkme.match.heart.preload-batch-size:5000}")
+    private int preloadBatchSize;
+
+    private final Set<Long> hearts = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean preloaded;
+
+    /**
+     * 应用启动完成后在后台线程预热，期间未命中的查询回查数据库
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (!preloadEnabled) {
+            return;
+        }
+        Thread t = new Thread(this::preloadAll, "heart-index-preload");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void preloadAll() {
+        long start = System.currentTimeMillis();
+        int lastHeartId = 0;
+        int loaded = 0;
+        try {
+            while (true) {
+                List<Heart> batch = heartMapper.selectPairsAfter(lastHeartId, preloadBatchSize);
+                if (batch == null || batch.isEmpty()) {
+                    break;
+                }
+                for (Heart h : batch) {
+                    hearts.add(key(h.getFromUserId(), h.getToUserId()));
+                }
+                loaded += batch.size();
+                lastHeartId = batch.get(batch.size() - 1).getHeartId();
+                if (batch.size() < preloadBatchSize) {
+                    break;
+                }
+            }
+            preloaded = true;
+            System.out.println("红心索引预热完成: " + loaded + " 条, 耗时 " + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            System.err.println("红心索引预热失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    public boolean isPreloaded() {
+        return preloaded;
+    }
+
+    /**
+     * 记录一条红心
+     *
+     * @return 是否为新关系（已存在时返回 false）
+     */
+    public boolean add(int fromUserId, int toUserId) {
+        return hearts.add(key(fromUserId, toUserId));
+    }
+
+    /**
+     * 是否存在 from -> to 的红心（预热完成前未命中时回查数据库）
+     */
+    public boolean contains(int fromUserId, int toUserId) {
+        long key = key(fromUserId, toUserId);
+        if (hearts.contains(key)) {
+            return true;
+        }
+        if (preloaded) {
+            return false;
+        }
+        if (heartMapper.selectByFromAndTo(fromUserId, toUserId) != null) {
+            hearts.add(key);
+            return true;
+        }
+        return false;
+    }
+
+    public int size() {
+        return hearts.size();
+    }
+
+    private static long key(int fromUserId, int toUserId) {
+        return ((long) fromUserId << 32) | (toUserId & 0xffffffffL);
+    }
+}
@@ -0,0 +1,132 @@
+package com.linkme.backend.match;
+
+import com.linkme.backend.entity.Heart;
+import com.linkme.backend.mapper.HeartMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 红心批量写入队列
+ *
+ * 请求线程只入队，后台每 flush-interval-ms 把队列按 flush-batch 分批写入 heart 表
+ * （INSERT IGNORE，重复关系与已注销用户被忽略），连续滑动时一次写入可合并上百条红心。
+ * 写入失败时整批放回队列，下次重试；应用关闭时同步写完队列。
+ * 进程异常退出时最多丢失一个写入间隔内的红心。
+ * 写入在独立的单线程上定时执行，不与 @Scheduled 的批处理任务（列表重建、协同过滤、对账等）共用调度线程，
+ * 这些任务耗时再长也不会推迟红心落库。
+ *
+ * @author riki
+ * @version 1.1
+ */
+@Component
+public class HeartWriteBuffer {
+
+    @Autowired
+    private HeartMapper heartMapper;
+
+    @Value("${linkme.match.heart.flush-batch:500}")
+    private int flushBatch;
+
+    @Value("${linkme.match.heart.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    private ScheduledExecutorService flusher;
+
+    private final ConcurrentLinkedQueue<Heart> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "match-heart-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(flushIntervalMs, 1);
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 红心入队
+     */
+    public void enqueue(int fromUserId, int toUserId, LocalDateTime createdAt) {
+        Heart heart = new Heart();
+        heart.setFromUserId(fromUserId);
+        heart.setToUserId(toUserId);
+        heart.setCreatedAt(createdAt);
+        queue.add(heart);
+        pending.incrementAndGet();
+    }
+
+    /**
+     * 尚未写入数据库的红心数
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    /**
+     * 把队列中的红心分批写入数据库
+     *
+     * @return 本次写入的条数
+     */
+    public synchronized int flush() {
+        int written = 0;
+        while (true) {
+            List<Heart> batch = new ArrayList<>(Math.min(flushBatch, Math.max(pending.get(), 1)));
+            Heart h;
+            while (batch.size() < flushBatch && (h = queue.poll()) != null) {
+                batch.add(h);
+            }
+            if (batch.isEmpty()) {
+                return written;
+            }
+            try {
+                heartMapper.insertBatchIgnore(batch);
+            } catch (Exception e) {
+                queue.addAll(batch);
+                System.err.println("批量写入红心失败，稍后重试: " + batch.size() + " 条, " + e.getMessage());
+                return written;
+            }
+            pending.addAndGet(-batch.size());
+            written += batch.size();
+        }
+    }
+
+    /**
+     * 定时写入：异常不向外抛出，否则 ScheduledExecutorService 会取消后续执行
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("定时写入红心失败: " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+}
@@ -0,0 +1,247 @@
+package com.linkme.backend.match;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 全量候选扫描器
+ *
+ * 在 MatchFeatureStore 的快照上对全体用户并行打分，求当前用户的 Top-K：
+ * - 使用独立的 ForkJoinPool，不占用公共池
+ * - 快照按区间二分拆分，叶子区间各自维护 TopKHeap，join 时合并
+ * - 跳过自己、不允许匹配的用户以及调用方给出的排除集合（屏蔽关系、已红心/已匹配/曝光过多的用户），
+ *   排除集合为 RoaringBitmap，每个候选人一次 contains
+ * - 开启硬过滤时先用 MatchEligibilityIndex 求 must 维度候选位图，只对位图中的用户做精确过滤和打分
+ * - 打分流水线每次请求取一次，分片内复用同一个 MatchFacts，内层循环不分配对象
+ * - 超过延迟预算时提前结束并标记 truncated，返回已扫描部分的 Top-K；
+ *   预算只用于在线请求，后台物化列表按不限时扫描（budgetMs <= 0），结果总是完整的
+ * - 索引过滤 / 打分 / 输出排序分别计入 MatchStageMetrics，候选人数为快照大小，
+ *   淘汰数为索引剪掉的人数加精确硬过滤淘汰的人数
+ *
+ * @author riki
+ * @version 1.5
+ */
+@Component
+public class MatchCandidateScanner {
+
+    /**
+     * 每扫描多少个用户检查一次延迟预算
+     */
+    private static final int BUDGET_CHECK_INTERVAL = 256;
+
+    @Autowired
+    private MatchFeatureStore matchFeatureStore;
+
+    @Autowired
+    private MatchScorer matchScorer;
+
+    @Autowired
+    private MatchStageMetrics matchStageMetrics;
+
+    @Value("${linkme.match.full-scan.parallelism:0}")
+    private int parallelism;
+
+    @Value("${linkme.match.full-scan.leaf-size:2048}")
+    private int leafSize;
+
+    @Value("${linkme.match.full-scan.latency-budget-ms:200}")
+    private long latencyBudgetMs;
+
+    @Value("${linkme.match.hard-filter.enabled:true}")
+    private boolean hardFilterEnabled;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    public void init() {
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        pool = new ForkJoinPool(threads, p -> {
+            var worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            worker.setName("match-scan-" + worker.getPoolIndex());
+            worker.setDaemon(true);
+            return worker;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * 扫描全体用户，返回与当前用户最匹配的 K 个（使用在线请求的延迟预算 latency-budget-ms）
+     *
+     * @param viewer          当前用户特征
+     * @param k               需要的结果数
+     * @param excluded        额外排除的用户ID集合（可为 null，扫描期间不得修改）
+     * @return 扫描结果（按分数降序、userId 升序）
+     */
+    public ScanResult topK(UserFeatureVector viewer, int k, RoaringBitmap excluded) {
+        return topK(viewer, k, excluded, latencyBudgetMs);
+    }
+
+    /**
+     * 扫描全体用户，返回与当前用户最匹配的 K 个
+     *
+     * @param viewer          当前用户特征
+     * @param k               需要的结果数
+     * @param excluded        额外排除的用户ID集合（可为 null，扫描期间不得修改）
+     * @param budgetMs        延迟预算（毫秒），小于等于 0 表示不限时
+     * @return 扫描结果（按分数降序、userId 升序）
+     */
+    public ScanResult topK(UserFeatureVector viewer, int k, RoaringBitmap excluded, long budgetMs) {
+        MatchEligibilityIndex index = matchFeatureStore.eligibilityIndex();
+        UserFeatureVector[] snapshot = index.vectors();
+        if (viewer == null || k <= 0 || snapshot.length == 0) {
+            return new ScanResult(new int[0], new int[0], 0, 0, false);
+        }
+        int todayYmd = MatchFeatureStore.todayYmd();
+        long t = matchStageMetrics.start();
+        BitSet eligible = hardFilterEnabled ? index.eligible(viewer, todayYmd) : null;
+        long eligibleCount = eligible == null ? snapshot.length : eligible.cardinality();
+        matchStageMetrics.stop(MatchStage.MUST_FILTER, t);
+
+        ScanContext ctx = new ScanContext(viewer, matchScorer.pipeline(), snapshot, eligible, excluded, k, todayYmd,
+                budgetMs > 0 ? System.nanoTime() + budgetMs * 1_000_000L : Long.MAX_VALUE,
+                Math.max(leafSize, 64), hardFilterEnabled);
+        ScanTask root = new ScanTask(ctx, 0, snapshot.length);
+        t = matchStageMetrics.start();
+        TopKHeap heap = pool.invoke(root);
+        matchStageMetrics.stop(MatchStage.SCORING, t);
+        matchStageMetrics.candidates(snapshot.length);
+        matchStageMetrics.mustRejected(snapshot.length - eligibleCount + root.rejected);
+        if (ctx.truncated.get()) {
+            matchStageMetrics.truncated();
+        }
+
+        t = matchStageMetrics.start();
+        long[] keys = heap.drainDescending();
+        int[] userIds = new int[keys.length];
+        int[] scores = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            userIds[i] = TopKHeap.userIdOf(keys[i]);
+            scores[i] = TopKHeap.scoreOf(keys[i]);
+        }
+        matchStageMetrics.stop(MatchStage.SORT, t);
+        return new ScanResult(userIds, scores, eligibleCount, root.scanned, ctx.truncated.get());
+    }
+
+    /**
+     * 扫描结果
+     *
+     * @param userIds   Top-K 用户ID（有序）
+     * @param scores    对应分数
+     * @param eligible  通过索引硬过滤的用户数（未过滤时为快照大小），与快照大小之比即剪枝率
+     * @param scanned   实际扫描的用户数
+     * @param truncated 是否因超出延迟预算而提前结束
+     */
+    public record ScanResult(int[] userIds, int[] scores, long eligible, long scanned, boolean truncated) {
+    }
+
+    private static final class ScanContext {
+        final UserFeatureVector viewer;
+        final MatchScoringPipeline pipeline;
+        final UserFeatureVector[] snapshot;
+        final BitSet eligible;
+        final RoaringBitmap excluded;
+        final int k;
+        final int todayYmd;
+        final long deadlineNanos;
+        final int leafSize;
+        final boolean hardFilter;
+        final AtomicBoolean truncated = new AtomicBoolean(false);
+
+        ScanContext(UserFeatureVector viewer, MatchScoringPipeline pipeline, UserFeatureVector[] snapshot,
+                    BitSet eligible, RoaringBitmap excluded, int k, int todayYmd, long deadlineNanos, int leafSize,
+                    boolean hardFilter) {
+            this.viewer = viewer;
+            this.pipeline = pipeline;
+            this.snapshot = snapshot;
+            this.eligible = eligible;
+            this.excluded = excluded == null || excluded.isEmpty() ? null : excluded;
+            this.k = k;
+            this.todayYmd = todayYmd;
+            this.deadlineNanos = deadlineNanos;
+            this.leafSize = leafSize;
+            this.hardFilter = hardFilter;
+        }
+    }
+
+    private final class ScanTask extends RecursiveTask<TopKHeap> {
+        private final ScanContext ctx;
+        private final int from;
+        private final int to;
+        long scanned;
+        long rejected;
+
+        ScanTask(ScanContext ctx, int from, int to) {
+            this.ctx = ctx;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected TopKHeap compute() {
+            if (to - from <= ctx.leafSize) {
+                return scanLeaf();
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask left = new ScanTask(ctx, from, mid);
+            ScanTask right = new ScanTask(ctx, mid, to);
+            left.fork();
+            TopKHeap result = right.compute();
+            result.merge(left.join());
+            scanned = left.scanned + right.scanned;
+            rejected = left.rejected + right.rejected;
+            return result;
+        }
+
+        private TopKHeap scanLeaf() {
+            TopKHeap heap = new TopKHeap(ctx.k);
+            if (ctx.truncated.get()) {
+                return heap;
+            }
+            UserFeatureVector viewer = ctx.viewer;
+            int viewerId = viewer.userId();
+            RoaringBitmap excluded = ctx.excluded;
+            BitSet eligible = ctx.eligible;
+            MatchFacts facts = new MatchFacts();
+            int processed = 0;
+            int rejectedCount = 0;
+            int i = eligible == null ? from : eligible.nextSetBit(from);
+            while (i >= 0 && i < to) {
+                if (processed > 0 && (processed & (BUDGET_CHECK_INTERVAL - 1)) == 0
+                        && System.nanoTime() > ctx.deadlineNanos) {
+                    ctx.truncated.set(true);
+                    break;
+                }
+                UserFeatureVector candidate = ctx.snapshot[i];
+                int candidateId = candidate.userId();
+                if (candidateId != viewerId && candidate.allowMatch()
+                        && (excluded == null || !excluded.contains(candidateId))) {
+                    if (!ctx.hardFilter || matchScorer.passesHardFilters(viewer, candidate, ctx.todayYmd)) {
+                        heap.offer(candidateId, matchScorer.score(ctx.pipeline, viewer, candidate, ctx.todayYmd, facts));
+                    } else {
+                        rejectedCount++;
+                    }
+                }
+                processed++;
+                i = eligible == null ? i + 1 : eligible.nextSetBit(i + 1);
+            }
+            scanned = processed;
+            rejected = rejectedCount;
+            return heap;
+        }
+    }
+}
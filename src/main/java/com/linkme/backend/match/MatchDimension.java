@@ -0,0 +1,54 @@
+package com.linkme.backend.match;
+
+/**
+ * 匹配维度（对应 matching_dimension.code）
+ *
+ * 每个维度占 mustMask 中的一位，priority 维度以 ordinal 存入 byte 数组，
+ * 打分时无需再做字符串比较。
+ *
+ * @author riki
+ * @version 1.0
+ */
+public enum MatchDimension {
+    AGE_RANGE("age_range"),
+    DISTANCE("distance"),
+    INTEREST_OVERLAP("interest_overlap"),
+    PERSONALITY_MATCH("personality_match"),
+    RELATIONSHIP_MODE("relationship_mode"),
+    COMMUNICATION_STYLE("communication_style");
+
+    private static final MatchDimension[] VALUES = values();
+
+    private final String code;
+
+    MatchDimension(String code) {
+        this.code = code;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static MatchDimension byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    /**
+     * 根据维度代码查找，未知代码返回 null
+     */
+    public static MatchDimension fromCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        for (MatchDimension d : VALUES) {
+            if (d.code.equals(code)) {
+                return d;
+            }
+        }
+        return null;
+    }
+}
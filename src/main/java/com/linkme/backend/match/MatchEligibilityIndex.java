@@ -0,0 +1,180 @@
+package com.linkme.backend.match;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * must 维度硬过滤倒排索引
+ *
+ * 基于特征快照数组构建，位图下标即快照数组下标：
+ * - allowMatch：允许被推荐的用户
+ * - 出生年份 → 用户（年龄区间换算为出生年份区间后按位或，生日未知的用户不在任何年份中）
+ * - 地区编码 → 用户；要求同城的用户单独一组（用于距离的反向条件）
+ * - 经纬度网格（GeoGridIndex）：双方都有经纬度时同城按距离判断，否则按地区编码判断
+ * - 关系模式 → 用户（仅填写了偏好的用户）
+ *
+ * 索引给出的是满足条件用户的超集（出生年份按整年划分、网格查询边缘略宽），精确判断由 MatchScorer.passesHardFilters 完成。
+ * 问卷中没有"期望对方性别"字段，因此不建性别倒排。
+ * 构建后只读，可被多个扫描线程并发使用。
+ *
+ * @author riki
+ * @version 1.1
+ */
+public final class MatchEligibilityIndex {
+
+    private final UserFeatureVector[] vectors;
+
+    private final BitSet allowMatch;
+
+    private final Map<Integer, BitSet> byBirthYear;
+
+    private final Map<Integer, BitSet> byRegion;
+
+    private final BitSet requiresSameCity;
+
+    private final BitSet withoutLocation;
+
+    private final GeoGridIndex geo;
+
+    private final double sameCityRadiusKm;
+
+    private final Map<Integer, BitSet> byRelationshipMode;
+
+    private MatchEligibilityIndex(UserFeatureVector[] vectors, double cellDegrees, double sameCityRadiusKm) {
+        this.vectors = vectors;
+        int n = vectors.length;
+        this.allowMatch = new BitSet(n);
+        this.byBirthYear = new HashMap<>();
+        this.byRegion = new HashMap<>();
+        this.requiresSameCity = new BitSet(n);
+        this.byRelationshipMode = new HashMap<>();
+        this.withoutLocation = new BitSet(n);
+        this.geo = GeoGridIndex.build(vectors, cellDegrees);
+        this.sameCityRadiusKm = sameCityRadiusKm;
+    }
+
+    /**
+     * 从特征快照构建索引
+     *
+     * @param vectors          特征快照（构建后不得修改）
+     * @param cellDegrees      经纬度网格边长（度）
+     * @param sameCityRadiusKm 双方都有经纬度时视为同城的最大距离（km）
+     * @return 索引
+     */
+    public static MatchEligibilityIndex build(UserFeatureVector[] vectors, double cellDegrees, double sameCityRadiusKm) {
+        MatchEligibilityIndex index = new MatchEligibilityIndex(vectors, cellDegrees, sameCityRadiusKm);
+        for (int i = 0; i < vectors.length; i++) {
+            UserFeatureVector v = vectors[i];
+            if (v.allowMatch()) {
+                index.allowMatch.set(i);
+            }
+            if (v.birthYmd() > 0) {
+                index.byBirthYear.computeIfAbsent(v.birthYmd() / 10000, k -> new BitSet()).set(i);
+            }
+            if (v.regionCode() != 0) {
+                index.byRegion.computeIfAbsent(v.regionCode(), k -> new BitSet()).set(i);
+            }
+            if (!v.hasLocation()) {
+                index.withoutLocation.set(i);
+            }
+            if (v.distancePreference() == UserFeatureVector.DISTANCE_SAME_CITY) {
+                index.requiresSameCity.set(i);
+            }
+            if (v.hasPreference() && v.relationshipModeId() != 0) {
+                index.byRelationshipMode.computeIfAbsent(v.relationshipModeId(), k -> new BitSet()).set(i);
+            }
+        }
+        return index;
+    }
+
+    public UserFeatureVector[] vectors() {
+        return vectors;
+    }
+
+    public GeoGridIndex geo() {
+        return geo;
+    }
+
+    /**
+     * 求 viewer 的 must 维度硬过滤候选集
+     *
+     * @param viewer   当前用户特征
+     * @param todayYmd 今天的 yyyyMMdd
+     * @return 候选位图；viewer 没有可索引的 must 维度时返回 null（表示不过滤）
+     */
+    public BitSet eligible(UserFeatureVector viewer, int todayYmd) {
+        BitSet result = null;
+
+        if (viewer.hasMust(MatchDimension.AGE_RANGE) && constrainsAge(viewer)) {
+            BitSet ages = new BitSet(vectors.length);
+            if (viewer.ageMin() >= 0 && viewer.ageMax() >= 0) {
+                int year = todayYmd / 10000;
+                for (int y = year - viewer.ageMax() - 1; y <= year - viewer.ageMin(); y++) {
+                    BitSet posting = byBirthYear.get(y);
+                    if (posting != null) {
+                        ages.or(posting);
+                    }
+                }
+            } else {
+                // 只填了"有年龄要求"但没有区间：生日已知即可
+                for (BitSet posting : byBirthYear.values()) {
+                    ages.or(posting);
+                }
+            }
+            result = intersect(result, ages);
+        }
+
+        if (viewer.hasMust(MatchDimension.DISTANCE)) {
+            BitSet distance = sameCity(viewer);
+            if (viewer.distancePreference() != UserFeatureVector.DISTANCE_SAME_CITY) {
+                // 自己不要求同城时，不要求同城的对方也满足
+                BitSet notSameCity = (BitSet) requiresSameCity.clone();
+                notSameCity.flip(0, vectors.length);
+                distance.or(notSameCity);
+            }
+            result = intersect(result, distance);
+        }
+
+        if (viewer.hasMust(MatchDimension.RELATIONSHIP_MODE)
+                && viewer.hasPreference() && viewer.relationshipModeId() != 0) {
+            BitSet posting = byRelationshipMode.get(viewer.relationshipModeId());
+            result = intersect(result, posting == null ? new BitSet() : posting);
+        }
+
+        if (result != null) {
+            result.and(allowMatch);
+        }
+        return result;
+    }
+
+    /**
+     * 与 viewer 同城的用户：viewer 有经纬度时为半径内的用户 ∪ 同地区且没有经纬度的用户，否则为同地区的用户
+     */
+    private BitSet sameCity(UserFeatureVector viewer) {
+        BitSet sameRegion = viewer.regionCode() == 0 ? null : byRegion.get(viewer.regionCode());
+        if (!viewer.hasLocation()) {
+            return sameRegion == null ? new BitSet(vectors.length) : (BitSet) sameRegion.clone();
+        }
+        BitSet result = new BitSet(vectors.length);
+        geo.within(viewer.latitude(), viewer.longitude(), sameCityRadiusKm, result);
+        if (sameRegion != null) {
+            BitSet unlocated = (BitSet) sameRegion.clone();
+            unlocated.and(withoutLocation);
+            result.or(unlocated);
+        }
+        return result;
+    }
+
+    private static boolean constrainsAge(UserFeatureVector viewer) {
+        return viewer.hasPreference() && viewer.ageUnlimited() != UserFeatureVector.TRI_TRUE;
+    }
+
+    private static BitSet intersect(BitSet current, BitSet posting) {
+        if (current == null) {
+            return (BitSet) posting.clone();
+        }
+        current.and(posting);
+        return current;
+    }
+}
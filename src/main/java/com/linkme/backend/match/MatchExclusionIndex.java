@@ -0,0 +1,371 @@
+package com.linkme.backend.match;
+
+import com.linkme.backend.entity.MatchExclusion;
+import com.linkme.backend.mapper.HeartMapper;
+import com.linkme.backend.mapper.MatchExclusionMapper;
+import com.linkme.backend.mapper.MatchMapper;
+import jakarta.annotation.PreDestroy;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 推荐排除集合
+ *
+ * 每个用户一组 RoaringBitmap（按用户ID压缩存储），推荐时排除其中的用户：
+ * - interacted：已红心、已匹配的用户（来自 HeartServiceImpl）
+ * - impressions：按曝光次数分层，第 i 层为恰好曝光 i+1 次的用户，最后一层为曝光次数达到
+ *   impression-limit 的用户（来自 MatchRecommendServiceImpl 返回的每一页）
+ * - 排除集合 = interacted ∪ 最后一层，按需合并后缓存为只读视图，扫描时每个候选人一次 contains
+ *
+ * 加载与持久化：
+ * - 写入只改内存，不访问数据库（红心热路径）；首次读取时从 match_exclusion 加载并与内存中的增量合并，
+ *   表中没有记录时根据 heart / match_user 重建
+ * - 每 persist-interval-ms 把有变化的用户批量写回 match_exclusion，关闭时再写一次
+ * - 写回后长时间未访问的用户移出内存，下次访问时重新加载
+ *
+ * 内存占用（RoaringBitmap 对稀疏集合使用有序 short 数组，每 65536 个ID为一个容器）：
+ * - 每个ID约 2 字节；每个用到的容器约 40 字节；每个用户固定开销约 150 字节（对象头、位图数组、哈希节点）
+ * - 例：用户ID分布在 100 万范围内（每个位图 16 个容器），红心/匹配 200 人、曝光 2000 人（3 层），
+ *   位图合计约 4.8KB（getLongSizeInBytes 实测），合并视图约 1.8KB，合计约 7KB；
+ *   10 万个内存中的用户约 700MB，持久化后每行约 5KB
+ * - 单个容器超过 4096 个ID时转为 8KB 的位图容器，每个ID的占用不再增长
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Component
+public class MatchExclusionIndex {
+
+    @Autowired
+    private MatchExclusionMapper matchExclusionMapper;
+
+    @Autowired
+    private HeartMapper heartMapper;
+
+    @Autowired
+    private MatchMapper matchMapper;
+
+    @Value("${linkme.match.exclusion.enabled:true}")
+    private boolean enabled;
+
+    @Value("${linkme.match.exclusion.impression-limit:3}")
+    private int impressionLimit;
+
+    @Value("${linkme.match.exclusion.persist-batch:200}")
+    private int persistBatch;
+
+    @Value("${linkme.match.exclusion.idle-evict-ms:3600000}")
+    private long idleEvictMs;
+
+    private final Map<Integer, Exclusions> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 记录一次红心（from 不再看到 to）
+     */
+    public void recordHeart(int fromUserId, int toUserId) {
+        mutate(fromUserId, e -> e.interacted.add(toUserId));
+    }
+
+    /**
+     * 记录一次匹配（双方互相排除）
+     */
+    public void recordMatch(int user1Id, int user2Id) {
+        mutate(user1Id, e -> e.interacted.add(user2Id));
+        mutate(user2Id, e -> e.interacted.add(user1Id));
+    }
+
+    /**
+     * 记录一页推荐结果的曝光
+     *
+     * @param viewerId 当前用户ID
+     * @param shownIds 本次返回的用户ID
+     */
+    public void recordImpressions(int viewerId, int[] shownIds) {
+        if (impressionLimit <= 0 || shownIds.length == 0) {
+            return;
+        }
+        mutate(viewerId, e -> {
+            for (int shownId : shownIds) {
+                e.recordImpression(shownId);
+            }
+        });
+    }
+
+    /**
+     * 当前用户的排除集合（只读，调用方不得修改）
+     *
+     * @param viewerId 当前用户ID
+     * @return 排除集合；未开启时返回 null
+     */
+    public RoaringBitmap excluded(int viewerId) {
+        if (!enabled) {
+            return null;
+        }
+        while (true) {
+            Exclusions e = entries.computeIfAbsent(viewerId, id -> new Exclusions(levels()));
+            synchronized (e) {
+                if (e.evicted) {
+                    continue;
+                }
+                if (!e.loaded) {
+                    load(viewerId, e);
+                }
+                e.lastAccessAt = System.currentTimeMillis();
+                return e.view();
+            }
+        }
+    }
+
+    /**
+     * 内存中的用户数
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 批量写回有变化的用户，并移出长时间未访问的用户
+     *
+     * @return 写回的用户数
+     */
+    @Scheduled(fixedDelayString = "${linkme.match.exclusion.persist-interval-ms:60000}",
+            initialDelayString = "${linkme.match.exclusion.persist-interval-ms:60000}")
+    public synchronized int persist() {
+        if (!enabled) {
+            return 0;
+        }
+        long idleCutoff = System.currentTimeMillis() - idleEvictMs;
+        List<MatchExclusion> batch = new ArrayList<>();
+        List<Exclusions> batchEntries = new ArrayList<>();
+        int persisted = 0;
+        for (Map.Entry<Integer, Exclusions> entry : entries.entrySet()) {
+            Integer userId = entry.getKey();
+            Exclusions e = entry.getValue();
+            synchronized (e) {
+                if (e.dirty) {
+                    if (!e.loaded) {
+                        load(userId, e);
+                    }
+                    if (!e.loaded) {
+                        continue;
+                    }
+                    batch.add(e.toEntity(userId));
+                    batchEntries.add(e);
+                    e.dirty = false;
+                } else if (e.lastAccessAt < idleCutoff) {
+                    e.evicted = true;
+                    entries.remove(userId, e);
+                }
+            }
+            if (batch.size() >= persistBatch) {
+                persisted += flush(batch, batchEntries);
+            }
+        }
+        persisted += flush(batch, batchEntries);
+        return persisted;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persist();
+    }
+
+    private int flush(List<MatchExclusion> batch, List<Exclusions> batchEntries) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int size = batch.size();
+        try {
+            matchExclusionMapper.upsertBatch(batch);
+        } catch (Exception ex) {
+            System.err.println("写回匹配排除集合失败: " + size + " 个用户, " + ex.getMessage());
+            for (Exclusions e : batchEntries) {
+                synchronized (e) {
+                    e.dirty = true;
+                }
+            }
+            size = 0;
+        }
+        batch.clear();
+        batchEntries.clear();
+        return size;
+    }
+
+    private void mutate(int userId, Consumer<Exclusions> change) {
+        if (!enabled) {
+            return;
+        }
+        while (true) {
+            Exclusions e = entries.computeIfAbsent(userId, id -> new Exclusions(levels()));
+            synchronized (e) {
+                if (e.evicted) {
+                    continue;
+                }
+                change.accept(e);
+                e.dirty = true;
+                e.cachedView = null;
+                e.lastAccessAt = System.currentTimeMillis();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 从数据库加载并与内存中的增量合并（调用方持有 e 的锁），失败时保持未加载状态，下次访问重试
+     */
+    private void load(int userId, Exclusions e) {
+        try {
+            MatchExclusion row = matchExclusionMapper.selectByUserId(userId);
+            if (row != null) {
+                e.merge(row);
+            } else {
+                List<Integer> hearted = heartMapper.selectToUserIdsByFromUserId(userId);
+                List<Integer> matched = matchMapper.selectPartnerIdsByUserId(userId);
+                addAll(e.interacted, hearted);
+                addAll(e.interacted, matched);
+                e.dirty = true;
+            }
+            e.loaded = true;
+            e.cachedView = null;
+        } catch (Exception ex) {
+            System.err.println("加载匹配排除集合失败: userId=" + userId + ", " + ex.getMessage());
+        }
+    }
+
+    private static void addAll(RoaringBitmap bitmap, List<Integer> userIds) {
+        if (userIds == null) {
+            return;
+        }
+        for (Integer userId : userIds) {
+            if (userId != null) {
+                bitmap.add(userId);
+            }
+        }
+    }
+
+    private int levels() {
+        return Math.max(impressionLimit, 0);
+    }
+
+    /**
+     * 单个用户的排除集合，所有字段在持有自身锁时访问
+     */
+    private static final class Exclusions {
+        final RoaringBitmap interacted = new RoaringBitmap();
+        final RoaringBitmap[] impressions;
+        boolean loaded;
+        boolean dirty;
+        boolean evicted;
+        long lastAccessAt = System.currentTimeMillis();
+        RoaringBitmap cachedView;
+
+        Exclusions(int levels) {
+            impressions = new RoaringBitmap[levels];
+            for (int i = 0; i < levels; i++) {
+                impressions[i] = new RoaringBitmap();
+            }
+        }
+
+        /**
+         * 曝光次数加一：从所在层移到下一层，已在最后一层时不变
+         */
+        void recordImpression(int userId) {
+            int last = impressions.length - 1;
+            if (impressions[last].contains(userId)) {
+                return;
+            }
+            for (int level = last - 1; level >= 0; level--) {
+                if (impressions[level].contains(userId)) {
+                    impressions[level].remove(userId);
+                    impressions[level + 1].add(userId);
+                    return;
+                }
+            }
+            impressions[0].add(userId);
+        }
+
+        RoaringBitmap view() {
+            if (cachedView == null) {
+                cachedView = impressions.length == 0 ? interacted.clone()
+                        : RoaringBitmap.or(interacted, impressions[impressions.length - 1]);
+                cachedView.runOptimize();
+            }
+            return cachedView;
+        }
+
+        /**
+         * 合并数据库中的记录；持久化时的层数与当前配置不同时，多出的层并入最后一层
+         */
+        void merge(MatchExclusion row) throws IOException {
+            interacted.or(deserialize(row.getInteractedBitmap()));
+            if (impressions.length == 0 || row.getImpressionBitmaps() == null) {
+                return;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(row.getImpressionBitmaps()));
+            int storedLevels = in.readInt();
+            int last = impressions.length - 1;
+            for (int level = 0; level < storedLevels; level++) {
+                RoaringBitmap stored = new RoaringBitmap();
+                stored.deserialize(in);
+                // 内存中的增量是加载前的新曝光，这里只做并集，不重新计数
+                impressions[Math.min(level, last)].or(stored);
+            }
+            for (int level = 0; level < last; level++) {
+                for (int upper = level + 1; upper <= last; upper++) {
+                    impressions[level].andNot(impressions[upper]);
+                }
+            }
+        }
+
+        MatchExclusion toEntity(int userId) {
+            MatchExclusion row = new MatchExclusion();
+            row.setUserId(userId);
+            interacted.runOptimize();
+            row.setInteractedBitmap(serialize(interacted));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(impressions.length);
+                for (RoaringBitmap level : impressions) {
+                    level.runOptimize();
+                    level.serialize(out);
+                }
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            row.setImpressionBitmaps(bytes.toByteArray());
+            return row;
+        }
+
+        private static byte[] serialize(RoaringBitmap bitmap) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(bitmap.serializedSizeInBytes());
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                bitmap.serialize(out);
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+            return bytes.toByteArray();
+        }
+
+        private static RoaringBitmap deserialize(byte[] data) throws IOException {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            if (data != null && data.length > 0) {
+                bitmap.deserialize(new DataInputStream(new ByteArrayInputStream(data)));
+            }
+            return bitmap;
+        }
+    }
+}
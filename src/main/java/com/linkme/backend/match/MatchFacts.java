@@ -0,0 +1,58 @@
+package com.linkme.backend.match;
+
+/**
+ * 一对用户的打分中间结果
+ *
+ * 由 MatchScorer.computeFacts 填充，再交给 MatchScoringPipeline 按权重累加。
+ * 可变对象，扫描时每个分片复用同一个实例，避免内层循环分配。
+ *
+ * @author riki
+ * @version 1.3
+ */
+public final class MatchFacts {
+
+    /** 候选人年龄不在 viewer 的偏好范围内（单向） */
+    boolean ageOutOfRange;
+
+    /** viewer 同城优先且双方地区不同（双方都有经纬度时改用 distanceBand） */
+    boolean sameCityMismatch;
+
+    /** viewer 同城优先且双方都有经纬度时，双方距离超过的分档边界数（0 表示在最近一档内） */
+    int distanceBand;
+
+    /** 爱好重合数 */
+    int hobbyOverlap;
+
+    /** 与候选人运动户外类爱好的重合数 */
+    int sportHobbyOverlap;
+
+    /** 关系品质重合数 */
+    int qualityOverlap;
+
+    /** 关系模式一致 */
+    boolean relationshipModeMatched;
+
+    /** 沟通期待一致 */
+    boolean communicationExpectationMatched;
+
+    /** self 性格特质一致数 */
+    int selfTraitOverlap;
+
+    /** 双向 ideal → self 命中数 */
+    int idealTraitHits;
+
+    /** 沟通风格一致 */
+    boolean communicationStyleMatched;
+
+    /** 协同过滤亲和度（0~100，见 CollaborativeNeighborTable） */
+    int collaborativeAffinity;
+
+    /** 问卷向量的余弦相似度（0~100，见 QuestionnaireEmbeddingIndex） */
+    int embeddingSimilarity;
+
+    /**
+     * 已满足的维度位掩码（位定义见 MatchDimension.bit()，仅 viewer 有 must/priority 维度时计算），
+     * must 扣分与 priority 加权共用
+     */
+    int satisfiedMask;
+}
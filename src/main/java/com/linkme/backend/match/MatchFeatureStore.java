@@ -0,0 +1,515 @@
+package com.linkme.backend.match;
+
+import com.linkme.backend.entity.DimensionPrioritySelection;
+import com.linkme.backend.entity.User;
+import com.linkme.backend.entity.UserMatchingPreference;
+import com.linkme.backend.entity.UserPersonalitySelection;
+import com.linkme.backend.mapper.PersonalityTraitMapper;
+import com.linkme.backend.mapper.UserMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 常驻内存的匹配特征库
+ *
+ * 功能描述：
+ * - 启动后按主键游标分批预热全部用户的 UserFeatureVector
+ * - 未命中的用户按批懒加载（一次 CandidateFeatureLoader 批量查询）
+ * - 问卷保存、资料更新后按用户增量刷新（由 MatchListRefresher 处理 UserProfileChangedEvent 时调用），打分热路径不访问 MySQL
+ * - 为全量扫描提供数组快照及其硬过滤索引（含经纬度网格），有写入时最多每 snapshot-refresh-ms 重建一次
+ * - 首次编码前从字典表编译性格特质契合矩阵（PersonalityCompatibilityMatrix），字典变化需重启生效
+ * - 编码特征的同时写入问卷向量（QuestionnaireEmbeddingIndex），移除用户时清零
+ *
+ * 内存占用：每个用户约 300~400 字节（位图与数组在空集合时共享常量），百万用户约 350MB。
+ *
+ * @author riki
+ * @version 1.5
+ */
+@Component
+public class MatchFeatureStore {
+
+    private static final int SPORT_HOBBY_CATEGORY_ID = 3;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private CandidateFeatureLoader candidateFeatureLoader;
+
+    @Autowired
+    private PersonalityTraitMapper personalityTraitMapper;
+
+    @Value("${linkme.match.feature-store.preload:true}")
+    private boolean preloadEnabled;
+
+    @Value("${linkme.match.feature-store.batch-size:500}")
+    private int batchSize;
+
+    @Value("${linkme.match.feature-store.snapshot-refresh-ms:1000}")
+    private long snapshotRefreshMs;
+
+    @Value("${linkme.match.geo.cell-degrees:0.1}")
+    private double geoCellDegrees;
+
+    @Value("${linkme.match.geo.same-city-radius-km:50}")
+    private double sameCityRadiusKm;
+
+    @Value("${linkme.match.embedding.simd:true}")
+    private boolean embeddingSimd;
+
+    private final ConcurrentHashMap<Integer, UserFeatureVector> vectors = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Integer> regionCodes = new ConcurrentHashMap<>();
+
+    private final AtomicInteger nextRegionCode = new AtomicInteger(1);
+
+    private final AtomicInteger nextVersion = new AtomicInteger();
+
+    private volatile PersonalityCompatibilityMatrix traitMatrix;
+
+    private volatile long traitMatrixRetryAt;
+
+    private volatile MatchEligibilityIndex snapshotIndex = MatchEligibilityIndex.build(new UserFeatureVector[0], 0.1, 50);
+
+    private volatile long snapshotBuiltAt;
+
+    private volatile boolean snapshotDirty = true;
+
+    private volatile boolean preloaded;
+
+    private QuestionnaireEmbeddingIndex embeddings;
+
+    @PostConstruct
+    public void init() {
+        embeddings = new QuestionnaireEmbeddingIndex(EmbeddingKernel.select(embeddingSimd));
+        System.out.println("问卷向量点积内核: " + embeddings.kernel().name());
+    }
+
+    /**
+     * 应用启动完成后在后台线程预热，期间请求走懒加载
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        if (!preloadEnabled) {
+            return;
+        }
+        Thread t = new Thread(this::preloadAll, "match-feature-preload");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void preloadAll() {
+        long start = System.currentTimeMillis();
+        int lastUserId = 0;
+        int loaded = 0;
+        try {
+            while (true) {
+                List<User> users = userMapper.selectMatchProfilesAfter(lastUserId, batchSize);
+                if (users == null || users.isEmpty()) {
+                    break;
+                }
+                Map<Integer, CandidateFeatures> features = candidateFeatureLoader.load(users);
+                for (CandidateFeatures f : features.values()) {
+                    UserFeatureVector v = encode(f);
+                    if (vectors.putIfAbsent(v.userId(), v) == null) {
+                        embeddings.put(v);
+                    }
+                }
+                snapshotDirty = true;
+                loaded += features.size();
+                lastUserId = users.get(users.size() - 1).getUserId();
+                if (users.size() < batchSize) {
+                    break;
+                }
+            }
+            preloaded = true;
+            System.out.println("匹配特征库预热完成: " + loaded + " 个用户, 耗时 " + (System.currentTimeMillis() - start) + "ms");
+        } catch (Exception e) {
+            System.err.println("匹配特征库预热失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 获取单个用户的特征，未命中时从数据库加载
+     *
+     * @param userId 用户ID
+     * @return 特征；用户不存在返回 null
+     */
+    public UserFeatureVector get(Integer userId) {
+        if (userId == null) {
+            return null;
+        }
+        UserFeatureVector v = vectors.get(userId);
+        if (v != null) {
+            return v;
+        }
+        return loadAndPut(List.of(userId), false).get(userId);
+    }
+
+    /**
+     * 获取内存中已有的用户特征，不触发加载
+     *
+     * @param userId 用户ID
+     * @return 特征；不在内存中时返回 null
+     */
+    public UserFeatureVector peek(Integer userId) {
+        return userId == null ? null : vectors.get(userId);
+    }
+
+    /**
+     * 批量获取用户特征，未命中的用户合并为一次批量加载
+     *
+     * @param userIds 用户ID集合
+     * @return 用户ID -> 特征（不存在的用户不出现在结果中）
+     */
+    public Map<Integer, UserFeatureVector> getAll(Collection<Integer> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, UserFeatureVector> result = new HashMap<>(userIds.size() * 2);
+        List<Integer> missing = new ArrayList<>();
+        for (Integer id : userIds) {
+            if (id == null) {
+                continue;
+            }
+            UserFeatureVector v = vectors.get(id);
+            if (v != null) {
+                result.put(id, v);
+            } else {
+                missing.add(id);
+            }
+        }
+        for (int from = 0; from < missing.size(); from += batchSize) {
+            List<Integer> batch = missing.subList(from, Math.min(from + batchSize, missing.size()));
+            result.putAll(loadAndPut(batch, false));
+        }
+        return result;
+    }
+
+    /**
+     * 从数据库重新加载指定用户的特征
+     *
+     * @param userId 用户ID
+     */
+    public void refresh(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        if (loadAndPut(List.of(userId), true).isEmpty() && vectors.remove(userId) != null) {
+            embeddings.remove(userId);
+            snapshotDirty = true;
+        }
+    }
+
+    /**
+     * 移除用户特征（用户注销时调用）
+     */
+    public void remove(Integer userId) {
+        if (userId != null && vectors.remove(userId) != null) {
+            embeddings.remove(userId);
+            snapshotDirty = true;
+        }
+    }
+
+    public int size() {
+        return vectors.size();
+    }
+
+    /**
+     * 是否已完成全量预热（未完成时全量扫描结果不完整）
+     */
+    public boolean isPreloaded() {
+        return preloaded;
+    }
+
+    /**
+     * 全部用户特征的数组快照，供全量扫描只读遍历
+     *
+     * @return 快照数组（调用方不得修改）
+     */
+    public UserFeatureVector[] snapshot() {
+        return eligibilityIndex().vectors();
+    }
+
+    /**
+     * 全部用户的问卷向量
+     */
+    public QuestionnaireEmbeddingIndex embeddings() {
+        return embeddings;
+    }
+
+    /**
+     * 双方都有经纬度时视为同城的最大距离（km）
+     */
+    public double sameCityRadiusKm() {
+        return sameCityRadiusKm;
+    }
+
+    /**
+     * 与快照数组同时构建的 must 维度硬过滤索引（index.vectors() 即对应的快照）
+     *
+     * @return 索引
+     */
+    public MatchEligibilityIndex eligibilityIndex() {
+        if (snapshotDirty && System.currentTimeMillis() - snapshotBuiltAt >= snapshotRefreshMs) {
+            synchronized (this) {
+                if (snapshotDirty && System.currentTimeMillis() - snapshotBuiltAt >= snapshotRefreshMs) {
+                    snapshotDirty = false;
+                    snapshotIndex = MatchEligibilityIndex.build(vectors.values().toArray(new UserFeatureVector[0]),
+                            geoCellDegrees, sameCityRadiusKm);
+                    snapshotBuiltAt = System.currentTimeMillis();
+                }
+            }
+        }
+        return snapshotIndex;
+    }
+
+    /**
+     * 性格特质契合矩阵（打分规则使用），首次调用时从字典表编译
+     *
+     * 字典读取失败（如未执行 migration_add_personality_trait_code.sql）时返回空矩阵，60 秒后重试
+     */
+    public PersonalityCompatibilityMatrix traitMatrix() {
+        PersonalityCompatibilityMatrix m = traitMatrix;
+        if (m != null) {
+            return m;
+        }
+        synchronized (this) {
+            if (traitMatrix != null) {
+                return traitMatrix;
+            }
+            if (System.currentTimeMillis() < traitMatrixRetryAt) {
+                return PersonalityCompatibilityMatrix.empty();
+            }
+            try {
+                traitMatrix = PersonalityCompatibilityMatrix.compile(personalityTraitMapper.selectAllOptions());
+                return traitMatrix;
+            } catch (Exception e) {
+                traitMatrixRetryAt = System.currentTimeMillis() + 60_000L;
+                System.err.println("加载性格特质字典失败，性格契合暂不计分: " + e.getMessage());
+                return PersonalityCompatibilityMatrix.empty();
+            }
+        }
+    }
+
+    /**
+     * 今天的 yyyyMMdd，用于 UserFeatureVector.ageAt
+     */
+    public static int todayYmd() {
+        LocalDate now = LocalDate.now();
+        return toYmd(now);
+    }
+
+    private static int toYmd(LocalDate date) {
+        return date.getYear() * 10000 + date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    private Map<Integer, UserFeatureVector> loadAndPut(List<Integer> userIds, boolean overwrite) {
+        List<User> users = userMapper.selectMatchProfilesByIds(userIds);
+        if (users == null || users.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, CandidateFeatures> features = candidateFeatureLoader.load(users);
+        Map<Integer, UserFeatureVector> result = new HashMap<>(features.size() * 2);
+        for (CandidateFeatures f : features.values()) {
+            UserFeatureVector v = encode(f);
+            if (overwrite) {
+                embeddings.put(v);
+                vectors.put(v.userId(), v);
+            } else {
+                UserFeatureVector existing = vectors.putIfAbsent(v.userId(), v);
+                if (existing != null) {
+                    v = existing;
+                } else {
+                    embeddings.put(v);
+                }
+            }
+            result.put(v.userId(), v);
+        }
+        snapshotDirty = true;
+        return result;
+    }
+
+    private UserFeatureVector encode(CandidateFeatures f) {
+        User user = f.user();
+
+        int birthYmd = user.getBirthday() == null ? 0 : toYmd(user.getBirthday());
+        int regionCode = regionCode(user.getRegion());
+        boolean hasLocation = user.getLatitude() != null && user.getLongitude() != null;
+        float latitude = hasLocation ? user.getLatitude().floatValue() : Float.NaN;
+        float longitude = hasLocation ? user.getLongitude().floatValue() : Float.NaN;
+
+        List<Integer> sportHobbyIds = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> e : f.hobbyCategoryById().entrySet()) {
+            if (e.getValue() != null && e.getValue() == SPORT_HOBBY_CATEGORY_ID) {
+                sportHobbyIds.add(e.getKey());
+            }
+        }
+        long[] hobbyBits = UserFeatureVector.toBits(f.hobbyCategoryById().keySet());
+        long[] sportHobbyBits = UserFeatureVector.toBits(sportHobbyIds);
+        long[] qualityBits = UserFeatureVector.toBits(f.qualityIds());
+
+        PersonalityCompatibilityMatrix matrix = traitMatrix();
+        List<Integer> selfIds = new ArrayList<>();
+        List<Integer> idealIds = new ArrayList<>();
+        int selfEnergy = 0;
+        int selfDecision = 0;
+        int selfPace = 0;
+        int selfCommunication = 0;
+        int idealSocial = 0;
+        int idealAction = 0;
+        for (UserPersonalitySelection s : f.traits()) {
+            if (s.getCategoryName() == null || s.getOptionName() == null) {
+                continue;
+            }
+            int optionId = s.getOptionId();
+            // 槽位以字典中的分类 code 为准；字典未加载或选项是新增的，按分类名称推断
+            byte slot = matrix.slot(optionId);
+            if (slot == PersonalityCompatibilityMatrix.SLOT_NONE) {
+                slot = PersonalityCompatibilityMatrix.slotOf(PersonalityTraitRules.legacyCategoryCode(s.getCategoryName()));
+            }
+            if ("self".equalsIgnoreCase(s.getTraitType())) {
+                selfIds.add(optionId);
+                switch (slot) {
+                    case PersonalityCompatibilityMatrix.SLOT_SELF_ENERGY -> selfEnergy = optionId;
+                    case PersonalityCompatibilityMatrix.SLOT_SELF_DECISION -> selfDecision = optionId;
+                    case PersonalityCompatibilityMatrix.SLOT_SELF_PACE -> selfPace = optionId;
+                    case PersonalityCompatibilityMatrix.SLOT_SELF_COMMUNICATION -> selfCommunication = optionId;
+                    default -> {
+                    }
+                }
+            } else if ("ideal".equalsIgnoreCase(s.getTraitType())) {
+                idealIds.add(optionId);
+                switch (slot) {
+                    case PersonalityCompatibilityMatrix.SLOT_IDEAL_SOCIAL -> idealSocial = optionId;
+                    case PersonalityCompatibilityMatrix.SLOT_IDEAL_ACTION -> idealAction = optionId;
+                    default -> {
+                    }
+                }
+            }
+        }
+
+        UserMatchingPreference p = f.preference();
+        boolean hasPreference = p != null;
+        int ageMin = hasPreference && p.getAgeMin() != null ? p.getAgeMin() : -1;
+        int ageMax = hasPreference && p.getAgeMax() != null ? p.getAgeMax() : -1;
+        byte ageUnlimited = !hasPreference || p.getAgeUnlimited() == null
+                ? UserFeatureVector.TRI_NULL
+                : (p.getAgeUnlimited() ? UserFeatureVector.TRI_TRUE : UserFeatureVector.TRI_FALSE);
+        byte distancePreference = hasPreference ? distanceCode(p.getDistancePreference()) : UserFeatureVector.DISTANCE_NONE;
+        int relationshipModeId = hasPreference && p.getRelationshipModeId() != null ? p.getRelationshipModeId() : 0;
+        int communicationExpectationId = hasPreference && p.getCommunicationExpectationId() != null ? p.getCommunicationExpectationId() : 0;
+
+        int mustMask = 0;
+        for (String code : f.mustDimensionCodes()) {
+            MatchDimension d = MatchDimension.fromCode(code);
+            if (d != null) {
+                mustMask |= d.bit();
+            }
+        }
+
+        List<DimensionPrioritySelection> priorities = f.priorityDimensions();
+        byte[] priorityDimensions = priorities.isEmpty() ? UserFeatureVector.EMPTY_BYTES : new byte[priorities.size()];
+        byte[] priorityWeights = priorities.isEmpty() ? UserFeatureVector.EMPTY_BYTES : new byte[priorities.size()];
+        int n = 0;
+        for (DimensionPrioritySelection ps : priorities) {
+            MatchDimension d = MatchDimension.fromCode(ps.getCode());
+            if (d == null) {
+                continue;
+            }
+            priorityDimensions[n] = (byte) d.ordinal();
+            priorityWeights[n] = (byte) priorityWeight(ps.getPriorityOrder());
+            n++;
+        }
+        if (n < priorityDimensions.length) {
+            priorityDimensions = Arrays.copyOf(priorityDimensions, n);
+            priorityWeights = Arrays.copyOf(priorityWeights, n);
+        }
+
+        return new UserFeatureVector(
+                user.getUserId(),
+                f.allowMatch(),
+                birthYmd,
+                regionCode,
+                latitude,
+                longitude,
+                hobbyBits,
+                sportHobbyBits,
+                qualityBits,
+                toSortedArray(selfIds),
+                toSortedArray(idealIds),
+                selfEnergy,
+                selfDecision,
+                selfPace,
+                selfCommunication,
+                idealSocial,
+                idealAction,
+                hasPreference,
+                ageMin,
+                ageMax,
+                ageUnlimited,
+                distancePreference,
+                relationshipModeId,
+                communicationExpectationId,
+                mustMask,
+                priorityDimensions,
+                priorityWeights,
+                nextVersion.incrementAndGet());
+    }
+
+    private int regionCode(String region) {
+        if (region == null) {
+            return 0;
+        }
+        String r = region.trim();
+        if (r.isEmpty()) {
+            return 0;
+        }
+        return regionCodes.computeIfAbsent(r.toLowerCase(Locale.ROOT), k -> nextRegionCode.getAndIncrement());
+    }
+
+    private static byte distanceCode(String distancePreference) {
+        if (distancePreference == null) {
+            return UserFeatureVector.DISTANCE_NONE;
+        }
+        return switch (distancePreference) {
+            case "same_city" -> UserFeatureVector.DISTANCE_SAME_CITY;
+            case "same_city_or_remote" -> UserFeatureVector.DISTANCE_SAME_CITY_OR_REMOTE;
+            case "unlimited" -> UserFeatureVector.DISTANCE_UNLIMITED;
+            default -> UserFeatureVector.DISTANCE_OTHER;
+        };
+    }
+
+    private static int priorityWeight(Integer priorityOrder) {
+        int o = priorityOrder == null ? 1 : Math.max(priorityOrder, 1);
+        if (o == 1) {
+            return 3;
+        }
+        if (o == 2) {
+            return 2;
+        }
+        return 1;
+    }
+
+    private static int[] toSortedArray(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return UserFeatureVector.EMPTY_IDS;
+        }
+        int[] a = new int[ids.size()];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = ids.get(i);
+        }
+        Arrays.sort(a);
+        return a;
+    }
+}
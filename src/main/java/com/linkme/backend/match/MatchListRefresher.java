@@ -0,0 +1,398 @@
+package com.linkme.backend.match;
+
+import com.linkme.backend.mapper.BlockMapper;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 物化推荐列表的计算与后台刷新
+ *
+ * - 活跃用户：最近 active-window-ms 内请求过推荐的用户，每 refresh-interval-ms 重新排队一次
+ * - 失效：问卷 / 资料 / 屏蔽关系变化时删除该用户的列表并排队重建
+ * - 后台任务每 drain-interval-ms 取出最多 drain-batch 个排队用户重算并写入 MatchListStore
+ * - 增量改写：某个用户画像变化（UserProfileChangedEvent）后，只对各活跃列表重算与该用户这一对的分数，
+ *   按写入列表时记下的门槛（列表末位，未满时为无门槛）判断是否在列表中：
+ *   新分数过门槛则写入 / 更新，原来在列表中而现在不在则移除，两者都不在门槛之上的列表不访问 Redis；
+ *   每次变化的代价是"活跃用户数次打分 + 受影响列表数次写入"，与列表总长度无关
+ * - 增量改写不重排其他候选人，周期刷新与列表 TTL 仍限定整体的过期时间，
+ *   读取时再按特征库过滤掉已关闭匹配的用户
+ * - 计算时排除屏蔽关系与 MatchExclusionIndex 中的用户；之后新增的红心/匹配/曝光不触发重建，
+ *   读取时按排除集合过滤；增量改写同样不把已在 viewer 排除集合中的用户写回列表（已在列表中的移除）
+ * - 后台重建不受在线请求的延迟预算限制，总是完整扫描；在线请求未命中列表时按预算实时计算，
+ *   结果被预算截断（只扫描了部分用户）时只用于本次响应，不写入列表，改为排队由后台完整重建
+ *
+ * @author riki
+ * @version 1.5
+ */
+@Component
+public class MatchListRefresher {
+
+    @Autowired
+    private MatchFeatureStore matchFeatureStore;
+
+    @Autowired
+    private MatchCandidateScanner matchCandidateScanner;
+
+    @Autowired
+    private MatchListStore matchListStore;
+
+    @Autowired
+    private BlockMapper blockMapper;
+
+    @Autowired
+    private MatchExclusionIndex matchExclusionIndex;
+
+    @Autowired
+    private MatchStageMetrics matchStageMetrics;
+
+    @Autowired
+    private MatchScorer matchScorer;
+
+    @Value("${linkme.match.list.size:1000}")
+    private int listSize;
+
+    @Value("${linkme.match.list.active-window-ms:86400000}")
+    private long activeWindowMs;
+
+    @Value("${linkme.match.list.drain-batch:50}")
+    private int drainBatch;
+
+    @Value("${linkme.match.list.delta-batch:500}")
+    private int deltaBatch;
+
+    @Value("${linkme.match.hard-filter.enabled:true}")
+    private boolean hardFilterEnabled;
+
+    private final Map<Integer, Long> lastRequestAt = new ConcurrentHashMap<>();
+
+    private final Set<Integer> pending = ConcurrentHashMap.newKeySet();
+
+    /** 已写入 Redis 的列表的入选门槛（列表末位的 TopKHeap 编码值，未满时为 Long.MIN_VALUE） */
+    private final Map<Integer, Long> listFloors = new ConcurrentHashMap<>();
+
+    /** 待增量改写的画像变化：用户ID -> 变化前的特征（同一用户多次变化时保留最早的） */
+    private final Map<Integer, ProfileChange> changed = new ConcurrentHashMap<>();
+
+    private record ProfileChange(UserFeatureVector before) {
+    }
+
+    /**
+     * 一次计算的结果
+     *
+     * @param ranked    TopKHeap 编码的有序结果
+     * @param truncated 是否因超出延迟预算而只扫描了部分用户
+     */
+    public record Ranking(long[] ranked, boolean truncated) {
+    }
+
+    /**
+     * 物化列表的长度（即可翻页的最大结果数）
+     */
+    public int listSize() {
+        return listSize;
+    }
+
+    /**
+     * 记录一次推荐请求，使该用户进入活跃集合
+     */
+    public void touch(int userId) {
+        lastRequestAt.put(userId, System.currentTimeMillis());
+    }
+
+    /**
+     * 实时计算用户的 Top-K（排除屏蔽关系与排除集合中的用户），结果为 TopKHeap 编码的有序数组
+     *
+     * @param viewer 当前用户特征
+     * @param k      需要的结果数
+     * @return 有序结果
+     */
+    public long[] compute(UserFeatureVector viewer, int k) {
+        return rank(viewer, k).ranked();
+    }
+
+    /**
+     * 在线请求的实时计算（受 latency-budget-ms 限制），返回结果及是否被截断
+     *
+     * @param viewer 当前用户特征
+     * @param k      需要的结果数
+     * @return 计算结果
+     */
+    public Ranking rank(UserFeatureVector viewer, int k) {
+        return scan(viewer, k, false);
+    }
+
+    private Ranking scan(UserFeatureVector viewer, int k, boolean unbounded) {
+        long t = matchStageMetrics.start();
+        RoaringBitmap exclusions = matchExclusionIndex.excluded(viewer.userId());
+        RoaringBitmap excluded = exclusions == null ? new RoaringBitmap() : exclusions.clone();
+        matchStageMetrics.stop(MatchStage.EXCLUSIONS, t);
+
+        t = matchStageMetrics.start();
+        List<Integer> blockRelated = blockMapper.selectBlockRelatedUserIds(viewer.userId());
+        matchStageMetrics.stop(MatchStage.BLOCKS, t);
+        if (blockRelated != null) {
+            for (Integer userId : blockRelated) {
+                if (userId != null) {
+                    excluded.add(userId);
+                }
+            }
+        }
+
+        MatchCandidateScanner.ScanResult scan = unbounded
+                ? matchCandidateScanner.topK(viewer, k, excluded, 0)
+                : matchCandidateScanner.topK(viewer, k, excluded);
+        if (scan.truncated()) {
+            System.out.println("匹配全量扫描超出延迟预算: userId=" + viewer.userId()
+                    + ", eligible=" + scan.eligible() + ", scanned=" + scan.scanned());
+        }
+        long[] ranked = new long[scan.userIds().length];
+        for (int i = 0; i < ranked.length; i++) {
+            ranked[i] = TopKHeap.encode(scan.userIds()[i], scan.scores()[i]);
+        }
+        return new Ranking(ranked, scan.truncated());
+    }
+
+    /**
+     * 重算并写入用户的物化列表
+     *
+     * @param userId 用户ID
+     * @return 计算结果（用户不存在时返回空数组）
+     */
+    public long[] rebuild(int userId) {
+        UserFeatureVector viewer = matchFeatureStore.get(userId);
+        if (viewer == null) {
+            matchListStore.delete(userId);
+            return new long[0];
+        }
+        long[] ranked = scan(viewer, listSize, true).ranked();
+        long t = matchStageMetrics.start();
+        store(userId, ranked);
+        matchStageMetrics.stop(MatchStage.LIST_WRITE, t);
+        return ranked;
+    }
+
+    /**
+     * 写入在线请求实时计算的结果：被延迟预算截断的结果不写入，排队由后台完整重建
+     *
+     * @param userId  用户ID
+     * @param ranking rank 的结果
+     */
+    public void store(int userId, Ranking ranking) {
+        if (ranking.truncated()) {
+            listFloors.remove(userId);
+            pending.add(userId);
+            return;
+        }
+        store(userId, ranking.ranked());
+    }
+
+    /**
+     * 写入用户的物化列表，并记下入选门槛供增量改写使用
+     *
+     * @param userId 用户ID
+     * @param ranked compute 的结果
+     */
+    public void store(int userId, long[] ranked) {
+        if (matchListStore.replace(userId, ranked)) {
+            listFloors.put(userId, ranked.length < listSize ? Long.MIN_VALUE : ranked[ranked.length - 1]);
+        } else {
+            listFloors.remove(userId);
+        }
+    }
+
+    /**
+     * 处理画像变化：刷新特征库、重建该用户自己的列表，并排队改写其他列表中与该用户相关的一项
+     *
+     * 在发布方的事务提交后执行（无事务时立即执行），回滚的数据不会进入特征库与列表。
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProfileChanged(UserProfileChangedEvent event) {
+        int userId = event.userId();
+        UserFeatureVector before = matchFeatureStore.peek(userId);
+        if (event.change() == UserProfileChangedEvent.Change.DELETED) {
+            matchFeatureStore.remove(userId);
+            lastRequestAt.remove(userId);
+        } else {
+            matchFeatureStore.refresh(userId);
+        }
+        doInvalidate(userId);
+        if (!listFloors.isEmpty()) {
+            changed.putIfAbsent(userId, new ProfileChange(before));
+        }
+    }
+
+    /**
+     * 后台增量改写：对每个排队的画像变化，只改写受影响的列表
+     */
+    @Scheduled(fixedDelayString = "${linkme.match.list.drain-interval-ms:1000}")
+    public void drainChanged() {
+        if (changed.isEmpty()) {
+            return;
+        }
+        Iterator<Map.Entry<Integer, ProfileChange>> it = changed.entrySet().iterator();
+        int processed = 0;
+        while (it.hasNext() && processed < drainBatch) {
+            Map.Entry<Integer, ProfileChange> e = it.next();
+            it.remove();
+            try {
+                rescore(e.getKey(), e.getValue().before());
+            } catch (Exception ex) {
+                System.err.println("增量改写物化推荐列表失败: userId=" + e.getKey() + ", " + ex.getMessage());
+            }
+            processed++;
+        }
+    }
+
+    /**
+     * 在所有已记录门槛的列表中重算与 userId 这一对的分数并改写
+     *
+     * @param userId 画像变化的用户ID
+     * @param before 变化前的特征（未知时为 null，此时凡是现在不入选的列表都尝试移除）
+     * @return 发往 Redis 的改写数
+     */
+    int rescore(int userId, UserFeatureVector before) {
+        if (listFloors.isEmpty()) {
+            return 0;
+        }
+        UserFeatureVector after = matchFeatureStore.peek(userId);
+        Set<Integer> blockRelated = new HashSet<>();
+        List<Integer> related = blockMapper.selectBlockRelatedUserIds(userId);
+        if (related != null) {
+            blockRelated.addAll(related);
+        }
+        MatchScoringPipeline pipeline = matchScorer.pipeline();
+        int todayYmd = MatchFeatureStore.todayYmd();
+        MatchFacts facts = new MatchFacts();
+
+        int[] viewerIds = new int[deltaBatch];
+        long[] keys = new long[deltaBatch];
+        int n = 0;
+        int total = 0;
+        for (Map.Entry<Integer, Long> e : listFloors.entrySet()) {
+            int viewerId = e.getKey();
+            UserFeatureVector viewer = viewerId == userId ? null : matchFeatureStore.peek(viewerId);
+            if (viewer == null) {
+                continue;
+            }
+            long floor = e.getValue();
+            RoaringBitmap exclusions = matchExclusionIndex.excluded(viewerId);
+            boolean blocked = blockRelated.contains(viewerId)
+                    || (exclusions != null && exclusions.contains(userId));
+            long oldKey = before == null ? Long.MAX_VALUE : listKey(pipeline, viewer, before, todayYmd, facts);
+            long newKey = after == null || blocked ? Long.MIN_VALUE : listKey(pipeline, viewer, after, todayYmd, facts);
+            if (newKey > floor) {
+                viewerIds[n] = viewerId;
+                keys[n++] = newKey;
+            } else if (oldKey > floor) {
+                viewerIds[n] = viewerId;
+                keys[n++] = MatchListStore.REMOVE;
+            }
+            if (n == deltaBatch) {
+                matchListStore.applyDeltas(viewerIds, keys, userId, listSize);
+                total += n;
+                n = 0;
+            }
+        }
+        if (n > 0) {
+            matchListStore.applyDeltas(Arrays.copyOf(viewerIds, n), Arrays.copyOf(keys, n), userId, listSize);
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * candidate 在 viewer 列表中的排序键；不可能入选（关闭匹配、未通过硬过滤）时返回 Long.MIN_VALUE
+     */
+    private long listKey(MatchScoringPipeline pipeline, UserFeatureVector viewer, UserFeatureVector candidate,
+                         int todayYmd, MatchFacts facts) {
+        if (!candidate.allowMatch()
+                || (hardFilterEnabled && !matchScorer.passesHardFilters(viewer, candidate, todayYmd))) {
+            return Long.MIN_VALUE;
+        }
+        return TopKHeap.encode(candidate.userId(), matchScorer.score(pipeline, viewer, candidate, todayYmd, facts));
+    }
+
+    /**
+     * 使用户的物化列表失效并排队重建（有事务时在提交后执行）
+     *
+     * @param userId 用户ID
+     */
+    public void invalidate(Integer userId) {
+        if (userId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    doInvalidate(userId);
+                }
+            });
+        } else {
+            doInvalidate(userId);
+        }
+    }
+
+    private void doInvalidate(int userId) {
+        listFloors.remove(userId);
+        matchListStore.delete(userId);
+        if (lastRequestAt.containsKey(userId)) {
+            pending.add(userId);
+        }
+    }
+
+    /**
+     * 周期性地把活跃用户重新排队，并清理不再活跃的用户
+     */
+    @Scheduled(fixedDelayString = "${linkme.match.list.refresh-interval-ms:300000}",
+            initialDelayString = "${linkme.match.list.refresh-interval-ms:300000}")
+    public void requeueActiveUsers() {
+        long cutoff = System.currentTimeMillis() - activeWindowMs;
+        Iterator<Map.Entry<Integer, Long>> it = lastRequestAt.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Long> e = it.next();
+            if (e.getValue() < cutoff) {
+                it.remove();
+                listFloors.remove(e.getKey());
+            } else {
+                pending.add(e.getKey());
+            }
+        }
+    }
+
+    /**
+     * 后台重建排队中的列表
+     */
+    @Scheduled(fixedDelayString = "${linkme.match.list.drain-interval-ms:1000}")
+    public void drainPending() {
+        if (pending.isEmpty() || !matchFeatureStore.isPreloaded()) {
+            return;
+        }
+        int processed = 0;
+        Iterator<Integer> it = pending.iterator();
+        while (it.hasNext() && processed < drainBatch) {
+            Integer userId = it.next();
+            it.remove();
+            try {
+                rebuild(userId);
+            } catch (Exception e) {
+                System.err.println("重建物化推荐列表失败: userId=" + userId + ", " + e.getMessage());
+            }
+            processed++;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.linkme.backend.match;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 物化推荐列表存储（Redis 有序集合）
+ *
+ * 每个用户一个 ZSET：key 为 match:rec:{userId}，member 为候选用户ID，
+ * score 为 TopKHeap 编码值（分数在高位、userId 取反在低位，均在 double 精度内），
+ * 因此 ZREVRANGE 的顺序即"分数降序、userId 升序"，读一页只需一次 O(log N + page) 的范围查询。
+ *
+ * 其他用户画像变化时用 applyDeltas 原地改写一项（Lua 脚本，只改已存在的列表并截断到上限），
+ * 多个列表 key 在同一次脚本调用中修改，因此要求单机 Redis（集群下各 key 不在同一 slot）。
+ *
+ * Redis 不可用时所有方法返回 null / false，由调用方回退为实时计算。
+ *
+ * @author riki
+ * @version 1.1
+ */
+@Component
+public class MatchListStore {
+
+    private static final String KEY_PREFIX = "match:rec:";
+
+    /** 删除标记：applyDeltas 中表示从列表中移除 */
+    public static final long REMOVE = Long.MIN_VALUE;
+
+    /**
+     * KEYS：各列表；ARGV[1]：member，ARGV[2]：列表长度上限，ARGV[2 + i]：KEYS[i] 的新 score（"-" 表示移除）
+     */
+    private static final DefaultRedisScript<Long> APPLY_DELTAS = new DefaultRedisScript<>(
+            "local changed = 0\n"
+                    + "for i, key in ipairs(KEYS) do\n"
+                    + "  if redis.call('EXISTS', key) == 1 then\n"
+                    + "    local score = ARGV[i + 2]\n"
+                    + "    if score == '-' then\n"
+                    + "      changed = changed + redis.call('ZREM', key, ARGV[1])\n"
+                    + "    else\n"
+                    + "      redis.call('ZADD', key, score, ARGV[1])\n"
+                    + "      redis.call('ZREMRANGEBYRANK', key, 0, -(tonumber(ARGV[2]) + 1))\n"
+                    + "      changed = changed + 1\n"
+                    + "    end\n"
+                    + "  end\n"
+                    + "end\n"
+                    + "return changed", Long.class);
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Value("${linkme.match.list.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    /**
+     * 读取一页已物化的推荐
+     *
+     * @param userId 用户ID
+     * @param offset 偏移量
+     * @param size   页大小
+     * @return TopKHeap 编码的结果（列表不存在时返回 null，Redis 不可用时也返回 null）
+     */
+    public long[] readPage(int userId, int offset, int size) {
+        try {
+            String key = key(userId);
+            Set<ZSetOperations.TypedTuple<String>> tuples =
+                    stringRedisTemplate.opsForZSet().reverseRangeWithScores(key, offset, offset + size - 1L);
+            if (tuples == null || tuples.isEmpty()) {
+                // 区分"列表不存在"与"翻到了末尾"
+                Boolean exists = stringRedisTemplate.hasKey(key);
+                return Boolean.TRUE.equals(exists) ? new long[0] : null;
+            }
+            long[] keys = new long[tuples.size()];
+            int i = 0;
+            for (ZSetOperations.TypedTuple<String> t : tuples) {
+                keys[i++] = t.getScore() == null ? 0L : t.getScore().longValue();
+            }
+            return keys;
+        } catch (DataAccessException e) {
+            System.err.println("读取物化推荐列表失败: userId=" + userId + ", " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 整体替换用户的推荐列表（MULTI/EXEC 内先删后写，读方不会看到半份列表）
+     *
+     * @param userId 用户ID
+     * @param ranked TopKHeap 编码的有序结果
+     * @return 是否写入成功
+     */
+    @SuppressWarnings("unchecked")
+    public boolean replace(int userId, long[] ranked) {
+        String key = key(userId);
+        Set<ZSetOperations.TypedTuple<String>> tuples = new HashSet<>(ranked.length * 2);
+        for (long k : ranked) {
+            tuples.add(new DefaultTypedTuple<>(String.valueOf(TopKHeap.userIdOf(k)), (double) k));
+        }
+        try {
+            stringRedisTemplate.execute(new SessionCallback<List<Object>>() {
+                @Override
+                public <K, V> List<Object> execute(RedisOperations<K, V> operations) throws DataAccessException {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    ops.multi();
+                    ops.delete(key);
+                    if (!tuples.isEmpty()) {
+                        ops.opsForZSet().add(key, tuples);
+                        ops.expire(key, ttlSeconds, TimeUnit.SECONDS);
+                    }
+                    return ops.exec();
+                }
+            });
+            return true;
+        } catch (DataAccessException e) {
+            System.err.println("写入物化推荐列表失败: userId=" + userId + ", " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 在多个用户的列表中改写同一个候选人（只改仍存在的列表，不存在的列表等待下次重建）
+     *
+     * @param viewerIds 列表所属用户ID
+     * @param keys      与 viewerIds 一一对应的 TopKHeap 编码值，REMOVE 表示移除
+     * @param member    候选人ID
+     * @param maxSize   列表长度上限（写入后截断）
+     * @return 实际改写的列表数；Redis 不可用时返回 -1
+     */
+    public long applyDeltas(int[] viewerIds, long[] keys, int member, int maxSize) {
+        List<String> redisKeys = new ArrayList<>(viewerIds.length);
+        Object[] args = new Object[viewerIds.length + 2];
+        args[0] = String.valueOf(member);
+        args[1] = String.valueOf(maxSize);
+        for (int i = 0; i < viewerIds.length; i++) {
+            redisKeys.add(key(viewerIds[i]));
+            args[i + 2] = keys[i] == REMOVE ? "-" : String.valueOf(keys[i]);
+        }
+        try {
+            Long changed = stringRedisTemplate.execute(APPLY_DELTAS, redisKeys, args);
+            return changed == null ? 0 : changed;
+        } catch (DataAccessException e) {
+            System.err.println("增量改写物化推荐列表失败: member=" + member + ", " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 删除用户的推荐列表
+     *
+     * @param userId 用户ID
+     */
+    public void delete(int userId) {
+        try {
+            stringRedisTemplate.delete(key(userId));
+        } catch (DataAccessException e) {
+            System.err.println("删除物化推荐列表失败: userId=" + userId + ", " + e.getMessage());
+        }
+    }
+
+    private static String key(int userId) {
+        return KEY_PREFIX + userId;
+    }
+}
@@ -0,0 +1,151 @@
+package com.linkme.backend.match;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对称打分结果缓存
+ *
+ * 缓存一对用户与视角无关的打分中间结果（MatchScorer.symmetricFacts 打包成的 long），
+ * A 看 B 与 B 看 A 共用同一项；viewer 相关的部分（年龄偏好、同城优先、协同过滤等）每次在其上现算。
+ * - 键为有序对 (min id, max id)，每项同时记录双方的特征版本（UserFeatureVector.version），
+ *   任一方画像变化后版本不同，旧项自然失效，不需要主动清理
+ * - 直接映射：capacity（取 2 的幂）个槽位，冲突时新项覆盖旧项，内存固定为 32 字节 × capacity
+ * - 每个槽位为 long[] 中连续的 4 个 long（键、版本、结果、校验），不加锁；
+ *   校验值由前三者与 salt（当天日期，年龄随日期变化）混合得到，并发写入造成的撕裂读校验不通过，按未命中处理
+ *
+ * 指标：linkme.match.pair_cache.requests{result=hit|miss}、linkme.match.pair_cache.hit_ratio。
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Component
+public class MatchPairCache {
+
+    /** 未命中 */
+    public static final long MISS = -1L;
+
+    private static final int STRIDE = 4;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${linkme.match.pair-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${linkme.match.pair-cache.capacity:262144}")
+    private int capacity;
+
+    private long[] slots;
+
+    private int mask;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        int size = Integer.highestOneBit(Math.max(1, Math.min(capacity, 1 << 26)));
+        slots = new long[enabled ? size * STRIDE : 0];
+        mask = size - 1;
+        FunctionCounter.builder("linkme.match.pair_cache.requests", hits, LongAdder::sum)
+                .description("对称打分缓存查询次数")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("linkme.match.pair_cache.requests", misses, LongAdder::sum)
+                .description("对称打分缓存查询次数")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("linkme.match.pair_cache.hit_ratio", this, MatchPairCache::hitRatio)
+                .description("对称打分缓存命中率（启动以来）")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 查询一对用户的对称中间结果
+     *
+     * @param a    一方特征
+     * @param b    另一方特征
+     * @param salt 当天日期 yyyyMMdd
+     * @return 打包的中间结果；未命中返回 MISS
+     */
+    public long get(UserFeatureVector a, UserFeatureVector b, int salt) {
+        long key = key(a, b);
+        long versions = versions(a, b);
+        int base = slot(key);
+        long[] s = slots;
+        long value = s[base + 2];
+        if (s[base] == key && s[base + 1] == versions && s[base + 3] == check(key, versions, value, salt)) {
+            hits.increment();
+            return value;
+        }
+        misses.increment();
+        return MISS;
+    }
+
+    /**
+     * 写入一对用户的对称中间结果（覆盖同一槽位上的旧项）
+     *
+     * @param value 打包的中间结果（非负）
+     */
+    public void put(UserFeatureVector a, UserFeatureVector b, int salt, long value) {
+        long key = key(a, b);
+        long versions = versions(a, b);
+        int base = slot(key);
+        long[] s = slots;
+        s[base] = key;
+        s[base + 1] = versions;
+        s[base + 2] = value;
+        s[base + 3] = check(key, versions, value, salt);
+    }
+
+    /**
+     * 启动以来的命中率（没有查询时为 0）
+     */
+    public double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    private static long key(UserFeatureVector a, UserFeatureVector b) {
+        int lo = Math.min(a.userId(), b.userId());
+        int hi = Math.max(a.userId(), b.userId());
+        return ((long) lo << 32) | (hi & 0xffffffffL);
+    }
+
+    private static long versions(UserFeatureVector a, UserFeatureVector b) {
+        UserFeatureVector lo = a.userId() <= b.userId() ? a : b;
+        UserFeatureVector hi = lo == a ? b : a;
+        return ((long) lo.version() << 32) | (hi.version() & 0xffffffffL);
+    }
+
+    private int slot(long key) {
+        return (int) (mix(key) & mask) * STRIDE;
+    }
+
+    private static long check(long key, long versions, long value, int salt) {
+        return mix(key ^ mix(versions ^ mix(value ^ salt)));
+    }
+
+    /**
+     * SplitMix64 的终结函数
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,404 @@
+package com.linkme.backend.match;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 匹配打分器
+ *
+ * 基于 UserFeatureVector 计算 viewer 对 candidate 的匹配度（0~100），
+ * 爱好 / 关系品质重合用位图 AND + popcount，全程不访问数据库。
+ *
+ * 分两步：computeFacts 求出一对用户的中间结果（MatchFacts），
+ * 再由当前版本的 MatchScoringPipeline 按权重累加（权重见 MatchScoringRegistry）。
+ *
+ * 默认权重：
+ * - 基础分 80
+ * - 年龄不在偏好范围内：-10
+ * - 同城优先且不同地区：-5；双方都有经纬度时改为按实际距离分档，每超过一档边界 -1
+ *   （默认边界 5/10/25/50/100km，即 100km 以外 -5）
+ * - 爱好重合：运动户外类 +2，其余 +1
+ * - 关系品质重合 +2/项（最多 +6），关系模式一致 +5，沟通期待一致 +3
+ * - 性格特质：self-self 一致 +1/项，ideal-self 命中 +2/项（查 PersonalityCompatibilityMatrix，按选项ID）
+ * - 协同过滤亲和度（CollaborativeFilteringJob 离线计算，0~100）：按比例最多 +5
+ * - 问卷向量相似度（QuestionnaireEmbeddingIndex 的余弦，0~100）：按比例最多 +5
+ * - must 维度不满足 -10，priority 维度满足按 3/2/1 加权
+ *
+ * 开启硬过滤时，年龄 / 距离 / 关系模式三个可索引的 must 维度改为过滤条件（见 passesHardFilters），
+ * 其余 must 维度仍按扣分处理。
+ *
+ * 同城判断：双方都有经纬度时按距离（不超过 same-city-radius-km），否则按地区编码是否相同。
+ *
+ * 中间结果中与视角无关的部分（重合数、一致项、问卷相似度、双向年龄 / 距离判断）由 symmetricFacts 打包为一个 long，
+ * scoreCached 经 MatchPairCache 复用，viewer 相关的部分每次现算。
+ *
+ * @author riki
+ * @version 1.7
+ */
+@Component
+public class MatchScorer {
+
+    // symmetricFacts 的位布局：低 40 位为 5 个 8 位计数，40~45 位为标志位，48~55 位为问卷相似度，最高位恒为 0
+    private static final int SYM_HOBBY_SHIFT = 0;
+    private static final int SYM_SPORT_HOBBY_SHIFT = 8;
+    private static final int SYM_QUALITY_SHIFT = 16;
+    private static final int SYM_SELF_TRAIT_SHIFT = 24;
+    private static final int SYM_DISTANCE_BAND_SHIFT = 32;
+    private static final int SYM_EMBEDDING_SHIFT = 48;
+    /** 距离分档字段的取值：至少一方没有经纬度 */
+    private static final int SYM_NO_DISTANCE = 0xff;
+    private static final long SYM_RELATIONSHIP_MODE = 1L << 40;
+    private static final long SYM_COMMUNICATION_EXPECTATION = 1L << 41;
+    private static final long SYM_COMMUNICATION_STYLE = 1L << 42;
+    private static final long SYM_AGE_MUTUAL = 1L << 43;
+    private static final long SYM_SAME_CITY = 1L << 44;
+    private static final long SYM_REGION_MISMATCH = 1L << 45;
+
+    @Autowired
+    private MatchFeatureStore matchFeatureStore;
+
+    @Autowired
+    private MatchScoringRegistry matchScoringRegistry;
+
+    @Autowired
+    private CollaborativeFilteringJob collaborativeFilteringJob;
+
+    @Autowired
+    private MatchPairCache matchPairCache;
+
+    @Value("${linkme.match.geo.distance-bands-km:5,10,25,50,100}")
+    private String distanceBandsKm;
+
+    private double[] distanceBands;
+
+    @PostConstruct
+    public void init() {
+        String[] parts = distanceBandsKm.split(",");
+        double[] bands = new double[parts.length];
+        int n = 0;
+        for (String part : parts) {
+            if (!part.isBlank()) {
+                bands[n++] = Double.parseDouble(part.trim());
+            }
+        }
+        distanceBands = Arrays.copyOf(bands, n);
+        Arrays.sort(distanceBands);
+    }
+
+    /**
+     * 当前生效的打分流水线（扫描时每次请求取一次）
+     */
+    public MatchScoringPipeline pipeline() {
+        return matchScoringRegistry.current();
+    }
+
+    /**
+     * 计算 viewer 对 candidate 的匹配度（使用当前流水线与对称打分缓存）
+     *
+     * @param viewer 当前用户特征
+     * @param candidate 候选用户特征
+     * @param todayYmd 今天的 yyyyMMdd（同一次请求内复用）
+     * @return 匹配度（0~100）
+     */
+    public int score(UserFeatureVector viewer, UserFeatureVector candidate, int todayYmd) {
+        return scoreCached(pipeline(), viewer, candidate, todayYmd, new MatchFacts());
+    }
+
+    /**
+     * 计算 viewer 对 candidate 的匹配度（扫描热路径，不分配对象，不查缓存）
+     *
+     * 全量扫描每次遍历的用户对数远大于缓存容量，命中率接近 0，查缓存只会增加访存并挤掉有用的项。
+     *
+     * @param pipeline 打分流水线
+     * @param viewer 当前用户特征
+     * @param candidate 候选用户特征
+     * @param todayYmd 今天的 yyyyMMdd
+     * @param facts 复用的中间结果对象
+     * @return 匹配度（0~100）
+     */
+    public int score(MatchScoringPipeline pipeline, UserFeatureVector viewer, UserFeatureVector candidate,
+                     int todayYmd, MatchFacts facts) {
+        computeFacts(viewer, candidate, todayYmd, partialFacts(viewer, candidate, todayYmd), facts);
+        return pipeline.score(viewer, facts);
+    }
+
+    /**
+     * 计算 viewer 对 candidate 的匹配度，对称部分经 MatchPairCache 读写
+     *
+     * 用于同一批用户对会被反复打分的场景（窗口模式的逐页请求、单对查询）。
+     *
+     * @param pipeline 打分流水线
+     * @param viewer 当前用户特征
+     * @param candidate 候选用户特征
+     * @param todayYmd 今天的 yyyyMMdd
+     * @param facts 复用的中间结果对象
+     * @return 匹配度（0~100）
+     */
+    public int scoreCached(MatchScoringPipeline pipeline, UserFeatureVector viewer, UserFeatureVector candidate,
+                           int todayYmd, MatchFacts facts) {
+        long symmetric;
+        if (matchPairCache.isEnabled()) {
+            symmetric = matchPairCache.get(viewer, candidate, todayYmd);
+            if (symmetric == MatchPairCache.MISS) {
+                symmetric = symmetricFacts(viewer, candidate, todayYmd, true, true);
+                matchPairCache.put(viewer, candidate, todayYmd, symmetric);
+            }
+        } else {
+            symmetric = partialFacts(viewer, candidate, todayYmd);
+        }
+        computeFacts(viewer, candidate, todayYmd, symmetric, facts);
+        return pipeline.score(viewer, facts);
+    }
+
+    /**
+     * 不写缓存时只求 viewer 用得到的对称部分：距离只在一方要求同城时计算，双向年龄只在有 must / priority 维度时计算
+     */
+    private long partialFacts(UserFeatureVector viewer, UserFeatureVector candidate, int todayYmd) {
+        boolean needMask = viewer.mustMask() != 0 || viewer.priorityDimensions().length != 0;
+        boolean needDistance = viewer.distancePreference() == UserFeatureVector.DISTANCE_SAME_CITY
+                || (needMask && candidate.distancePreference() == UserFeatureVector.DISTANCE_SAME_CITY);
+        return symmetricFacts(viewer, candidate, todayYmd, needDistance, needMask);
+    }
+
+    /**
+     * 求一对用户的打分中间结果：在对称部分之上补齐 viewer 相关的部分
+     */
+    private void computeFacts(UserFeatureVector viewer, UserFeatureVector candidate, int todayYmd,
+                              long symmetric, MatchFacts f) {
+        int candidateAge = candidate.ageAt(todayYmd);
+
+        // 年龄范围（按当前用户的交友年龄要求）
+        f.ageOutOfRange = candidateAge >= 0 && viewer.ageUnlimited() == UserFeatureVector.TRI_FALSE
+                && viewer.ageMin() >= 0 && viewer.ageMax() >= 0
+                && (candidateAge < viewer.ageMin() || candidateAge > viewer.ageMax());
+
+        // 距离偏好（同城优先：双方都有经纬度时按距离分档扣分，否则不同地区扣分）
+        boolean viewerSameCity = viewer.distancePreference() == UserFeatureVector.DISTANCE_SAME_CITY;
+        int band = (int) (symmetric >>> SYM_DISTANCE_BAND_SHIFT) & 0xff;
+        if (viewerSameCity && band != SYM_NO_DISTANCE) {
+            f.sameCityMismatch = false;
+            f.distanceBand = band;
+        } else {
+            f.sameCityMismatch = viewerSameCity && (symmetric & SYM_REGION_MISMATCH) != 0;
+            f.distanceBand = 0;
+        }
+
+        f.hobbyOverlap = (int) (symmetric >>> SYM_HOBBY_SHIFT) & 0xff;
+        f.sportHobbyOverlap = (int) (symmetric >>> SYM_SPORT_HOBBY_SHIFT) & 0xff;
+        f.qualityOverlap = (int) (symmetric >>> SYM_QUALITY_SHIFT) & 0xff;
+        f.relationshipModeMatched = (symmetric & SYM_RELATIONSHIP_MODE) != 0;
+        f.communicationExpectationMatched = (symmetric & SYM_COMMUNICATION_EXPECTATION) != 0;
+        f.selfTraitOverlap = (int) (symmetric >>> SYM_SELF_TRAIT_SHIFT) & 0xff;
+        f.communicationStyleMatched = (symmetric & SYM_COMMUNICATION_STYLE) != 0;
+        f.embeddingSimilarity = (int) (symmetric >>> SYM_EMBEDDING_SHIFT) & 0xff;
+
+        // ideal-self 命中依赖运行时的特质矩阵（字典可能在启动后才加载成功），不进缓存
+        f.idealTraitHits = idealToSelfHits(viewer, candidate) + idealToSelfHits(candidate, viewer);
+
+        // 协同过滤：与 viewer 有过互动的用户相似的人
+        f.collaborativeAffinity = collaborativeFilteringJob.table().affinity(viewer.userId(), candidate.userId());
+
+        // 维度满足情况只在 must / priority 维度中使用
+        if (viewer.mustMask() == 0 && viewer.priorityDimensions().length == 0) {
+            f.satisfiedMask = 0;
+            return;
+        }
+        int mask = 0;
+        if ((symmetric & SYM_AGE_MUTUAL) != 0) {
+            mask |= MatchDimension.AGE_RANGE.bit();
+        }
+        boolean sameCityRequired = viewerSameCity
+                || candidate.distancePreference() == UserFeatureVector.DISTANCE_SAME_CITY;
+        if (!sameCityRequired || (symmetric & SYM_SAME_CITY) != 0) {
+            mask |= MatchDimension.DISTANCE.bit();
+        }
+        if (f.hobbyOverlap > 0) {
+            mask |= MatchDimension.INTEREST_OVERLAP.bit();
+        }
+        if (f.selfTraitOverlap + f.idealTraitHits > 0) {
+            mask |= MatchDimension.PERSONALITY_MATCH.bit();
+        }
+        if (f.relationshipModeMatched) {
+            mask |= MatchDimension.RELATIONSHIP_MODE.bit();
+        }
+        if (f.communicationStyleMatched) {
+            mask |= MatchDimension.COMMUNICATION_STYLE.bit();
+        }
+        f.satisfiedMask = mask;
+    }
+
+    /**
+     * 一对用户与视角无关的中间结果，打包为非负 long（位布局见 SYM_* 常量），a、b 交换结果相同
+     *
+     * @param distance 是否计算距离相关的位（否则距离分档记为 SYM_NO_DISTANCE，同城位为 0）
+     * @param mutual   是否计算双向年龄要求（否则 SYM_AGE_MUTUAL 为 0）
+     */
+    long symmetricFacts(UserFeatureVector a, UserFeatureVector b, int todayYmd, boolean distance, boolean mutual) {
+        long packed = 0;
+
+        // 距离：双方都有经纬度时记录分档，否则记录地区是否不同
+        if (!distance) {
+            packed |= (long) SYM_NO_DISTANCE << SYM_DISTANCE_BAND_SHIFT;
+        } else if (a.hasLocation() && b.hasLocation()) {
+            double km = distanceKm(a, b);
+            packed |= (long) Math.min(distanceBand(km), SYM_NO_DISTANCE - 1) << SYM_DISTANCE_BAND_SHIFT;
+            if (km <= matchFeatureStore.sameCityRadiusKm()) {
+                packed |= SYM_SAME_CITY;
+            }
+        } else {
+            packed |= (long) SYM_NO_DISTANCE << SYM_DISTANCE_BAND_SHIFT;
+            if (a.regionCode() != 0 && a.regionCode() == b.regionCode()) {
+                packed |= SYM_SAME_CITY;
+            }
+            if (a.regionCode() != 0 && b.regionCode() != 0 && a.regionCode() != b.regionCode()) {
+                packed |= SYM_REGION_MISMATCH;
+            }
+        }
+
+        // 爱好重合（运动户外类额外计分，sportHobbyBits 是 hobbyBits 的子集，因此与顺序无关）
+        int hobbyOverlap = UserFeatureVector.andCount(a.hobbyBits(), b.hobbyBits());
+        int sportHobbyOverlap = hobbyOverlap > 0 ? UserFeatureVector.andCount(a.hobbyBits(), b.sportHobbyBits()) : 0;
+        packed |= (long) Math.min(hobbyOverlap, 0xff) << SYM_HOBBY_SHIFT;
+        packed |= (long) Math.min(sportHobbyOverlap, 0xff) << SYM_SPORT_HOBBY_SHIFT;
+
+        // 关系品质（多选）交集
+        packed |= (long) Math.min(UserFeatureVector.andCount(a.qualityBits(), b.qualityBits()), 0xff) << SYM_QUALITY_SHIFT;
+
+        // 关系模式 / 沟通期待一致
+        boolean bothHavePreference = a.hasPreference() && b.hasPreference();
+        if (bothHavePreference && a.relationshipModeId() != 0 && a.relationshipModeId() == b.relationshipModeId()) {
+            packed |= SYM_RELATIONSHIP_MODE;
+        }
+        if (bothHavePreference && a.communicationExpectationId() != 0
+                && a.communicationExpectationId() == b.communicationExpectationId()) {
+            packed |= SYM_COMMUNICATION_EXPECTATION;
+        }
+
+        // 性格特质 self-self 一致、沟通风格一致
+        int selfTraitOverlap = UserFeatureVector.intersectCount(a.selfTraitOptionIds(), b.selfTraitOptionIds());
+        packed |= (long) Math.min(selfTraitOverlap, 0xff) << SYM_SELF_TRAIT_SHIFT;
+        if (a.selfCommunicationOption() != 0 && a.selfCommunicationOption() == b.selfCommunicationOption()) {
+            packed |= SYM_COMMUNICATION_STYLE;
+        }
+
+        // 问卷向量相似度
+        packed |= (long) matchFeatureStore.embeddings().similarity(a.userId(), b.userId()) << SYM_EMBEDDING_SHIFT;
+
+        // 年龄要求双向满足（只在 must / priority 维度中使用）
+        if (mutual && isAgeSatisfiedOneWay(b.ageAt(todayYmd), a) && isAgeSatisfiedOneWay(a.ageAt(todayYmd), b)) {
+            packed |= SYM_AGE_MUTUAL;
+        }
+        return packed;
+    }
+
+    /**
+     * must 维度硬过滤：viewer 要求的年龄 / 距离 / 关系模式必须满足（与 score 中的扣分判断一致）
+     *
+     * 关系模式要求在 viewer 自己未选择关系模式时无法满足任何人，此时不作为过滤条件。
+     *
+     * @param viewer 当前用户特征
+     * @param candidate 候选用户特征
+     * @param todayYmd 今天的 yyyyMMdd
+     * @return 是否通过
+     */
+    public boolean passesHardFilters(UserFeatureVector viewer, UserFeatureVector candidate, int todayYmd) {
+        if (viewer.mustMask() == 0) {
+            return true;
+        }
+        if (viewer.hasMust(MatchDimension.AGE_RANGE)
+                && !(isAgeSatisfiedOneWay(candidate.ageAt(todayYmd), viewer)
+                && isAgeSatisfiedOneWay(viewer.ageAt(todayYmd), candidate))) {
+            return false;
+        }
+        if (viewer.hasMust(MatchDimension.DISTANCE) && !isDistanceSatisfied(viewer, candidate)) {
+            return false;
+        }
+        if (viewer.hasMust(MatchDimension.RELATIONSHIP_MODE)
+                && viewer.hasPreference() && viewer.relationshipModeId() != 0
+                && !(candidate.hasPreference() && viewer.relationshipModeId() == candidate.relationshipModeId())) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * ideal 一方对 self 一方的理想特质命中数
+     */
+    private int idealToSelfHits(UserFeatureVector ideal, UserFeatureVector self) {
+        if (ideal.idealTraitOptionIds().length == 0 || self.selfTraitOptionIds().length == 0) {
+            return 0;
+        }
+
+        PersonalityCompatibilityMatrix matrix = matchFeatureStore.traitMatrix();
+        int hits = 0;
+
+        // 希望对方的社交风格 -> 社交能量来源
+        if (matrix.socialMatches(ideal.idealSocialOption(), self.selfEnergyOption())) {
+            hits++;
+        }
+
+        // 希望对方的处事风格 -> 决策方式/生活节奏（近似映射）
+        if (matrix.actionMatches(ideal.idealActionOption(), self.selfDecisionOption(), self.selfPaceOption())) {
+            hits++;
+        }
+
+        // 希望对方的情绪特质：当前问卷未提供对应 self 维度，暂不计分
+        return hits;
+    }
+
+    private boolean isAgeSatisfiedOneWay(int targetAge, UserFeatureVector preference) {
+        if (!preference.hasPreference()) {
+            return true;
+        }
+        if (preference.ageUnlimited() == UserFeatureVector.TRI_TRUE) {
+            return true;
+        }
+        if (targetAge < 0) {
+            return false;
+        }
+        if (preference.ageMin() < 0 || preference.ageMax() < 0) {
+            return true;
+        }
+        return targetAge >= preference.ageMin() && targetAge <= preference.ageMax();
+    }
+
+    /**
+     * 双方的同城要求都满足（要求同城的一方需要与对方同城）
+     */
+    private boolean isDistanceSatisfied(UserFeatureVector a, UserFeatureVector b) {
+        if (a.distancePreference() != UserFeatureVector.DISTANCE_SAME_CITY
+                && b.distancePreference() != UserFeatureVector.DISTANCE_SAME_CITY) {
+            return true;
+        }
+        return isSameCity(a, b);
+    }
+
+    /**
+     * 同城：双方都有经纬度时按距离判断，否则按地区编码判断（任一方地区未知时不算同城）
+     */
+    private boolean isSameCity(UserFeatureVector a, UserFeatureVector b) {
+        if (a.hasLocation() && b.hasLocation()) {
+            return distanceKm(a, b) <= matchFeatureStore.sameCityRadiusKm();
+        }
+        return a.regionCode() != 0 && a.regionCode() == b.regionCode();
+    }
+
+    private static double distanceKm(UserFeatureVector a, UserFeatureVector b) {
+        return GeoGridIndex.distanceKm(a.latitude(), a.longitude(), b.latitude(), b.longitude());
+    }
+
+    /**
+     * 距离超过的分档边界数
+     */
+    private int distanceBand(double km) {
+        int band = 0;
+        while (band < distanceBands.length && km > distanceBands[band]) {
+            band++;
+        }
+        return band;
+    }
+}
@@ -0,0 +1,132 @@
+package com.linkme.backend.match;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 编译后的打分流水线
+ *
+ * 由 MatchScoringWeights 一次性编译为两段规则数组（权重为 0 的规则直接省略）：
+ * - 第一段：年龄 / 同城 / 距离分档扣分、爱好加分，结束后截断到 0~100
+ * - 第二段：关系品质 / 关系模式 / 沟通期待 / 性格特质 / 协同过滤 / 问卷相似度加分
+ * 之后按 viewer 的 must 位掩码扣分、按 priority 权重加分，最终截断到 0~100。
+ * 不可变，可被多个线程共享；权重变化时整体替换为新版本。
+ *
+ * @author riki
+ * @version 1.3
+ */
+public final class MatchScoringPipeline {
+
+    private final long version;
+
+    private final MatchScoringWeights weights;
+
+    private final MatchScoringRule[] baseRules;
+
+    private final MatchScoringRule[] bonusRules;
+
+    private final int mustPenalty;
+
+    private MatchScoringPipeline(long version, MatchScoringWeights weights,
+                                 MatchScoringRule[] baseRules, MatchScoringRule[] bonusRules) {
+        this.version = version;
+        this.weights = weights;
+        this.baseRules = baseRules;
+        this.bonusRules = bonusRules;
+        this.mustPenalty = weights.mustNotSatisfiedPenalty();
+    }
+
+    /**
+     * 按权重编译流水线
+     *
+     * @param version 版本号（权重每变化一次加一）
+     * @param w       权重
+     * @return 流水线
+     */
+    public static MatchScoringPipeline compile(long version, MatchScoringWeights w) {
+        List<MatchScoringRule> base = new ArrayList<>();
+        if (w.ageOutOfRangePenalty() != 0) {
+            base.add(new MatchScoringRule(MatchScoringRule.AGE_OUT_OF_RANGE, w.ageOutOfRangePenalty(), 0));
+        }
+        if (w.sameCityPenalty() != 0) {
+            base.add(new MatchScoringRule(MatchScoringRule.SAME_CITY_MISMATCH, w.sameCityPenalty(), 0));
+        }
+        if (w.distanceBandPenalty() != 0) {
+            base.add(new MatchScoringRule(MatchScoringRule.DISTANCE_BAND, w.distanceBandPenalty(), 0));
+        }
+        if (w.hobbyBonusPerItem() != 0 || w.sportHobbyExtraBonus() != 0) {
+            base.add(new MatchScoringRule(MatchScoringRule.HOBBY_OVERLAP,
+                    w.hobbyBonusPerItem(), w.sportHobbyExtraBonus()));
+        }
+
+        List<MatchScoringRule> bonus = new ArrayList<>();
+        if (w.relationshipQualityBonusPerItem() != 0 && w.relationshipQualityBonusMax() != 0) {
+            bonus.add(new MatchScoringRule(MatchScoringRule.RELATIONSHIP_QUALITY,
+                    w.relationshipQualityBonusPerItem(), w.relationshipQualityBonusMax()));
+        }
+        if (w.relationshipModeMatchBonus() != 0) {
+            bonus.add(new MatchScoringRule(MatchScoringRule.RELATIONSHIP_MODE, w.relationshipModeMatchBonus(), 0));
+        }
+        if (w.communicationExpectationMatchBonus() != 0) {
+            bonus.add(new MatchScoringRule(MatchScoringRule.COMMUNICATION_EXPECTATION,
+                    w.communicationExpectationMatchBonus(), 0));
+        }
+        if (w.personalitySelfBonusPerItem() != 0 || w.personalityIdealBonusPerItem() != 0) {
+            bonus.add(new MatchScoringRule(MatchScoringRule.PERSONALITY,
+                    w.personalitySelfBonusPerItem(), w.personalityIdealBonusPerItem()));
+        }
+        if (w.collaborativeBonusMax() != 0) {
+            bonus.add(new MatchScoringRule(MatchScoringRule.COLLABORATIVE, w.collaborativeBonusMax(), 0));
+        }
+        if (w.embeddingBonusMax() != 0) {
+            bonus.add(new MatchScoringRule(MatchScoringRule.EMBEDDING_SIMILARITY, w.embeddingBonusMax(), 0));
+        }
+
+        return new MatchScoringPipeline(version, w,
+                base.toArray(new MatchScoringRule[0]), bonus.toArray(new MatchScoringRule[0]));
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public MatchScoringWeights weights() {
+        return weights;
+    }
+
+    /**
+     * 计算匹配度
+     *
+     * @param viewer 当前用户特征（提供 must 位掩码与 priority 权重）
+     * @param facts  已填充的中间结果
+     * @return 匹配度（0~100）
+     */
+    public int score(UserFeatureVector viewer, MatchFacts facts) {
+        int score = weights.baseScore();
+        for (MatchScoringRule rule : baseRules) {
+            score += rule.delta(facts);
+        }
+        score = clamp(score);
+        for (MatchScoringRule rule : bonusRules) {
+            score += rule.delta(facts);
+        }
+
+        int satisfied = facts.satisfiedMask;
+        if (mustPenalty != 0) {
+            score -= Integer.bitCount(viewer.mustMask() & ~satisfied) * mustPenalty;
+        }
+
+        byte[] priorityDimensions = viewer.priorityDimensions();
+        byte[] priorityWeights = viewer.priorityWeights();
+        for (int i = 0; i < priorityDimensions.length; i++) {
+            if ((satisfied & (1 << priorityDimensions[i])) != 0) {
+                score += priorityWeights[i];
+            }
+        }
+        return clamp(score);
+    }
+
+    private static int clamp(int v) {
+        return v < 0 ? 0 : Math.min(v, 100);
+    }
+}
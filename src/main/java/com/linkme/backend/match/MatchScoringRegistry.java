@@ -0,0 +1,135 @@
+package com.linkme.backend.match;
+
+import com.linkme.backend.entity.MatchScoringWeight;
+import com.linkme.backend.mapper.MatchScoringWeightMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 当前生效的打分流水线
+ *
+ * - 启动时用 application.yml 中的默认权重编译第一版
+ * - 每 reload-interval-ms 读取 match_scoring_weight 表，权重变化时编译新版本并整体替换
+ * - 扫描时每次请求取一次 current()，同一次请求内权重不会变化
+ *
+ * @author riki
+ * @version 1.3
+ */
+@Component
+public class MatchScoringRegistry {
+
+    @Autowired
+    private MatchScoringWeightMapper matchScoringWeightMapper;
+
+    @Value("${linkme.match.scoring.base-score:80}")
+    private int baseScore;
+
+    @Value("${linkme.match.scoring.age-out-of-range-penalty:10}")
+    private int ageOutOfRangePenalty;
+
+    @Value("${linkme.match.scoring.same-city-penalty:5}")
+    private int sameCityPenalty;
+
+    @Value("${linkme.match.scoring.hobby-bonus-per-item:1}")
+    private int hobbyBonusPerItem;
+
+    @Value("${linkme.match.scoring.sport-hobby-extra-bonus:1}")
+    private int sportHobbyExtraBonus;
+
+    @Value("${linkme.match.scoring.relationship-quality-bonus-per-item:2}")
+    private int relationshipQualityBonusPerItem;
+
+    @Value("${linkme.match.scoring.relationship-quality-bonus-max:6}")
+    private int relationshipQualityBonusMax;
+
+    @Value("${linkme.match.scoring.relationship-mode-match-bonus:5}")
+    private int relationshipModeMatchBonus;
+
+    @Value("${linkme.match.scoring.communication-expectation-match-bonus:3}")
+    private int communicationExpectationMatchBonus;
+
+    @Value("${linkme.match.scoring.personality-self-bonus-per-item:1}")
+    private int personalitySelfBonusPerItem;
+
+    @Value("${linkme.match.scoring.personality-ideal-bonus-per-item:2}")
+    private int personalityIdealBonusPerItem;
+
+    @Value("${linkme.match.scoring.must-not-satisfied-penalty:10}")
+    private int mustNotSatisfiedPenalty;
+
+    @Value("${linkme.match.scoring.distance-band-penalty:1}")
+    private int distanceBandPenalty;
+
+    @Value("${linkme.match.scoring.collaborative-bonus-max:5}")
+    private int collaborativeBonusMax;
+
+    @Value("${linkme.match.scoring.embedding-bonus-max:5}")
+    private int embeddingBonusMax;
+
+    private MatchScoringWeights defaults;
+
+    private volatile MatchScoringPipeline current;
+
+    private volatile boolean reloadFailureLogged;
+
+    @PostConstruct
+    public void init() {
+        defaults = new MatchScoringWeights(baseScore, ageOutOfRangePenalty, sameCityPenalty,
+                hobbyBonusPerItem, sportHobbyExtraBonus,
+                relationshipQualityBonusPerItem, relationshipQualityBonusMax,
+                relationshipModeMatchBonus, communicationExpectationMatchBonus,
+                personalitySelfBonusPerItem, personalityIdealBonusPerItem, mustNotSatisfiedPenalty,
+                distanceBandPenalty, collaborativeBonusMax, embeddingBonusMax);
+        current = MatchScoringPipeline.compile(1, defaults);
+    }
+
+    /**
+     * 当前生效的流水线
+     */
+    public MatchScoringPipeline current() {
+        return current;
+    }
+
+    /**
+     * 重新读取权重表，权重变化时编译新版本
+     */
+    @Scheduled(fixedDelayString = "${linkme.match.scoring.reload-interval-ms:30000}",
+            initialDelayString = "${linkme.match.scoring.reload-interval-ms:30000}")
+    public void reload() {
+        List<MatchScoringWeight> rows;
+        try {
+            rows = matchScoringWeightMapper.selectAll();
+            reloadFailureLogged = false;
+        } catch (Exception e) {
+            // 表不存在（未执行迁移）或数据库不可用时保持当前权重，只记录一次
+            if (!reloadFailureLogged) {
+                reloadFailureLogged = true;
+                System.err.println("读取匹配打分权重失败，继续使用当前权重: " + e.getMessage());
+            }
+            return;
+        }
+
+        Map<String, Integer> overrides = new HashMap<>();
+        if (rows != null) {
+            for (MatchScoringWeight row : rows) {
+                if (row != null && row.getWeightKey() != null && row.getWeightValue() != null) {
+                    overrides.put(row.getWeightKey().trim(), row.getWeightValue());
+                }
+            }
+        }
+
+        MatchScoringWeights weights = defaults.withOverrides(overrides);
+        MatchScoringPipeline pipeline = current;
+        if (!weights.equals(pipeline.weights())) {
+            current = MatchScoringPipeline.compile(pipeline.version() + 1, weights);
+            System.out.println("匹配打分权重已更新: version=" + (pipeline.version() + 1) + ", " + weights);
+        }
+    }
+}
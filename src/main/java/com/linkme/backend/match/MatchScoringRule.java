@@ -0,0 +1,65 @@
+package com.linkme.backend.match;
+
+/**
+ * 打分规则：根据中间结果给出加减分
+ *
+ * 规则在 MatchScoringPipeline 编译时创建，类型与权重都已固化在规则对象中。
+ * 用单一 final 类 + 整型类型分支而不是接口多实现，热路径上的调用点保持单态，可被 JIT 内联。
+ *
+ * @author riki
+ * @version 1.3
+ */
+public final class MatchScoringRule {
+
+    static final int AGE_OUT_OF_RANGE = 0;
+    static final int SAME_CITY_MISMATCH = 1;
+    static final int HOBBY_OVERLAP = 2;
+    static final int RELATIONSHIP_QUALITY = 3;
+    static final int RELATIONSHIP_MODE = 4;
+    static final int COMMUNICATION_EXPECTATION = 5;
+    static final int PERSONALITY = 6;
+    static final int DISTANCE_BAND = 7;
+    static final int COLLABORATIVE = 8;
+    static final int EMBEDDING_SIMILARITY = 9;
+
+    private static final String[] KIND_NAMES = {"AGE_OUT_OF_RANGE", "SAME_CITY_MISMATCH", "HOBBY_OVERLAP",
+            "RELATIONSHIP_QUALITY", "RELATIONSHIP_MODE", "COMMUNICATION_EXPECTATION", "PERSONALITY", "DISTANCE_BAND",
+            "COLLABORATIVE", "EMBEDDING_SIMILARITY"};
+
+    private final int kind;
+
+    private final int weight;
+
+    private final int secondaryWeight;
+
+    MatchScoringRule(int kind, int weight, int secondaryWeight) {
+        this.kind = kind;
+        this.weight = weight;
+        this.secondaryWeight = secondaryWeight;
+    }
+
+    /**
+     * @param f 一对用户的打分中间结果
+     * @return 分数增量（扣分为负数）
+     */
+    int delta(MatchFacts f) {
+        return switch (kind) {
+            case AGE_OUT_OF_RANGE -> f.ageOutOfRange ? -weight : 0;
+            case SAME_CITY_MISMATCH -> f.sameCityMismatch ? -weight : 0;
+            case HOBBY_OVERLAP -> f.hobbyOverlap * weight + f.sportHobbyOverlap * secondaryWeight;
+            case RELATIONSHIP_QUALITY -> Math.min(f.qualityOverlap * weight, secondaryWeight);
+            case RELATIONSHIP_MODE -> f.relationshipModeMatched ? weight : 0;
+            case COMMUNICATION_EXPECTATION -> f.communicationExpectationMatched ? weight : 0;
+            case PERSONALITY -> f.selfTraitOverlap * weight + f.idealTraitHits * secondaryWeight;
+            case DISTANCE_BAND -> -f.distanceBand * weight;
+            case COLLABORATIVE -> f.collaborativeAffinity * weight / 100;
+            case EMBEDDING_SIMILARITY -> f.embeddingSimilarity * weight / 100;
+            default -> 0;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return KIND_NAMES[kind] + "(" + weight + (secondaryWeight != 0 ? ", " + secondaryWeight : "") + ")";
+    }
+}
@@ -0,0 +1,57 @@
+package com.linkme.backend.match;
+
+import java.util.Map;
+
+/**
+ * 匹配打分权重
+ *
+ * 默认值来自 application.yml（linkme.match.scoring.*），
+ * 运行时可被 match_scoring_weight 表中的同名键覆盖（见 MatchScoringRegistry）。
+ *
+ * @author riki
+ * @version 1.3
+ */
+public record MatchScoringWeights(int baseScore,
+                                  int ageOutOfRangePenalty,
+                                  int sameCityPenalty,
+                                  int hobbyBonusPerItem,
+                                  int sportHobbyExtraBonus,
+                                  int relationshipQualityBonusPerItem,
+                                  int relationshipQualityBonusMax,
+                                  int relationshipModeMatchBonus,
+                                  int communicationExpectationMatchBonus,
+                                  int personalitySelfBonusPerItem,
+                                  int personalityIdealBonusPerItem,
+                                  int mustNotSatisfiedPenalty,
+                                  int distanceBandPenalty,
+                                  int collaborativeBonusMax,
+                                  int embeddingBonusMax) {
+
+    /**
+     * 用表中的键值覆盖部分权重，未知的键忽略
+     *
+     * @param overrides 权重键（与配置项同名，如 base-score）到权重值
+     * @return 新的权重
+     */
+    public MatchScoringWeights withOverrides(Map<String, Integer> overrides) {
+        if (overrides == null || overrides.isEmpty()) {
+            return this;
+        }
+        return new MatchScoringWeights(
+                overrides.getOrDefault("base-score", baseScore),
+                overrides.getOrDefault("age-out-of-range-penalty", ageOutOfRangePenalty),
+                overrides.getOrDefault("same-city-penalty", sameCityPenalty),
+                overrides.getOrDefault("hobby-bonus-per-item", hobbyBonusPerItem),
+                overrides.getOrDefault("sport-hobby-extra-bonus", sportHobbyExtraBonus),
+                overrides.getOrDefault("relationship-quality-bonus-per-item", relationshipQualityBonusPerItem),
+                overrides.getOrDefault("relationship-quality-bonus-max", relationshipQualityBonusMax),
+                overrides.getOrDefault("relationship-mode-match-bonus", relationshipModeMatchBonus),
+                overrides.getOrDefault("communication-expectation-match-bonus", communicationExpectationMatchBonus),
+                overrides.getOrDefault("personality-self-bonus-per-item", personalitySelfBonusPerItem),
+                overrides.getOrDefault("personality-ideal-bonus-per-item", personalityIdealBonusPerItem),
+                overrides.getOrDefault("must-not-satisfied-penalty", mustNotSatisfiedPenalty),
+                overrides.getOrDefault("distance-band-penalty", distanceBandPenalty),
+                overrides.getOrDefault("collaborative-bonus-max", collaborativeBonusMax),
+                overrides.getOrDefault("embedding-bonus-max", embeddingBonusMax));
+    }
+}
@@ -0,0 +1,261 @@
+package com.linkme.backend.match;
+
+import com.linkme.backend.entity.User;
+import com.linkme.backend.mapper.UserMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 推荐快照与游标分页
+ *
+ * 第一页请求时把完整排序结果固定为一份快照，返回不透明游标；后续翻页只按游标截取快照，
+ * 顺序在快照有效期内保持不变，不会因为后台刷新而出现重复或遗漏。
+ * 每返回一页后异步预取下一页的用户资料，翻页时直接使用。
+ *
+ * 游标格式：Base64URL("{snapshotId}:{offset}")，快照只允许创建者读取，页大小以首页为准。
+ * 快照数达到 max-snapshots 时先清理过期快照，仍然已满则淘汰最早到期的快照，新快照总能保存，
+ * 发出的游标在有效期内可用（除非被更新的快照挤出）。
+ *
+ * @author riki
+ * @version 1.1
+ */
+@Component
+public class MatchSnapshotStore {
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Value("${linkme.match.snapshot.ttl-seconds:900}")
+    private long ttlSeconds;
+
+    @Value("${linkme.match.snapshot.max-snapshots:10000}")
+    private int maxSnapshots;
+
+    @Value("${linkme.match.snapshot.prefetch-threads:2}")
+    private int prefetchThreads;
+
+    private final ConcurrentHashMap<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    private final SecureRandom random = new SecureRandom();
+
+    private ThreadPoolExecutor prefetchExecutor;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger seq = new AtomicInteger();
+        int threads = Math.max(prefetchThreads, 1);
+        prefetchExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(256), r -> {
+            Thread t = new Thread(r, "match-prefetch-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * 为用户创建快照
+     *
+     * @param userId   用户ID
+     * @param ranked   TopKHeap 编码的有序结果
+     * @param pageSize 页大小（后续翻页沿用）
+     * @return 快照
+     */
+    public Snapshot create(int userId, long[] ranked, int pageSize) {
+        if (snapshots.size() >= maxSnapshots) {
+            purgeExpired();
+            while (snapshots.size() >= Math.max(maxSnapshots, 1) && evictSoonestExpiring()) {
+                // 淘汰直到有空位
+            }
+        }
+        byte[] idBytes = new byte[12];
+        random.nextBytes(idBytes);
+        Snapshot snapshot = new Snapshot(HexFormat.of().formatHex(idBytes), userId, ranked, pageSize,
+                System.currentTimeMillis() + ttlSeconds * 1000L);
+        snapshots.put(snapshot.id, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * 淘汰最早到期的一份快照（有效期相同，即最早创建的快照）
+     *
+     * @return 是否淘汰了快照
+     */
+    private boolean evictSoonestExpiring() {
+        Snapshot soonest = null;
+        for (Snapshot s : snapshots.values()) {
+            if (soonest == null || s.expiresAt < soonest.expiresAt) {
+                soonest = s;
+            }
+        }
+        return soonest != null && snapshots.remove(soonest.id, soonest);
+    }
+
+    /**
+     * 按游标查找快照
+     *
+     * @param userId 当前用户ID
+     * @param cursor 游标
+     * @return 快照与偏移量；游标无效、已过期或不属于当前用户时返回 null
+     */
+    public Position resolve(int userId, String cursor) {
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int sep = decoded.lastIndexOf(':');
+        if (sep <= 0) {
+            return null;
+        }
+        int offset;
+        try {
+            offset = Integer.parseInt(decoded.substring(sep + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        Snapshot snapshot = snapshots.get(decoded.substring(0, sep));
+        if (snapshot == null || snapshot.userId != userId || offset < 0) {
+            return null;
+        }
+        if (snapshot.expiresAt < System.currentTimeMillis()) {
+            snapshots.remove(snapshot.id, snapshot);
+            return null;
+        }
+        return new Position(snapshot, offset);
+    }
+
+    /**
+     * 生成指向快照某个偏移量的游标
+     */
+    public String cursor(Snapshot snapshot, int offset) {
+        String raw = snapshot.id + ":" + offset;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 读取快照中一页的用户资料：优先使用预取结果，否则同步查询
+     *
+     * @param snapshot 快照
+     * @param offset   偏移量
+     * @param size     页大小
+     * @return 用户列表（顺序不保证）
+     */
+    public List<User> users(Snapshot snapshot, int offset, int size) {
+        CompletableFuture<List<User>> prefetched = snapshot.prefetched.remove(offset);
+        if (prefetched != null) {
+            try {
+                return prefetched.get(1, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                prefetched.cancel(false);
+            }
+        }
+        return loadUsers(snapshot.slice(offset, size));
+    }
+
+    /**
+     * 异步预取快照中一页的用户资料（线程池繁忙时放弃预取）
+     */
+    public void prefetch(Snapshot snapshot, int offset, int size) {
+        long[] keys = snapshot.slice(offset, size);
+        if (keys.length == 0 || snapshot.prefetched.containsKey(offset)) {
+            return;
+        }
+        try {
+            snapshot.prefetched.put(offset, CompletableFuture.supplyAsync(() -> loadUsers(keys), prefetchExecutor));
+        } catch (RejectedExecutionException e) {
+            // 预取只是优化，翻页时会同步查询
+        }
+    }
+
+    /**
+     * 定期清理过期快照
+     */
+    @Scheduled(fixedDelayString = "${linkme.match.snapshot.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        snapshots.values().removeIf(s -> s.expiresAt < now);
+    }
+
+    private List<User> loadUsers(long[] keys) {
+        if (keys.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Integer> userIds = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            userIds.add(TopKHeap.userIdOf(key));
+        }
+        List<User> users = userMapper.selectBatchIds(userIds);
+        return users == null ? Collections.emptyList() : users;
+    }
+
+    /**
+     * 游标解析结果
+     */
+    public record Position(Snapshot snapshot, int offset) {
+    }
+
+    /**
+     * 一次推荐的固定排序结果
+     */
+    public static final class Snapshot {
+        private final String id;
+        private final int userId;
+        private final long[] ranked;
+        private final int pageSize;
+        private final long expiresAt;
+        private final ConcurrentHashMap<Integer, CompletableFuture<List<User>>> prefetched = new ConcurrentHashMap<>();
+
+        private Snapshot(String id, int userId, long[] ranked, int pageSize, long expiresAt) {
+            this.id = id;
+            this.userId = userId;
+            this.ranked = ranked;
+            this.pageSize = pageSize;
+            this.expiresAt = expiresAt;
+        }
+
+        public int size() {
+            return ranked.length;
+        }
+
+        public int pageSize() {
+            return pageSize;
+        }
+
+        /**
+         * 截取 [offset, offset + size) 区间的 TopKHeap 编码结果
+         */
+        public long[] slice(int offset, int size) {
+            int fromIndex = Math.min(offset, ranked.length);
+            int toIndex = (int) Math.min((long) offset + size, ranked.length);
+            return Arrays.copyOfRange(ranked, fromIndex, toIndex);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.linkme.backend.match;
+
+/**
+ * 推荐链路的阶段（用于耗时统计，code 即指标的 stage 标签）
+ *
+ * @author riki
+ * @version 1.0
+ */
+public enum MatchStage {
+    /** 窗口模式：selectMatchCandidates 查询候选人 */
+    CANDIDATES("candidates"),
+    /** 窗口模式：从特征库取候选人特征（未命中时回表） */
+    FEATURES("features"),
+    /** 读取排除集合（首次访问时从数据库加载） */
+    EXCLUSIONS("exclusions"),
+    /** 查询屏蔽关系 */
+    BLOCKS("blocks"),
+    /** 全量扫描：倒排索引求 must 维度候选位图 */
+    MUST_FILTER("must_filter"),
+    /** 精确硬过滤 + 打分（全量扫描时含 Top-K 堆） */
+    SCORING("scoring"),
+    /** 排序（全量扫描时为合并后的堆输出） */
+    SORT("sort"),
+    /** 读取 Redis 物化列表 */
+    LIST_READ("list_read"),
+    /** 写入 Redis 物化列表 */
+    LIST_WRITE("list_write"),
+    /** 当前页回表查询资料并过滤 */
+    HYDRATE("hydrate");
+
+    private final String code;
+
+    MatchStage(String code) {
+        this.code = code;
+    }
+
+    public String code() {
+        return code;
+    }
+}
@@ -0,0 +1,182 @@
+package com.linkme.backend.match;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 推荐链路的分阶段指标（Micrometer，经 actuator 的 /actuator/metrics 查看）
+ *
+ * - linkme.match.recommend.stage{stage}：各阶段耗时（Timer，见 MatchStage）
+ * - linkme.match.recommend.requests{mode}：整次请求耗时，mode = full_scan / window / feed
+ * - linkme.match.recommend.candidates：每次进入打分链路的候选人数（直方图）
+ * - linkme.match.recommend.must_rejected：每次被 must 维度硬过滤淘汰的人数（直方图）
+ * - linkme.match.recommend.list{result}：物化列表命中 / 未命中次数
+ * - linkme.match.recommend.truncated：全量扫描超出延迟预算的次数
+ *
+ * 后台重建物化列表也走同一条链路，其阶段耗时同样计入。
+ * 调用 startTrace 后，当前线程上的各阶段耗时还会累加到 MatchStageTrace，用于单次请求的调试响应头。
+ * 各 Meter 在启动时创建好，记录时不查找注册表。
+ *
+ * @author riki
+ * @version 1.0
+ */
+@Component
+public class MatchStageMetrics {
+
+    private static final ThreadLocal<MatchStageTrace> CURRENT = new ThreadLocal<>();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Timer[] stageTimers;
+
+    private Timer fullScanRequests;
+
+    private Timer windowRequests;
+
+    private Timer feedRequests;
+
+    private DistributionSummary candidates;
+
+    private DistributionSummary mustRejected;
+
+    private Counter listHits;
+
+    private Counter listMisses;
+
+    private Counter truncated;
+
+    @PostConstruct
+    public void init() {
+        MatchStage[] stages = MatchStage.values();
+        stageTimers = new Timer[stages.length];
+        for (MatchStage stage : stages) {
+            stageTimers[stage.ordinal()] = Timer.builder("linkme.match.recommend.stage")
+                    .description("匹配推荐各阶段耗时")
+                    .tag("stage", stage.code())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+        fullScanRequests = requestTimer("full_scan");
+        windowRequests = requestTimer("window");
+        feedRequests = requestTimer("feed");
+        candidates = DistributionSummary.builder("linkme.match.recommend.candidates")
+                .description("每次进入打分链路的候选人数")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(10_000_000.0)
+                .register(meterRegistry);
+        mustRejected = DistributionSummary.builder("linkme.match.recommend.must_rejected")
+                .description("每次被 must 维度硬过滤淘汰的人数")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(10_000_000.0)
+                .register(meterRegistry);
+        listHits = Counter.builder("linkme.match.recommend.list").tag("result", "hit").register(meterRegistry);
+        listMisses = Counter.builder("linkme.match.recommend.list").tag("result", "miss").register(meterRegistry);
+        truncated = Counter.builder("linkme.match.recommend.truncated")
+                .description("全量扫描超出延迟预算的次数")
+                .register(meterRegistry);
+    }
+
+    private Timer requestTimer(String mode) {
+        return Timer.builder("linkme.match.recommend.requests")
+                .description("匹配推荐请求耗时")
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * 开始计时，返回值交给 stop
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 结束一个阶段
+     *
+     * @param stage      阶段
+     * @param startNanos start 的返回值
+     */
+    public void stop(MatchStage stage, long startNanos) {
+        long nanos = System.nanoTime() - startNanos;
+        stageTimers[stage.ordinal()].record(nanos, TimeUnit.NANOSECONDS);
+        MatchStageTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.add(stage, nanos);
+        }
+    }
+
+    /**
+     * 记录一次完整的推荐请求
+     *
+     * @param mode       full_scan / window / feed
+     * @param startNanos start 的返回值
+     */
+    public void request(String mode, long startNanos) {
+        Timer timer = switch (mode) {
+            case "full_scan" -> fullScanRequests;
+            case "window" -> windowRequests;
+            default -> feedRequests;
+        };
+        timer.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录进入打分链路的候选人数
+     */
+    public void candidates(long count) {
+        candidates.record(count);
+        MatchStageTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.candidates(count);
+        }
+    }
+
+    /**
+     * 记录被 must 维度硬过滤淘汰的人数
+     */
+    public void mustRejected(long count) {
+        mustRejected.record(count);
+        MatchStageTrace trace = CURRENT.get();
+        if (trace != null) {
+            trace.mustRejected(count);
+        }
+    }
+
+    /**
+     * 记录一次物化列表读取
+     */
+    public void listRead(boolean hit) {
+        (hit ? listHits : listMisses).increment();
+    }
+
+    /**
+     * 记录一次超出延迟预算的扫描
+     */
+    public void truncated() {
+        truncated.increment();
+    }
+
+    /**
+     * 在当前线程上开始记录单次请求的分阶段耗时，必须与 endTrace 成对调用
+     */
+    public MatchStageTrace startTrace() {
+        MatchStageTrace trace = new MatchStageTrace();
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    public void endTrace() {
+        CURRENT.remove();
+    }
+}
@@ -0,0 +1,64 @@
+package com.linkme.backend.match;
+
+import java.util.Locale;
+
+/**
+ * 单次推荐请求的分阶段耗时（调试用）
+ *
+ * 由 MatchStageMetrics.startTrace 绑定到当前线程，各阶段结束时累加；
+ * 同一阶段在一次请求中出现多次时耗时相加。
+ *
+ * @author riki
+ * @version 1.0
+ */
+public final class MatchStageTrace {
+
+    private final long startNanos = System.nanoTime();
+
+    private final long[] stageNanos = new long[MatchStage.values().length];
+
+    private long candidates = -1;
+
+    private long mustRejected = -1;
+
+    void add(MatchStage stage, long nanos) {
+        stageNanos[stage.ordinal()] += nanos;
+    }
+
+    void candidates(long count) {
+        candidates = Math.max(candidates, 0) + count;
+    }
+
+    void mustRejected(long count) {
+        mustRejected = Math.max(mustRejected, 0) + count;
+    }
+
+    /**
+     * 转为 Server-Timing 响应头，例如 {@code candidates;dur=1.20, scoring;dur=35.41, total;dur=40.02}；
+     * 未经过的阶段不输出，候选人数与硬过滤淘汰数以 desc 给出
+     */
+    public String toServerTiming() {
+        StringBuilder sb = new StringBuilder();
+        for (MatchStage stage : MatchStage.values()) {
+            long nanos = stageNanos[stage.ordinal()];
+            if (nanos > 0) {
+                appendMetric(sb, stage.code(), nanos);
+            }
+        }
+        appendMetric(sb, "total", System.nanoTime() - startNanos);
+        if (candidates >= 0) {
+            sb.append(", candidates_count;desc=").append(candidates);
+        }
+        if (mustRejected >= 0) {
+            sb.append(", must_rejected_count;desc=").append(mustRejected);
+        }
+        return sb.toString();
+    }
+
+    private static void appendMetric(StringBuilder sb, String name, long nanos) {
+        if (sb.length() > 0) {
+            sb.append(", ");
+        }
+        sb.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0));
+    }
+}
@@ -0,0 +1,184 @@
+package com.linkme.backend.match;
+
+import com.linkme.backend.entity.PersonalityTraitOption;
+
+import java.util.List;
+
+/**
+ * 预编译的性格特质契合矩阵
+ *
+ * 启动时读取 personality_trait_category / personality_trait_option，按 PersonalityTraitRules
+ * 对所有 (理想选项, 自身选项) 组合求值一次，结果存为扁平 byte 数组（选项ID先映射为连续下标，
+ * 矩阵大小只与选项个数有关）：
+ * - socialMatch：希望对方的社交风格 × 社交能量来源
+ * - actionByPace：希望对方的处事风格 × 生活节奏
+ * - actionByDecision：希望对方的处事风格 × 决策方式
+ *
+ * 打分时只做数组下标访问，不再比较字符串；选项ID 0（未填写）与字典中不存在的ID一律视为不命中。
+ * 构建后只读，可被多个扫描线程并发使用。字典数据变化后需重启服务才会重新编译。
+ *
+ * @author riki
+ * @version 1.0
+ */
+public final class PersonalityCompatibilityMatrix {
+
+    public static final byte SLOT_NONE = 0;
+    public static final byte SLOT_SELF_ENERGY = 1;
+    public static final byte SLOT_SELF_DECISION = 2;
+    public static final byte SLOT_SELF_PACE = 3;
+    public static final byte SLOT_SELF_COMMUNICATION = 4;
+    public static final byte SLOT_IDEAL_SOCIAL = 5;
+    public static final byte SLOT_IDEAL_ACTION = 6;
+
+    private static final PersonalityCompatibilityMatrix EMPTY = new PersonalityCompatibilityMatrix(0, 0);
+
+    /** 选项ID → 连续下标（1 起，0 表示未知选项） */
+    private final int[] denseIndex;
+
+    private final int stride;
+
+    private final byte[] slots;
+
+    private final byte[] socialMatch;
+
+    private final byte[] actionByPace;
+
+    private final byte[] actionByDecision;
+
+    private PersonalityCompatibilityMatrix(int maxOptionId, int optionCount) {
+        this.denseIndex = new int[maxOptionId + 1];
+        this.stride = optionCount + 1;
+        this.slots = new byte[maxOptionId + 1];
+        this.socialMatch = new byte[stride * stride];
+        this.actionByPace = new byte[stride * stride];
+        this.actionByDecision = new byte[stride * stride];
+    }
+
+    /**
+     * 空矩阵（字典未加载时使用，所有组合均不命中）
+     */
+    public static PersonalityCompatibilityMatrix empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 从字典数据编译矩阵
+     *
+     * @param options 全部选项（含分类）
+     * @return 矩阵
+     */
+    public static PersonalityCompatibilityMatrix compile(List<PersonalityTraitOption> options) {
+        if (options == null || options.isEmpty()) {
+            return EMPTY;
+        }
+        int maxOptionId = 0;
+        int count = 0;
+        for (PersonalityTraitOption o : options) {
+            if (o != null && o.getOptionId() != null && o.getOptionId() > 0) {
+                maxOptionId = Math.max(maxOptionId, o.getOptionId());
+                count++;
+            }
+        }
+        PersonalityCompatibilityMatrix m = new PersonalityCompatibilityMatrix(maxOptionId, count);
+
+        int size = m.stride;
+        byte[] denseSlots = new byte[size];
+        String[] codes = new String[size];
+        int next = 1;
+        for (PersonalityTraitOption o : options) {
+            if (o == null || o.getOptionId() == null || o.getOptionId() <= 0 || m.denseIndex[o.getOptionId()] != 0) {
+                continue;
+            }
+            int id = o.getOptionId();
+            int d = next++;
+            m.denseIndex[id] = d;
+            m.slots[id] = slotOf(categoryCode(o));
+            denseSlots[d] = m.slots[id];
+            codes[d] = o.getCode() != null && !o.getCode().isBlank()
+                    ? o.getCode().trim()
+                    : PersonalityTraitRules.legacyOptionCode(o.getName());
+        }
+
+        for (int ideal = 1; ideal < next; ideal++) {
+            byte idealSlot = denseSlots[ideal];
+            if (idealSlot != SLOT_IDEAL_SOCIAL && idealSlot != SLOT_IDEAL_ACTION) {
+                continue;
+            }
+            int row = ideal * size;
+            for (int self = 1; self < next; self++) {
+                byte selfSlot = denseSlots[self];
+                if (idealSlot == SLOT_IDEAL_SOCIAL && selfSlot == SLOT_SELF_ENERGY
+                        && PersonalityTraitRules.matchesIdealSocialStyle(codes[ideal], codes[self])) {
+                    m.socialMatch[row + self] = 1;
+                } else if (idealSlot == SLOT_IDEAL_ACTION && selfSlot == SLOT_SELF_PACE
+                        && PersonalityTraitRules.matchesIdealActionStyleByPace(codes[ideal], codes[self])) {
+                    m.actionByPace[row + self] = 1;
+                } else if (idealSlot == SLOT_IDEAL_ACTION && selfSlot == SLOT_SELF_DECISION
+                        && PersonalityTraitRules.matchesIdealActionStyleByDecision(codes[ideal], codes[self])) {
+                    m.actionByDecision[row + self] = 1;
+                }
+            }
+        }
+        return m;
+    }
+
+    /**
+     * 选项在用户特征中所属的槽位（SLOT_*），未知选项返回 SLOT_NONE
+     */
+    public byte slot(int optionId) {
+        return optionId > 0 && optionId < slots.length ? slots[optionId] : SLOT_NONE;
+    }
+
+    /**
+     * 希望对方的社交风格是否与对方的社交能量来源契合
+     */
+    public boolean socialMatches(int idealSocialOption, int selfEnergyOption) {
+        int ideal = dense(idealSocialOption);
+        int self = dense(selfEnergyOption);
+        return ideal != 0 && self != 0 && socialMatch[ideal * stride + self] != 0;
+    }
+
+    /**
+     * 希望对方的处事风格是否与对方的生活节奏或决策方式契合
+     */
+    public boolean actionMatches(int idealActionOption, int selfDecisionOption, int selfPaceOption) {
+        int ideal = dense(idealActionOption);
+        if (ideal == 0) {
+            return false;
+        }
+        int row = ideal * stride;
+        int pace = dense(selfPaceOption);
+        int decision = dense(selfDecisionOption);
+        return (pace != 0 && actionByPace[row + pace] != 0)
+                || (decision != 0 && actionByDecision[row + decision] != 0);
+    }
+
+    private int dense(int optionId) {
+        return optionId > 0 && optionId < denseIndex.length ? denseIndex[optionId] : 0;
+    }
+
+    private static String categoryCode(PersonalityTraitOption o) {
+        if (o.getCategoryCode() != null && !o.getCategoryCode().isBlank()) {
+            return o.getCategoryCode().trim();
+        }
+        return PersonalityTraitRules.legacyCategoryCode(o.getCategoryName());
+    }
+
+    /**
+     * 分类 code 对应的槽位，未知分类返回 SLOT_NONE
+     */
+    public static byte slotOf(String categoryCode) {
+        if (categoryCode == null) {
+            return SLOT_NONE;
+        }
+        return switch (categoryCode) {
+            case PersonalityTraitRules.CATEGORY_SOCIAL_ENERGY -> SLOT_SELF_ENERGY;
+            case PersonalityTraitRules.CATEGORY_DECISION -> SLOT_SELF_DECISION;
+            case PersonalityTraitRules.CATEGORY_PACE -> SLOT_SELF_PACE;
+            case PersonalityTraitRules.CATEGORY_COMMUNICATION -> SLOT_SELF_COMMUNICATION;
+            case PersonalityTraitRules.CATEGORY_IDEAL_SOCIAL_STYLE -> SLOT_IDEAL_SOCIAL;
+            case PersonalityTraitRules.CATEGORY_IDEAL_ACTION_STYLE -> SLOT_IDEAL_ACTION;
+            default -> SLOT_NONE;
+        };
+    }
+}
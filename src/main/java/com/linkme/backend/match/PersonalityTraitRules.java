@@ -0,0 +1,127 @@
+package com.linkme.backend.match;
+
+/**
+ * 性格特质匹配规则
+ *
+ * - 自身特质：社交能量来源 / 决策方式 / 生活节奏 / 沟通风格
+ * - 理想特质：希望对方的社交风格 -> 社交能量来源；希望对方的处事风格 -> 决策方式 / 生活节奏
+ *
+ * 规则按 personality_trait_category.code / personality_trait_option.code 编写，
+ * 启动时由 PersonalityCompatibilityMatrix 对所有选项组合求值一次，打分时只查表。
+ * 修改选项显示名称不会影响匹配；code 为空的旧数据按名称关键字推断 code（legacy*Code）。
+ *
+ * @author riki
+ * @version 1.1
+ */
+public final class PersonalityTraitRules {
+
+    // 分类 code
+    public static final String CATEGORY_SOCIAL_ENERGY = "social_energy";
+    public static final String CATEGORY_DECISION = "decision_style";
+    public static final String CATEGORY_PACE = "life_pace";
+    public static final String CATEGORY_COMMUNICATION = "communication_style";
+    public static final String CATEGORY_IDEAL_SOCIAL_STYLE = "ideal_social_style";
+    public static final String CATEGORY_IDEAL_ACTION_STYLE = "ideal_action_style";
+
+    // 选项 code（只列出规则用到的）
+    public static final String EXTROVERT = "extrovert";
+    public static final String INTROVERT = "introvert";
+    public static final String RATIONAL = "rational";
+    public static final String BALANCED = "balanced";
+    public static final String PLANNED = "planned";
+    public static final String FLEXIBLE = "flexible";
+    public static final String IDEAL_OUTGOING = "outgoing";
+    public static final String IDEAL_COMPOSED = "composed";
+    public static final String IDEAL_SAME_WAVELENGTH = "same_wavelength";
+    public static final String IDEAL_METICULOUS = "meticulous";
+    public static final String IDEAL_EFFICIENT = "efficient";
+    public static final String IDEAL_ADAPTABLE = "adaptable";
+    public static final String IDEAL_RELIABLE = "reliable";
+
+    private PersonalityTraitRules() {
+    }
+
+    /**
+     * 希望对方的社交风格 -> 对方的社交能量来源
+     */
+    public static boolean matchesIdealSocialStyle(String idealSocialCode, String selfEnergyCode) {
+        if (IDEAL_SAME_WAVELENGTH.equals(idealSocialCode)) {
+            return true;
+        }
+        if (IDEAL_OUTGOING.equals(idealSocialCode)) {
+            return EXTROVERT.equals(selfEnergyCode);
+        }
+        if (IDEAL_COMPOSED.equals(idealSocialCode)) {
+            return INTROVERT.equals(selfEnergyCode);
+        }
+        return false;
+    }
+
+    /**
+     * 希望对方的处事风格 -> 对方的生活节奏（任一条件满足即命中）
+     */
+    public static boolean matchesIdealActionStyleByPace(String idealActionCode, String selfPaceCode) {
+        if (IDEAL_METICULOUS.equals(idealActionCode) || IDEAL_EFFICIENT.equals(idealActionCode)) {
+            return PLANNED.equals(selfPaceCode);
+        }
+        if (IDEAL_ADAPTABLE.equals(idealActionCode)) {
+            return FLEXIBLE.equals(selfPaceCode);
+        }
+        // 踏实靠谱：填写了生活节奏即可
+        return IDEAL_RELIABLE.equals(idealActionCode);
+    }
+
+    /**
+     * 希望对方的处事风格 -> 对方的决策方式（任一条件满足即命中）
+     */
+    public static boolean matchesIdealActionStyleByDecision(String idealActionCode, String selfDecisionCode) {
+        if (IDEAL_EFFICIENT.equals(idealActionCode)) {
+            return RATIONAL.equals(selfDecisionCode);
+        }
+        if (IDEAL_ADAPTABLE.equals(idealActionCode)) {
+            return BALANCED.equals(selfDecisionCode);
+        }
+        // 踏实靠谱：填写了决策方式即可
+        return IDEAL_RELIABLE.equals(idealActionCode);
+    }
+
+    /**
+     * 旧数据（分类未填写 code）按分类名称推断 code
+     */
+    public static String legacyCategoryCode(String categoryName) {
+        if (categoryName == null) {
+            return null;
+        }
+        return switch (categoryName.trim()) {
+            case "社交能量来源" -> CATEGORY_SOCIAL_ENERGY;
+            case "决策方式" -> CATEGORY_DECISION;
+            case "生活节奏" -> CATEGORY_PACE;
+            case "沟通风格" -> CATEGORY_COMMUNICATION;
+            case "希望对方的社交风格" -> CATEGORY_IDEAL_SOCIAL_STYLE;
+            case "希望对方的处事风格" -> CATEGORY_IDEAL_ACTION_STYLE;
+            default -> null;
+        };
+    }
+
+    /**
+     * 旧数据（选项未填写 code）按选项名称关键字推断 code，只覆盖规则用到的选项
+     */
+    public static String legacyOptionCode(String optionName) {
+        if (optionName == null) {
+            return null;
+        }
+        String[][] keywords = {
+                {"外向型", EXTROVERT}, {"内向型", INTROVERT},
+                {"理性型", RATIONAL}, {"平衡型", BALANCED},
+                {"计划型", PLANNED}, {"弹性型", FLEXIBLE},
+                {"同频即可", IDEAL_SAME_WAVELENGTH}, {"热情健谈", IDEAL_OUTGOING}, {"沉稳内敛", IDEAL_COMPOSED},
+                {"严谨细致", IDEAL_METICULOUS}, {"高效行动", IDEAL_EFFICIENT},
+                {"灵活变通", IDEAL_ADAPTABLE}, {"踏实靠谱", IDEAL_RELIABLE}};
+        for (String[] kw : keywords) {
+            if (optionName.contains(kw[0])) {
+                return kw[1];
+            }
+        }
+        return null;
+    }
+}
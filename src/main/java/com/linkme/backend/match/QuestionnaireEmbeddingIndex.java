@@ -0,0 +1,189 @@
+package com.linkme.backend.match;
+
+import java.util.Arrays;
+
+/**
+ * 问卷向量索引
+ *
+ * 把每个用户的问卷回答（爱好、关系品质、关系模式、沟通期待、self / ideal 性格选项）编码为 DIMENSIONS 维的单位向量，
+ * 全部用户按用户ID下标连续存放在一个 float 数组中（第 userId 行即 [userId × DIMENSIONS, (userId + 1) × DIMENSIONS)）：
+ * - 编码：每个回答项按 (分组, ID) 哈希到一维并带 ±1 符号（特征哈希），乘以分组权重后累加，最后归一化；
+ *   分组权重取 MatchScorer 默认加分的平方根（爱好 1、关系品质 √2、关系模式 √5、沟通期待 √3、性格选项 1），
+ *   两人共同的回答项对点积的贡献与默认加分成比例
+ * - 相似度：两行的点积即余弦相似度，负值按 0 计，乘以 100 取整
+ * - nearest：对全部行做一次暴力点积求 Top-K，按块调用 EmbeddingKernel.dotRows
+ *
+ * 内存：4 × DIMENSIONS 字节 × 最大用户ID（百万用户约 128MB），已删除用户的行清零。
+ * 写入由 MatchFeatureStore 在编码特征时完成（加锁），读取不加锁：读到正在改写的行只影响一次打分的相似度。
+ *
+ * @author riki
+ * @version 1.0
+ */
+public final class QuestionnaireEmbeddingIndex {
+
+    /** 向量维数（2 的幂） */
+    public static final int DIMENSIONS = 32;
+
+    private static final int BLOCK_ROWS = 4096;
+
+    private static final long GROUP_HOBBY = 1;
+    private static final long GROUP_QUALITY = 2;
+    private static final long GROUP_RELATIONSHIP_MODE = 3;
+    private static final long GROUP_COMMUNICATION_EXPECTATION = 4;
+    private static final long GROUP_SELF_TRAIT = 5;
+    private static final long GROUP_IDEAL_TRAIT = 6;
+
+    private static final float WEIGHT_HOBBY = 1f;
+    private static final float WEIGHT_QUALITY = (float) Math.sqrt(2);
+    private static final float WEIGHT_RELATIONSHIP_MODE = (float) Math.sqrt(5);
+    private static final float WEIGHT_COMMUNICATION_EXPECTATION = (float) Math.sqrt(3);
+    private static final float WEIGHT_TRAIT = 1f;
+
+    private final EmbeddingKernel kernel;
+
+    private volatile float[] rows = new float[DIMENSIONS * 1024];
+
+    private volatile int maxUserId;
+
+    public QuestionnaireEmbeddingIndex(EmbeddingKernel kernel) {
+        this.kernel = kernel;
+    }
+
+    public EmbeddingKernel kernel() {
+        return kernel;
+    }
+
+    /**
+     * 编码并写入用户的向量
+     */
+    public synchronized void put(UserFeatureVector v) {
+        int userId = v.userId();
+        if (userId <= 0) {
+            return;
+        }
+        float[] r = rows;
+        if ((long) (userId + 1) * DIMENSIONS > r.length) {
+            long capacity = Math.max((long) r.length * 2, (long) (userId + 1) * DIMENSIONS);
+            r = Arrays.copyOf(r, (int) Math.min(capacity, Integer.MAX_VALUE - 8));
+            rows = r;
+        }
+        encode(v, r, userId * DIMENSIONS);
+        if (userId > maxUserId) {
+            maxUserId = userId;
+        }
+    }
+
+    /**
+     * 清零用户的向量（用户注销或不再存在时）
+     */
+    public synchronized void remove(int userId) {
+        float[] r = rows;
+        if (userId > 0 && (long) (userId + 1) * DIMENSIONS <= r.length) {
+            Arrays.fill(r, userId * DIMENSIONS, (userId + 1) * DIMENSIONS, 0f);
+        }
+    }
+
+    /**
+     * 两个用户的问卷相似度
+     *
+     * @return 0~100；任一方没有向量时为 0
+     */
+    public int similarity(int userA, int userB) {
+        float[] r = rows;
+        if (userA <= 0 || userB <= 0 || (long) (Math.max(userA, userB) + 1) * DIMENSIONS > r.length) {
+            return 0;
+        }
+        float dot = kernel.dot(r, userA * DIMENSIONS, r, userB * DIMENSIONS, DIMENSIONS);
+        return dot <= 0f ? 0 : Math.min(100, Math.round(dot * 100f));
+    }
+
+    /**
+     * 与 viewer 问卷最相似的 k 个用户（暴力扫描全部行，不含 viewer 自己与相似度为 0 的用户）
+     *
+     * @param viewerId 用户ID
+     * @param k        数量
+     * @return TopKHeap 编码的 (userId, 相似度 float 位) 降序数组；viewer 没有向量时为空
+     */
+    public long[] nearest(int viewerId, int k) {
+        float[] r = rows;
+        int maxId = Math.min(maxUserId, r.length / DIMENSIONS - 1);
+        if (k <= 0 || viewerId <= 0 || viewerId > maxId) {
+            return new long[0];
+        }
+        float[] query = Arrays.copyOfRange(r, viewerId * DIMENSIONS, (viewerId + 1) * DIMENSIONS);
+        TopKHeap heap = new TopKHeap(k);
+        float[] scores = new float[BLOCK_ROWS];
+        for (int from = 1; from <= maxId; from += BLOCK_ROWS) {
+            int n = Math.min(BLOCK_ROWS, maxId + 1 - from);
+            kernel.dotRows(query, 0, r, from, n, DIMENSIONS, scores);
+            for (int i = 0; i < n; i++) {
+                float s = scores[i];
+                // 正 float 的位模式与数值同序，可直接作为 TopKHeap 的分数位
+                if (s > 0f && from + i != viewerId) {
+                    heap.offerKey(TopKHeap.encode(from + i, Float.floatToRawIntBits(s)));
+                }
+            }
+        }
+        return heap.drainDescending();
+    }
+
+    /**
+     * 把用户的问卷回答编码为单位向量，写入 out[offset, offset + DIMENSIONS)
+     */
+    static void encode(UserFeatureVector v, float[] out, int offset) {
+        Arrays.fill(out, offset, offset + DIMENSIONS, 0f);
+        addBits(out, offset, GROUP_HOBBY, v.hobbyBits(), WEIGHT_HOBBY);
+        addBits(out, offset, GROUP_QUALITY, v.qualityBits(), WEIGHT_QUALITY);
+        if (v.hasPreference()) {
+            if (v.relationshipModeId() != 0) {
+                add(out, offset, GROUP_RELATIONSHIP_MODE, v.relationshipModeId(), WEIGHT_RELATIONSHIP_MODE);
+            }
+            if (v.communicationExpectationId() != 0) {
+                add(out, offset, GROUP_COMMUNICATION_EXPECTATION, v.communicationExpectationId(),
+                        WEIGHT_COMMUNICATION_EXPECTATION);
+            }
+        }
+        for (int id : v.selfTraitOptionIds()) {
+            add(out, offset, GROUP_SELF_TRAIT, id, WEIGHT_TRAIT);
+        }
+        for (int id : v.idealTraitOptionIds()) {
+            add(out, offset, GROUP_IDEAL_TRAIT, id, WEIGHT_TRAIT);
+        }
+
+        float norm = 0f;
+        for (int i = offset; i < offset + DIMENSIONS; i++) {
+            norm += out[i] * out[i];
+        }
+        if (norm > 0f) {
+            float scale = (float) (1.0 / Math.sqrt(norm));
+            for (int i = offset; i < offset + DIMENSIONS; i++) {
+                out[i] *= scale;
+            }
+        }
+    }
+
+    private static void addBits(float[] out, int offset, long group, long[] bits, float weight) {
+        for (int w = 0; w < bits.length; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                add(out, offset, group, (w << 6) + Long.numberOfTrailingZeros(word), weight);
+                word &= word - 1;
+            }
+        }
+    }
+
+    private static void add(float[] out, int offset, long group, int id, float weight) {
+        long h = mix((group << 32) | (id & 0xffffffffL));
+        int dimension = (int) (h & (DIMENSIONS - 1));
+        out[offset + dimension] += (h & (1L << 32)) != 0 ? weight : -weight;
+    }
+
+    /**
+     * SplitMix64 的终结函数
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,36 @@
+package com.linkme.backend.match;
+
+/**
+ * 标量点积内核（未加载 jdk.incubator.vector 时使用）
+ *
+ * 4 路累加器拆开依赖链，JIT 可以流水执行乘加。
+ *
+ * @author riki
+ * @version 1.0
+ */
+public final class ScalarEmbeddingKernel implements EmbeddingKernel {
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float s0 = 0f;
+        float s1 = 0f;
+        float s2 = 0f;
+        float s3 = 0f;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            s0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,117 @@
+package com.linkme.backend.match;
+
+/**
+ * 定长 Top-K 最小堆（原始 long 数组实现，无装箱）
+ *
+ * 每个元素编码为 (score << 32) | (Integer.MAX_VALUE - userId)：
+ * - 分数高者更大
+ * - 同分时 userId 小者更大，与推荐列表"分数降序、userId 升序"的排序一致
+ * 堆顶始终是当前 K 个中最小的元素，新元素只有大于堆顶才会替换。
+ * 非线程安全，每个扫描分片各自持有一个实例，最后合并。
+ *
+ * @author riki
+ * @version 1.0
+ */
+public final class TopKHeap {
+
+    private final long[] heap;
+
+    private int size;
+
+    public TopKHeap(int capacity) {
+        this.heap = new long[Math.max(capacity, 1)];
+    }
+
+    public static long encode(int userId, int score) {
+        return ((long) score << 32) | (Integer.MAX_VALUE - userId);
+    }
+
+    public static int scoreOf(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int userIdOf(long key) {
+        return Integer.MAX_VALUE - (int) key;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 当前入堆门槛：堆未满时返回 Long.MIN_VALUE
+     */
+    public long threshold() {
+        return size < heap.length ? Long.MIN_VALUE : heap[0];
+    }
+
+    public void offer(int userId, int score) {
+        offerKey(encode(userId, score));
+    }
+
+    public void offerKey(long key) {
+        if (size < heap.length) {
+            heap[size] = key;
+            siftUp(size++);
+        } else if (key > heap[0]) {
+            heap[0] = key;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * 合并另一个堆的全部元素
+     */
+    public void merge(TopKHeap other) {
+        for (int i = 0; i < other.size; i++) {
+            offerKey(other.heap[i]);
+        }
+    }
+
+    /**
+     * 按降序输出（分数降序、userId 升序），调用后堆被清空
+     */
+    public long[] drainDescending() {
+        long[] out = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            out[i] = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+        }
+        return out;
+    }
+
+    private void siftUp(int i) {
+        long key = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= key) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = key;
+    }
+
+    private void siftDown(int i) {
+        if (size == 0) {
+            return;
+        }
+        long key = heap[i];
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && heap[right] < heap[child]) {
+                child = right;
+            }
+            if (key <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = key;
+    }
+}
@@ -0,0 +1,135 @@
+package com.linkme.backend.match;
+
+/**
+ * 用户紧凑匹配特征
+ *
+ * 常驻于 MatchFeatureStore，打分时只做位运算与基本类型比较：
+ * - hobbyBits / sportHobbyBits / qualityBits：以ID为下标的位图，重合数 = popcount(a &amp; b)
+ * - selfTraitOptionIds / idealTraitOptionIds：升序的性格选项ID
+ * - self*Option / ideal*Option：规则用到的分类对应的选项ID（0 表示未选）
+ * - allowMatch：是否允许被推荐
+ * - birthYmd：生日 yyyyMMdd（0 表示未知），regionCode：地区编码（0 表示未知）
+ * - latitude / longitude：经纬度（度，NaN 表示未设置）
+ * - 偏好字段：ageMin / ageMax 为 -1 表示未设置，ageUnlimited 为三态（-1 未设置 / 0 否 / 1 是）
+ * - mustMask：MatchDimension 位掩码；priorityDimensions / priorityWeights：priority 维度与权重
+ * - version：特征版本（每次编码递增，MatchPairCache 据此判断缓存项是否过期）
+ *
+ * @author riki
+ * @version 1.2
+ */
+public record UserFeatureVector(int userId,
+                                boolean allowMatch,
+                                int birthYmd,
+                                int regionCode,
+                                float latitude,
+                                float longitude,
+                                long[] hobbyBits,
+                                long[] sportHobbyBits,
+                                long[] qualityBits,
+                                int[] selfTraitOptionIds,
+                                int[] idealTraitOptionIds,
+                                int selfEnergyOption,
+                                int selfDecisionOption,
+                                int selfPaceOption,
+                                int selfCommunicationOption,
+                                int idealSocialOption,
+                                int idealActionOption,
+                                boolean hasPreference,
+                                int ageMin,
+                                int ageMax,
+                                byte ageUnlimited,
+                                byte distancePreference,
+                                int relationshipModeId,
+                                int communicationExpectationId,
+                                int mustMask,
+                                byte[] priorityDimensions,
+                                byte[] priorityWeights,
+                                int version) {
+
+    public static final byte DISTANCE_NONE = 0;
+    public static final byte DISTANCE_SAME_CITY = 1;
+    public static final byte DISTANCE_SAME_CITY_OR_REMOTE = 2;
+    public static final byte DISTANCE_UNLIMITED = 3;
+    public static final byte DISTANCE_OTHER = 4;
+
+    public static final byte TRI_NULL = -1;
+    public static final byte TRI_FALSE = 0;
+    public static final byte TRI_TRUE = 1;
+
+    static final long[] EMPTY_BITS = new long[0];
+    static final int[] EMPTY_IDS = new int[0];
+    static final byte[] EMPTY_BYTES = new byte[0];
+
+    public boolean hasLocation() {
+        return !Float.isNaN(latitude);
+    }
+
+    public boolean hasMust(MatchDimension dimension) {
+        return (mustMask & dimension.bit()) != 0;
+    }
+
+    /**
+     * 按当天日期（yyyyMMdd）计算周岁，生日未知或晚于今天返回 -1
+     */
+    public int ageAt(int todayYmd) {
+        if (birthYmd <= 0 || birthYmd > todayYmd) {
+            return -1;
+        }
+        return (todayYmd - birthYmd) / 10000;
+    }
+
+    /**
+     * popcount(a &amp; b)
+     */
+    public static int andCount(long[] a, long[] b) {
+        int n = Math.min(a.length, b.length);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            count += Long.bitCount(a[i] & b[i]);
+        }
+        return count;
+    }
+
+    /**
+     * 两个升序数组的交集大小
+     */
+    public static int intersectCount(int[] a, int[] b) {
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                count++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 把一组非负ID编码为位图
+     */
+    public static long[] toBits(Iterable<Integer> ids) {
+        int max = -1;
+        for (Integer id : ids) {
+            if (id != null && id >= 0 && id > max) {
+                max = id;
+            }
+        }
+        if (max < 0) {
+            return EMPTY_BITS;
+        }
+        long[] bits = new long[(max >>> 6) + 1];
+        for (Integer id : ids) {
+            if (id != null && id >= 0) {
+                bits[id >>> 6] |= 1L << (id & 63);
+            }
+        }
+        return bits;
+    }
+}
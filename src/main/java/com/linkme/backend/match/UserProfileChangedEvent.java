@@ -0,0 +1,25 @@
+package com.linkme.backend.match;
+
+/**
+ * 用户匹配画像变化事件
+ *
+ * 由 UserServiceImpl（资料更新 / 注销）与 QuestionnaireServiceImpl（问卷保存）发布，
+ * MatchListRefresher 在事务提交后（无事务时立即）处理：刷新特征库、重建该用户自己的列表，
+ * 并只改写其他活跃用户列表中与该用户相关的一项。
+ *
+ * @param userId 画像变化的用户ID
+ * @param change 变化类型
+ * @author riki
+ * @version 1.0
+ */
+public record UserProfileChangedEvent(int userId, Change change) {
+
+    public enum Change {
+        /** 基本资料（生日、地区、经纬度等） */
+        PROFILE,
+        /** 匹配问卷 */
+        QUESTIONNAIRE,
+        /** 用户注销 */
+        DELETED
+    }
+}
@@ -1,5 +1,6 @@
 package com.linkme.backend.service;
 
+import com.linkme.backend.controller.dto.ConversationInboxResponse;
 import com.linkme.backend.controller.dto.ConversationResponse;
 import com.linkme.backend.controller.dto.MessageResponse;
 import com.linkme.backend.entity.Conversation;
@@ -13,8 +14,8 @@ import java.util.List;
  * - 提供聊天相关的业务逻辑处理
  * - 包括会话管理、消息发送、未读消息管理等功能
  * 
- * @author Ahz
- * @version 1.2.2
+ * @author Ahz, riki
+ * @version 1.4
  */
 public interface ChatService {
     
@@ -37,7 +38,7 @@ public interface ChatService {
     ConversationResponse getConversationById(Integer conversationId, Integer userId);
     
     /**
-     * 根据用户ID获取会话列表
+     * 根据用户ID获取会话列表（页码分页，排序与 getConversationInbox 相同）
      * 
      * @param userId 用户ID
      * @param page 页码
@@ -46,6 +47,17 @@ public interface ChatService {
      */
     List<ConversationResponse> getConversationsByUserId(Integer userId, Integer page, Integer size);
     
+    /**
+     * 获取会话列表（置顶优先、按最后活跃时间倒序，游标分页）
+     * 
+     * @param userId 用户ID
+     * @param cursor 上一页返回的游标（第一页为空）
+     * @param size 每页数量
+     * @return 一页会话与下一页游标
+     * @throws IllegalArgumentException 游标无效
+     */
+    ConversationInboxResponse getConversationInbox(Integer userId, String cursor, Integer size);
+    
     /**
      * 发送消息
      * 
@@ -65,12 +77,25 @@ public interface ChatService {
      * @param conversationId 会话ID
      * @param userId 当前用户ID（用于权限验证）
      * @param page 页码
-     * @param size 每页数量
-     * @return 消息列表
+     * @param size 每页数量（不超过 linkme.chat.messages.max-size）
+     * @return 消息列表（按时间正序，不含对当前用户隐藏的消息；第 page 页即最新一页向前的第 page 段）
      */
     List<MessageResponse> getMessagesByConversationId(Integer conversationId, Integer userId, 
                                                       Integer page, Integer size);
     
+    /**
+     * 按消息ID游标获取消息列表（深翻页耗时与第一页相同）
+     * 
+     * @param conversationId 会话ID
+     * @param userId 当前用户ID（用于权限验证）
+     * @param beforeMessageId 只返回早于该消息的消息（向上翻历史），与 afterMessageId 都为空时返回最新一页
+     * @param afterMessageId 只返回晚于该消息的消息（向下翻 / 断线重连后同步）
+     * @param size 每页数量
+     * @return 消息列表（按时间正序）
+     */
+    List<MessageResponse> getMessagesByCursor(Integer conversationId, Integer userId,
+                                              Integer beforeMessageId, Integer afterMessageId, Integer size);
+    
     /**
      * 标记消息为已读
      * 
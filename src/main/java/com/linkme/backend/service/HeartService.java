@@ -0,0 +1,22 @@
+package com.linkme.backend.service;
+
+import com.linkme.backend.controller.dto.HeartResponse;
+
+/**
+ * 红心服务
+ * - 接收红心并检测互相红心，互相红心时建立匹配并通知对方
+ *
+ * @author riki
+ * @version 1.0
+ */
+public interface HeartService {
+    /**
+     * 发送红心
+     *
+     * @param fromUserId 当前登录用户ID
+     * @param toUserId 被红心的用户ID
+     * @return 红心结果（是否匹配成功）
+     * @throws IllegalArgumentException 红心自己或对方不存在
+     */
+    HeartResponse sendHeart(Integer fromUserId, Integer toUserId);
+}
@@ -0,0 +1,23 @@
+package com.linkme.backend.service;
+
+import com.linkme.backend.controller.dto.MatchInboxResponse;
+
+/**
+ * 匹配收件箱服务
+ * - 按匹配时间倒序列出当前用户的匹配，附带对方摘要资料、会话ID、最后一条消息预览与未读数
+ *
+ * @author riki
+ * @version 1.0
+ */
+public interface MatchInboxService {
+    /**
+     * 获取匹配收件箱的一页（键集分页）
+     *
+     * @param currentUserId 当前登录用户ID
+     * @param cursor 上一页返回的游标（第一页为空）
+     * @param size 每页数量
+     * @return 一页匹配与下一页游标
+     * @throws IllegalArgumentException 游标无效
+     */
+    MatchInboxResponse getInbox(Integer currentUserId, String cursor, Integer size);
+}
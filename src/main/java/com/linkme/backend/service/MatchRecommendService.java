@@ -1,5 +1,7 @@
 package com.linkme.backend.service;
 
+import com.linkme.backend.controller.dto.MatchCompatibilityResponse;
+import com.linkme.backend.controller.dto.MatchRecommendationFeedResponse;
 import com.linkme.backend.controller.dto.MatchRecommendationResponse;
 
 import java.util.List;
@@ -7,9 +9,10 @@ import java.util.List;
 /**
  * 匹配推荐服务
  * - 从数据库筛选候选用户并计算匹配度，返回推荐列表
+ * - 查询与指定用户的匹配度（资料页展示）
  *
  * @author riki
- * @version 1.0
+ * @version 1.1
  */
 public interface MatchRecommendService {
     /**
@@ -21,4 +24,33 @@ public interface MatchRecommendService {
      * @return 推荐结果列表
      */
     List<MatchRecommendationResponse> getRecommendations(Integer currentUserId, Integer page, Integer size);
+
+    /**
+     * 获取匹配推荐流（游标分页）
+     * - 不带游标时生成排序快照并返回第一页，之后按 nextCursor 翻页，顺序在快照有效期内不变
+     *
+     * @param currentUserId 当前登录用户ID
+     * @param cursor 上一页返回的游标（第一页为空）
+     * @param size 每页数量（仅第一页生效）
+     * @return 一页推荐结果与下一页游标
+     */
+    MatchRecommendationFeedResponse getRecommendationFeed(Integer currentUserId, String cursor, Integer size);
+
+    /**
+     * 查询当前用户与指定用户的匹配度（与推荐使用同一套打分规则）
+     *
+     * @param currentUserId 当前登录用户ID
+     * @param userId 对方用户ID
+     * @return 匹配度；当前用户不存在时返回 null
+     */
+    MatchCompatibilityResponse getCompatibility(Integer currentUserId, Integer userId);
+
+    /**
+     * 批量查询当前用户与多个用户的匹配度
+     *
+     * @param currentUserId 当前登录用户ID
+     * @param userIds 对方用户ID列表（去重后按原顺序返回，不含自己）
+     * @return 匹配度列表；当前用户不存在时返回空列表
+     */
+    List<MatchCompatibilityResponse> getCompatibilities(Integer currentUserId, List<Integer> userIds);
 }
@@ -24,6 +24,14 @@ public interface UserService {
      */
     User getUserById(Integer userId);
     
+    /**
+     * 获取用户头像
+     * 
+     * @param userId 用户ID
+     * @return 用户信息（仅包含 userId / avatarUrl / avatarVersion），用户不存在时为 null
+     */
+    User getAvatar(Integer userId);
+    
     /**
      * 根据邮箱获取用户信息
      * 
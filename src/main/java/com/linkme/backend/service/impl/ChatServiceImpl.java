@@ -1,10 +1,14 @@
 package com.linkme.backend.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkme.backend.chat.ChatPushDispatcher;
+import com.linkme.backend.chat.UnreadCounterStore;
 import com.linkme.backend.chat.websocket.ChatWebSocketHandler;
+import com.linkme.backend.controller.dto.ConversationInboxResponse;
 import com.linkme.backend.controller.dto.ConversationResponse;
 import com.linkme.backend.controller.dto.MessageResponse;
 import com.linkme.backend.entity.Conversation;
+import com.linkme.backend.entity.ConversationInboxItem;
 import com.linkme.backend.entity.Message;
 import com.linkme.backend.entity.User;
 import com.linkme.backend.entity.Block;
@@ -15,12 +19,21 @@ import com.linkme.backend.mapper.BlockMapper;
 import com.linkme.backend.service.ChatService;
 import com.linkme.backend.service.NotificationService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -29,9 +42,14 @@ import java.util.stream.Collectors;
  * 功能描述：
  * - 实现聊天相关的业务逻辑处理
  * - 包括会话管理、消息发送、未读消息管理等功能
+ * - 会话表冗余最后一条消息与双方未读数，发送消息时在同一事务中更新，会话列表一次查询返回
+ * - 用户总未读数由 UnreadCounterStore 维护，读取只需一次查询
+ * - 发送消息时消息通知在同一事务中创建；消息与通知的 WebSocket 推送由 ChatPushDispatcher 在事务提交后异步执行，
+ *   同一接收者的推送按提交顺序送达
+ * - 消息中的发送者头像与会话列表中的对方头像为头像引用（/user/{userId}/avatar?v={avatarVersion}），不携带 Base64 头像
  * 
- * @author Ahz
- * @version 1.2.2
+ * @author Ahz, riki
+ * @version 2.0
  */
 @Service
 public class ChatServiceImpl implements ChatService {
@@ -54,6 +72,21 @@ public class ChatServiceImpl implements ChatService {
     @Autowired
     private NotificationService notificationService;
 
+    @Autowired
+    private UnreadCounterStore unreadCounterStore;
+
+    @Autowired
+    private ChatPushDispatcher pushDispatcher;
+
+    @Value("${linkme.chat.inbox.max-size:500}")
+    private int inboxMaxSize;
+
+    @Value("${linkme.chat.preview-length:60}")
+    private int previewLength;
+
+    @Value("${linkme.chat.messages.max-size:100}")
+    private int messageMaxSize;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -81,96 +114,102 @@ public class ChatServiceImpl implements ChatService {
 
     @Override
     public ConversationResponse getConversationById(Integer conversationId, Integer userId) {
-        Conversation conversation = conversationMapper.selectById(conversationId);
-        if (conversation == null) {
-            return null;
-        }
-
-        // 验证用户是否有权限访问该会话
-        if (!conversation.getUser1Id().equals(userId) && !conversation.getUser2Id().equals(userId)) {
-            return null;
-        }
+        // 不是会话参与者时查询不到
+        ConversationInboxItem item = conversationMapper.selectInboxItemById(conversationId, userId);
+        return item == null ? null : toConversationResponse(item);
+    }
 
-        ConversationResponse response = new ConversationResponse();
-        response.setConversationId(conversationId);
+    @Override
+    public List<ConversationResponse> getConversationsByUserId(Integer userId, Integer page, Integer size) {
+        int offset = (page - 1) * size;
+        List<ConversationInboxItem> items = conversationMapper.selectInboxPage(userId, null, null, null, offset, size);
+        return items.stream().map(this::toConversationResponse).collect(Collectors.toList());
+    }
 
-        // 确定对方用户
-        Integer otherUserId = conversation.getUser1Id().equals(userId)
-                ? conversation.getUser2Id()
-                : conversation.getUser1Id();
-        response.setOtherUserId(otherUserId);
-
-        // 获取对方用户信息
-        User otherUser = userMapper.selectById(otherUserId);
-        if (otherUser != null) {
-            response.setOtherUserNickname(otherUser.getNickname());
-            response.setOtherUserAvatar(otherUser.getAvatarUrl());
+    @Override
+    public ConversationInboxResponse getConversationInbox(Integer userId, String cursor, Integer size) {
+        int pageSize = Math.max(1, Math.min(size == null ? 20 : size, inboxMaxSize));
+        Boolean beforePinned = null;
+        LocalDateTime beforeActivityAt = null;
+        Integer beforeConversationId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            long[] position = decodeInboxCursor(cursor);
+            if (position == null) {
+                throw new IllegalArgumentException("游标无效");
+            }
+            beforePinned = position[0] == 1;
+            beforeActivityAt = LocalDateTime.ofEpochSecond(position[1], 0, ZoneOffset.UTC);
+            beforeConversationId = (int) position[2];
         }
 
-        // 获取最后一条消息
-        Message lastMessage = messageMapper.selectLatestByConversationId(conversationId);
-        if (lastMessage != null) {
-            response.setLastMessage(lastMessage.getContent());
-            response.setLastMessageType(lastMessage.getContentType());
-            response.setLastMessageTime(lastMessage.getCreatedAt());
+        // 多取一条用于判断是否还有下一页
+        List<ConversationInboxItem> items = conversationMapper.selectInboxPage(userId, beforePinned, beforeActivityAt,
+                beforeConversationId, 0, pageSize + 1);
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = items.subList(0, pageSize);
         }
 
-        // 获取未读消息数量
-        int unreadCount = messageMapper.countUnreadByConversationId(conversationId, userId);
-        response.setUnreadCount(unreadCount);
-
-        response.setCreatedAt(conversation.getCreatedAt());
-
-        // 设置当前用户的免打扰和置顶状态
-        boolean isUser1 = conversation.getUser1Id().equals(userId);
-        response.setIsMuted(isUser1 ? conversation.getUser1Muted() : conversation.getUser2Muted());
-        response.setIsPinned(isUser1 ? conversation.getUser1Pinned() : conversation.getUser2Pinned());
-
+        ConversationInboxResponse response = new ConversationInboxResponse();
+        response.setItems(items.stream().map(this::toConversationResponse).collect(Collectors.toList()));
+        if (hasMore) {
+            ConversationInboxItem last = items.get(items.size() - 1);
+            response.setNextCursor(encodeInboxCursor(Boolean.TRUE.equals(last.getPinned()),
+                    last.getLastActivityAt().toEpochSecond(ZoneOffset.UTC), last.getConversationId()));
+        }
         return response;
     }
 
-    @Override
-    public List<ConversationResponse> getConversationsByUserId(Integer userId, Integer page, Integer size) {
-        int offset = (page - 1) * size;
-        List<Conversation> conversations = conversationMapper.selectByUserId(userId, offset, size);
-
-        return conversations.stream().map(conversation -> {
-            Integer otherUserId = conversation.getUser1Id().equals(userId)
-                    ? conversation.getUser2Id()
-                    : conversation.getUser1Id();
-
-            ConversationResponse response = new ConversationResponse();
-            response.setConversationId(conversation.getConversationId());
-            response.setOtherUserId(otherUserId);
+    private ConversationResponse toConversationResponse(ConversationInboxItem item) {
+        ConversationResponse response = new ConversationResponse();
+        response.setConversationId(item.getConversationId());
+        response.setOtherUserId(item.getOtherUserId());
+        response.setOtherUserNickname(item.getOtherUserNickname());
+        response.setOtherUserAvatar(avatarReference(item.getOtherUserId(), item.getOtherUserAvatarVersion()));
+        response.setLastMessage(item.getLastMessagePreview());
+        response.setLastMessageType(item.getLastMessageType());
+        response.setLastMessageTime(item.getLastMessageAt());
+        response.setUnreadCount(item.getUnreadCount() == null ? 0 : item.getUnreadCount());
+        response.setCreatedAt(item.getCreatedAt());
+        response.setIsMuted(item.getMuted());
+        response.setIsPinned(item.getPinned());
+        return response;
+    }
 
-            // 获取对方用户信息
-            User otherUser = userMapper.selectById(otherUserId);
-            if (otherUser != null) {
-                response.setOtherUserNickname(otherUser.getNickname());
-                response.setOtherUserAvatar(otherUser.getAvatarUrl());
-            }
+    /**
+     * 游标为最后一条的 (是否置顶, 最后活跃时间秒数, 会话ID) 的 Base64
+     */
+    private static String encodeInboxCursor(boolean pinned, long activitySeconds, int conversationId) {
+        String raw = (pinned ? 1 : 0) + ":" + activitySeconds + ":" + conversationId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-            // 获取最后一条消息
-            Message lastMessage = messageMapper.selectLatestByConversationId(conversation.getConversationId());
-            if (lastMessage != null) {
-                response.setLastMessage(lastMessage.getContent());
-                response.setLastMessageType(lastMessage.getContentType());
-                response.setLastMessageTime(lastMessage.getCreatedAt());
+    /**
+     * @return {是否置顶 0/1, 最后活跃时间秒数, 会话ID}；格式不对时返回 null
+     */
+    private static long[] decodeInboxCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) {
+                return null;
             }
+            long pinned = Long.parseLong(parts[0]);
+            long seconds = Long.parseLong(parts[1]);
+            int conversationId = Integer.parseInt(parts[2]);
+            return (pinned == 0 || pinned == 1) && conversationId > 0 ? new long[]{pinned, seconds, conversationId} : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
 
-            // 获取未读消息数量
-            int unreadCount = messageMapper.countUnreadByConversationId(conversation.getConversationId(), userId);
-            response.setUnreadCount(unreadCount);
-
-            response.setCreatedAt(conversation.getCreatedAt());
-
-            // 设置当前用户的免打扰和置顶状态
-            boolean isUser1 = conversation.getUser1Id().equals(userId);
-            response.setIsMuted(isUser1 ? conversation.getUser1Muted() : conversation.getUser2Muted());
-            response.setIsPinned(isUser1 ? conversation.getUser1Pinned() : conversation.getUser2Pinned());
-
-            return response;
-        }).collect(Collectors.toList());
+    /**
+     * 会话列表中的消息预览：文本消息截取前 previewLength 个字，其他类型不保存内容
+     */
+    private String preview(String contentType, String content) {
+        if (!"text".equals(contentType) || content == null) {
+            return null;
+        }
+        return content.length() <= previewLength ? content : content.substring(0, previewLength);
     }
 
     @Override
@@ -227,6 +266,14 @@ public class ChatServiceImpl implements ChatService {
         System.out.println(
                 "消息已插入数据库，消息ID: " + message.getMessageId() + ", hiddenForUserId: " + message.getHiddenForUserId());
 
+        // 同一事务中更新会话的最后一条消息与接收者未读数（对接收者隐藏的消息不更新，避免出现在对方的会话列表中）
+        if (!isBlocked) {
+            conversationMapper.updateLastMessage(conversationId, message.getMessageId(),
+                    preview(message.getContentType(), content), message.getContentType(), senderId, receiverId,
+                    message.getCreatedAt());
+            unreadCounterStore.add(receiverId, 1);
+        }
+
         // 构建响应
         MessageResponse response = new MessageResponse();
         response.setMessageId(message.getMessageId());
@@ -237,42 +284,22 @@ public class ChatServiceImpl implements ChatService {
         response.setIsRead(false);
         response.setCreatedAt(message.getCreatedAt());
 
-        // 获取发送者信息
-        User sender = userMapper.selectById(senderId);
+        // 获取发送者信息（只查询昵称和头像）
+        User sender = loadSenders(new HashSet<>(List.of(senderId))).get(senderId);
         if (sender != null) {
             response.setSenderNickname(sender.getNickname());
-            response.setSenderAvatar(sender.getAvatarUrl());
+            response.setSenderAvatar(avatarReference(sender));
         }
 
-        // 通过WebSocket推送消息给接收者（如果在线且未屏蔽发送者）
+        // 通过WebSocket推送消息给接收者并创建通知（未屏蔽发送者时）
         if (!isBlocked) {
-            // 未被屏蔽，推送实时消息和通知
-            try {
-                // 构建WebSocket消息对象，添加type字段便于前端识别
-                java.util.Map<String, Object> wsMessage = new java.util.HashMap<>();
-                wsMessage.put("type", "chat");
-                wsMessage.put("messageId", response.getMessageId());
-                wsMessage.put("conversationId", conversationId);
-                wsMessage.put("senderId", senderId);
-                wsMessage.put("senderNickname", response.getSenderNickname());
-                wsMessage.put("senderAvatar", response.getSenderAvatar());
-                wsMessage.put("contentType", response.getContentType());
-                wsMessage.put("content", content);
-                wsMessage.put("isRead", false);
-                // 将LocalDateTime转换为ISO 8601字符串格式
-                wsMessage.put("createdAt", response.getCreatedAt().toString());
-
-                String messageJson = objectMapper.writeValueAsString(wsMessage);
-                webSocketHandler.sendMessageToUser(receiverId.toString(), messageJson);
-                System.out.println("WebSocket消息已推送给用户: " + receiverId);
-            } catch (Exception e) {
-                System.err.println("WebSocket推送消息失败: " + e.getMessage());
-                e.printStackTrace();
-            }
-
-            // 创建通知
+            Integer pushReceiverId = receiverId;
+            Integer pushConversationId = conversationId;
+            // 推送在事务提交后执行，回滚则不推送；先登记消息推送，接收者先收到消息再收到通知
+            pushDispatcher.afterCommit("chat", receiverId, () -> pushMessage(pushReceiverId, pushConversationId, response));
+            // 通知在本事务中落库，其推送同样在提交后进行
             notificationService.createMessageNotification(receiverId, senderId, message.getMessageId(),
-                    message.getContentType(), message.getContent());
+                    message.getContentType(), content);
         } else {
             System.out.println("用户 " + receiverId + " 已屏蔽用户 " + senderId + "，不推送实时消息和通知");
         }
@@ -280,6 +307,34 @@ public class ChatServiceImpl implements ChatService {
         return response;
     }
 
+    /**
+     * 推送新消息给接收者（由 ChatPushDispatcher 在事务提交后调用）
+     */
+    private void pushMessage(Integer receiverId, Integer conversationId, MessageResponse response) {
+        try {
+            // 构建WebSocket消息对象，添加type字段便于前端识别
+            Map<String, Object> wsMessage = new HashMap<>();
+            wsMessage.put("type", "chat");
+            wsMessage.put("messageId", response.getMessageId());
+            wsMessage.put("conversationId", conversationId);
+            wsMessage.put("senderId", response.getSenderId());
+            wsMessage.put("senderNickname", response.getSenderNickname());
+            wsMessage.put("senderAvatar", response.getSenderAvatar());
+            wsMessage.put("contentType", response.getContentType());
+            wsMessage.put("content", response.getContent());
+            wsMessage.put("isRead", false);
+            // 将LocalDateTime转换为ISO 8601字符串格式
+            wsMessage.put("createdAt", response.getCreatedAt().toString());
+
+            String messageJson = objectMapper.writeValueAsString(wsMessage);
+            webSocketHandler.sendMessageToUser(receiverId.toString(), messageJson);
+            System.out.println("WebSocket消息已推送给用户: " + receiverId);
+        } catch (Exception e) {
+            System.err.println("WebSocket推送消息失败: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     @Override
     public List<MessageResponse> getMessagesByConversationId(Integer conversationId, Integer userId,
             Integer page, Integer size) {
@@ -297,46 +352,91 @@ public class ChatServiceImpl implements ChatService {
             return new ArrayList<>();
         }
 
-        int offset = (page - 1) * size;
-        List<Message> messages = messageMapper.selectByConversationId(conversationId, offset, size);
+        // 与游标查询共用同一条 SQL：每页条数同样不超过 max-size，按消息ID排序，
+        // 对当前用户隐藏的消息（屏蔽期间发送的消息永久隐藏）在 SQL 中过滤，页码之间不重叠、不遗漏
+        int pageSize = Math.max(1, Math.min(size, messageMaxSize));
+        int offset = (Math.max(page, 1) - 1) * pageSize;
+        List<Message> messages = messageMapper.selectPageByCursor(conversationId, userId, null, null, offset, pageSize);
         System.out.println("从数据库查询到 " + messages.size() + " 条消息");
+        return toMessageResponses(messages);
+    }
 
-        // 过滤对当前用户隐藏的消息（屏蔽期间发送的消息永久隐藏）
-        return messages.stream()
-                .filter(message -> {
-                    // 如果消息被标记为对当前用户隐藏，则过滤掉
-                    if (message.getHiddenForUserId() != null && message.getHiddenForUserId().equals(userId)) {
-                        System.out.println("消息 " + message.getMessageId() + " 对用户 " + userId + " 隐藏，已过滤");
-                        return false; // 该消息对当前用户永久隐藏
-                    }
-                    return true; // 正常显示
-                })
-                .map(message -> {
-                    MessageResponse response = new MessageResponse();
-                    response.setMessageId(message.getMessageId());
-                    response.setConversationId(message.getConversationId());
-                    response.setSenderId(message.getSenderId());
-                    response.setContentType(message.getContentType());
-                    response.setContent(message.getContent());
-                    response.setIsRead(message.getIsRead());
-                    response.setCreatedAt(message.getCreatedAt());
-
-                    // 获取发送者信息
-                    User sender = userMapper.selectById(message.getSenderId());
-                    if (sender != null) {
-                        response.setSenderNickname(sender.getNickname());
-                        response.setSenderAvatar(sender.getAvatarUrl());
-                    }
-
-                    return response;
-                }).collect(Collectors.toList());
+    @Override
+    public List<MessageResponse> getMessagesByCursor(Integer conversationId, Integer userId,
+            Integer beforeMessageId, Integer afterMessageId, Integer size) {
+        // 验证会话权限
+        Conversation conversation = conversationMapper.selectById(conversationId);
+        if (conversation == null
+                || (!conversation.getUser1Id().equals(userId) && !conversation.getUser2Id().equals(userId))) {
+            return new ArrayList<>();
+        }
+
+        // 对当前用户隐藏的消息已在 SQL 中过滤
+        List<Message> messages = messageMapper.selectPageByCursor(conversationId, userId, beforeMessageId,
+                afterMessageId, 0, size);
+        return toMessageResponses(messages);
+    }
+
+    /**
+     * 组装一页消息：发送者去重后只查询一次昵称和头像（一对一会话通常只有两个发送者）
+     */
+    private List<MessageResponse> toMessageResponses(List<Message> messages) {
+        Map<Integer, User> senders = loadSenders(messages.stream()
+                .map(Message::getSenderId)
+                .collect(Collectors.toSet()));
+
+        List<MessageResponse> responses = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            MessageResponse response = new MessageResponse();
+            response.setMessageId(message.getMessageId());
+            response.setConversationId(message.getConversationId());
+            response.setSenderId(message.getSenderId());
+            response.setContentType(message.getContentType());
+            response.setContent(message.getContent());
+            response.setIsRead(message.getIsRead());
+            response.setCreatedAt(message.getCreatedAt());
+
+            User sender = senders.get(message.getSenderId());
+            if (sender != null) {
+                response.setSenderNickname(sender.getNickname());
+                response.setSenderAvatar(avatarReference(sender));
+            }
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    /**
+     * 头像引用：/user/{userId}/avatar?v={avatarVersion}，客户端按引用单独获取并按版本缓存；没有头像时为 null
+     */
+    private static String avatarReference(User user) {
+        return avatarReference(user.getUserId(), user.getAvatarVersion());
+    }
+
+    private static String avatarReference(Integer userId, Integer version) {
+        return version == null || version <= 0 ? null : "/user/" + userId + "/avatar?v=" + version;
+    }
+
+    /**
+     * 按用户ID批量查询昵称和头像版本（不读取 SELECT * 的其他列与 Base64 头像）
+     */
+    private Map<Integer, User> loadSenders(Set<Integer> senderIds) {
+        senderIds.remove(null);
+        if (senderIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<Integer, User> senders = new HashMap<>();
+        for (User user : userMapper.selectNicknameAvatarByIds(senderIds)) {
+            senders.put(user.getUserId(), user);
+        }
+        return senders;
     }
 
     @Override
     @Transactional
     public boolean markMessagesAsRead(Integer conversationId, Integer userId) {
-        // 验证会话权限
-        Conversation conversation = conversationMapper.selectById(conversationId);
+        // 验证会话权限（锁住会话行，读取的未读数与归零之间不会插入并发发送的计数加 1）
+        Conversation conversation = conversationMapper.selectByIdForUpdate(conversationId);
         if (conversation == null) {
             return false;
         }
@@ -344,23 +444,29 @@ public class ChatServiceImpl implements ChatService {
             return false;
         }
 
+        Integer unread = conversation.getUser1Id().equals(userId) ? conversation.getUser1Unread()
+                : conversation.getUser2Unread();
+        conversationMapper.resetUnread(conversationId, userId);
         int affected = messageMapper.markAsRead(conversationId, userId);
+        unreadCounterStore.add(userId, unread == null ? 0 : -unread);
         return affected > 0;
     }
 
     @Override
     public int getUnreadCount(Integer conversationId, Integer userId) {
-        return messageMapper.countUnreadByConversationId(conversationId, userId);
+        Conversation conversation = conversationMapper.selectById(conversationId);
+        if (conversation == null) {
+            return 0;
+        }
+        Integer unread = conversation.getUser1Id().equals(userId) ? conversation.getUser1Unread()
+                : conversation.getUser2Id().equals(userId) ? conversation.getUser2Unread()
+                : null;
+        return unread == null ? 0 : unread;
     }
 
     @Override
     public int getTotalUnreadCount(Integer userId) {
-        List<Conversation> conversations = conversationMapper.selectByUserId(userId, 0, Integer.MAX_VALUE);
-        int totalUnread = 0;
-        for (Conversation conversation : conversations) {
-            totalUnread += messageMapper.countUnreadByConversationId(conversation.getConversationId(), userId);
-        }
-        return totalUnread;
+        return unreadCounterStore.get(userId);
     }
 
     @Override
@@ -423,7 +529,7 @@ public class ChatServiceImpl implements ChatService {
     @Transactional
     public boolean clearMessages(Integer conversationId, Integer userId) {
         try {
-            Conversation conversation = conversationMapper.selectById(conversationId);
+            Conversation conversation = conversationMapper.selectByIdForUpdate(conversationId);
             if (conversation == null) {
                 return false;
             }
@@ -433,8 +539,13 @@ public class ChatServiceImpl implements ChatService {
                 return false;
             }
 
-            // 删除该会话的所有消息
+            // 清除会话上的最后一条消息与未读数，再删除该会话的所有消息
+            conversationMapper.clearLastMessage(conversationId);
             int result = messageMapper.deleteByConversationId(conversationId);
+            unreadCounterStore.add(conversation.getUser1Id(),
+                    conversation.getUser1Unread() == null ? 0 : -conversation.getUser1Unread());
+            unreadCounterStore.add(conversation.getUser2Id(),
+                    conversation.getUser2Unread() == null ? 0 : -conversation.getUser2Unread());
             return result >= 0; // >= 0 表示操作成功（即使没有消息可删除也返回true）
         } catch (Exception e) {
             return false;
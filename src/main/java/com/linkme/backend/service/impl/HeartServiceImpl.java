@@ -0,0 +1,147 @@
+package com.linkme.backend.service.impl;
+
+import com.linkme.backend.controller.dto.HeartResponse;
+import com.linkme.backend.entity.Match;
+import com.linkme.backend.mapper.BlockMapper;
+import com.linkme.backend.mapper.MatchMapper;
+import com.linkme.backend.match.HeartIndex;
+import com.linkme.backend.match.HeartWriteBuffer;
+import com.linkme.backend.match.MatchExclusionIndex;
+import com.linkme.backend.match.MatchFeatureStore;
+import com.linkme.backend.service.HeartService;
+import com.linkme.backend.service.NotificationService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 红心服务实现
+ *
+ * 热路径不访问数据库：
+ * - 对方是否存在查 MatchFeatureStore，互相红心检测查 HeartIndex
+ * - 红心写入 HeartWriteBuffer，由后台批量落库
+ * - 红心与匹配同时记入 MatchExclusionIndex，之后不再推荐给对方（只改内存）
+ *
+ * 互相红心时建立匹配（只有这一步同步访问数据库）：
+ * - 同一对用户在本实例内通过 matchClaims 只由一个线程建立
+ * - match_user 的 INSERT IGNORE + 唯一键保证跨实例也只有一行，只有插入成功的一方发送通知
+ * - 通知只发给先红心的一方（type = match），发起方从接口返回值得知匹配成功
+ * - 任一方屏蔽了对方时不建立匹配
+ *
+ * @author riki
+ * @version 1.1
+ */
+@Service
+public class HeartServiceImpl implements HeartService {
+
+    @Autowired
+    private HeartIndex heartIndex;
+
+    @Autowired
+    private HeartWriteBuffer heartWriteBuffer;
+
+    @Autowired
+    private MatchFeatureStore matchFeatureStore;
+
+    @Autowired
+    private MatchExclusionIndex matchExclusionIndex;
+
+    @Autowired
+    private MatchMapper matchMapper;
+
+    @Autowired
+    private BlockMapper blockMapper;
+
+    @Autowired
+    private NotificationService notificationService;
+
+    private final Set<Long> matchClaims = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public HeartResponse sendHeart(Integer fromUserId, Integer toUserId) {
+        if (fromUserId == null || toUserId == null) {
+            throw new IllegalArgumentException("用户ID不能为空");
+        }
+        if (fromUserId.equals(toUserId)) {
+            throw new IllegalArgumentException("不能给自己发送红心");
+        }
+        if (matchFeatureStore.get(toUserId) == null) {
+            throw new IllegalArgumentException("用户不存在");
+        }
+
+        // 先加入索引再检查反向红心：两人同时互相红心时至少一方能看到对方
+        if (heartIndex.add(fromUserId, toUserId)) {
+            heartWriteBuffer.enqueue(fromUserId, toUserId, LocalDateTime.now());
+        }
+        matchExclusionIndex.recordHeart(fromUserId, toUserId);
+
+        HeartResponse response = new HeartResponse();
+        response.setTargetUserId(toUserId);
+        response.setMatched(false);
+        if (!heartIndex.contains(toUserId, fromUserId)) {
+            return response;
+        }
+
+        Match match = createMatchOnce(fromUserId, toUserId);
+        if (match != null) {
+            response.setMatched(true);
+            response.setMatchId(match.getMatchId());
+        }
+        return response;
+    }
+
+    /**
+     * 建立匹配，同一对用户只建立一次、只通知一次
+     *
+     * @return 匹配记录；存在屏蔽关系时返回 null
+     */
+    private Match createMatchOnce(int fromUserId, int toUserId) {
+        int user1Id = Math.min(fromUserId, toUserId);
+        int user2Id = Math.max(fromUserId, toUserId);
+        long pair = ((long) user1Id << 32) | user2Id;
+
+        if (blockMapper.selectByBlockerAndBlocked(fromUserId, toUserId) != null
+                || blockMapper.selectByBlockerAndBlocked(toUserId, fromUserId) != null) {
+            return null;
+        }
+
+        if (!matchClaims.add(pair)) {
+            // 另一线程正在为这对用户建立匹配
+            Match existing = matchMapper.selectByUserPair(user1Id, user2Id);
+            return existing != null ? existing : pendingMatch(user1Id, user2Id);
+        }
+        try {
+            Match match = new Match();
+            match.setUser1Id(user1Id);
+            match.setUser2Id(user2Id);
+            match.setCreatedAt(LocalDateTime.now());
+            match.setStatus(0);
+            matchExclusionIndex.recordMatch(user1Id, user2Id);
+            if (matchMapper.insertIgnore(match) == 0) {
+                // 已经匹配过（重复红心或其他实例已建立）
+                Match existing = matchMapper.selectByUserPair(user1Id, user2Id);
+                return existing != null ? existing : match;
+            }
+
+            try {
+                notificationService.createNotification(toUserId, "match", fromUserId, match.getMatchId(), "match",
+                        "匹配成功", "你们互相发送了红心，现在可以开始聊天了");
+            } catch (Exception e) {
+                System.err.println("发送匹配通知失败: matchId=" + match.getMatchId() + ", " + e.getMessage());
+            }
+            return match;
+        } finally {
+            matchClaims.remove(pair);
+        }
+    }
+
+    private static Match pendingMatch(int user1Id, int user2Id) {
+        Match match = new Match();
+        match.setUser1Id(user1Id);
+        match.setUser2Id(user2Id);
+        return match;
+    }
+}
@@ -0,0 +1,169 @@
+package com.linkme.backend.service.impl;
+
+import com.linkme.backend.controller.dto.MatchInboxItemResponse;
+import com.linkme.backend.controller.dto.MatchInboxResponse;
+import com.linkme.backend.entity.Conversation;
+import com.linkme.backend.entity.Match;
+import com.linkme.backend.entity.User;
+import com.linkme.backend.mapper.ConversationMapper;
+import com.linkme.backend.mapper.MatchMapper;
+import com.linkme.backend.mapper.UserMapper;
+import com.linkme.backend.service.MatchInboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 匹配收件箱服务实现
+ *
+ * 一页固定 3 次查询，与页大小、用户的匹配总数无关，不逐条查询：
+ * 1. match_user：(created_at, match_id) 键集分页取 size + 1 条（多取的一条只用于判断是否还有下一页）
+ * 2. user：对方摘要资料
+ * 3. conversation：与这些对方的会话，最后一条消息预览与未读数直接取会话表上的冗余字段
+ *
+ * 游标为最后一条的 (匹配时间秒数, 匹配ID) 的 Base64，与数据写入无关，翻页期间新增的匹配不会造成重复或遗漏。
+ *
+ * @author riki
+ * @version 1.1
+ */
+@Service
+public class MatchInboxServiceImpl implements MatchInboxService {
+
+    @Autowired
+    private MatchMapper matchMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private ConversationMapper conversationMapper;
+
+    @Value("${linkme.match.inbox.max-size:50}")
+    private int maxSize;
+
+    @Override
+    public MatchInboxResponse getInbox(Integer currentUserId, String cursor, Integer size) {
+        int pageSize = Math.max(1, Math.min(size == null ? 20 : size, maxSize));
+        LocalDateTime beforeCreatedAt = null;
+        Integer beforeMatchId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            long[] position = decodeCursor(cursor);
+            if (position == null) {
+                throw new IllegalArgumentException("游标无效");
+            }
+            beforeCreatedAt = LocalDateTime.ofEpochSecond(position[0], 0, ZoneOffset.UTC);
+            beforeMatchId = (int) position[1];
+        }
+
+        List<Match> matches = matchMapper.selectInboxPage(currentUserId, beforeCreatedAt, beforeMatchId, pageSize + 1);
+        boolean hasMore = matches.size() > pageSize;
+        if (hasMore) {
+            matches = matches.subList(0, pageSize);
+        }
+
+        MatchInboxResponse response = new MatchInboxResponse();
+        response.setItems(hydrate(currentUserId, matches));
+        if (hasMore) {
+            Match last = matches.get(matches.size() - 1);
+            response.setNextCursor(encodeCursor(last.getCreatedAt().toEpochSecond(ZoneOffset.UTC), last.getMatchId()));
+        }
+        return response;
+    }
+
+    /**
+     * 批量补全一页匹配的对方资料、会话、最后一条消息与未读数
+     */
+    private List<MatchInboxItemResponse> hydrate(Integer currentUserId, List<Match> matches) {
+        if (matches.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Integer> partnerIds = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            partnerIds.add(partnerOf(match, currentUserId));
+        }
+
+        Map<Integer, User> users = new HashMap<>();
+        for (User user : userMapper.selectSummariesByIds(partnerIds)) {
+            users.put(user.getUserId(), user);
+        }
+
+        // 会话表冗余了最后一条消息与双方未读数，不需要再查询消息表
+        Map<Integer, Conversation> conversationsByPartner = new HashMap<>();
+        for (Conversation conversation : conversationMapper.selectByUserAndPartners(currentUserId, partnerIds)) {
+            Integer partnerId = conversation.getUser1Id().equals(currentUserId)
+                    ? conversation.getUser2Id()
+                    : conversation.getUser1Id();
+            conversationsByPartner.put(partnerId, conversation);
+        }
+
+        List<MatchInboxItemResponse> items = new ArrayList<>(matches.size());
+        for (Match match : matches) {
+            Integer partnerId = partnerOf(match, currentUserId);
+            MatchInboxItemResponse item = new MatchInboxItemResponse();
+            item.setMatchId(match.getMatchId());
+            item.setMatchedAt(match.getCreatedAt());
+            item.setUserId(partnerId);
+
+            User user = users.get(partnerId);
+            if (user != null) {
+                item.setNickname(user.getNickname());
+                item.setAvatarUrl(user.getAvatarUrl());
+                item.setGender(user.getGender());
+                item.setBirthday(user.getBirthday());
+                item.setRegion(user.getRegion());
+            }
+
+            Conversation conversation = conversationsByPartner.get(partnerId);
+            item.setUnreadCount(0);
+            if (conversation != null) {
+                boolean isUser1 = conversation.getUser1Id().equals(currentUserId);
+                item.setConversationId(conversation.getConversationId());
+                item.setLastMessage(conversation.getLastMessagePreview());
+                item.setLastMessageType(conversation.getLastMessageType());
+                item.setLastMessageSenderId(conversation.getLastMessageSenderId());
+                item.setLastMessageTime(conversation.getLastMessageAt());
+                Integer unread = isUser1 ? conversation.getUser1Unread() : conversation.getUser2Unread();
+                item.setUnreadCount(unread == null ? 0 : unread);
+            }
+            items.add(item);
+        }
+        return items;
+    }
+
+    private static Integer partnerOf(Match match, Integer userId) {
+        return match.getUser1Id().equals(userId) ? match.getUser2Id() : match.getUser1Id();
+    }
+
+    private static String encodeCursor(long createdAtSeconds, int matchId) {
+        String raw = createdAtSeconds + ":" + matchId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return {匹配时间秒数, 匹配ID}；格式不对时返回 null
+     */
+    private static long[] decodeCursor(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = decoded.indexOf(':');
+            if (sep <= 0) {
+                return null;
+            }
+            long seconds = Long.parseLong(decoded.substring(0, sep));
+            int matchId = Integer.parseInt(decoded.substring(sep + 1));
+            return matchId > 0 ? new long[]{seconds, matchId} : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
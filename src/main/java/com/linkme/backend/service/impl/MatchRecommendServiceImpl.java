@@ -1,70 +1,99 @@
 package com.linkme.backend.service.impl;
 
+import com.linkme.backend.controller.dto.MatchCompatibilityResponse;
+import com.linkme.backend.controller.dto.MatchRecommendationFeedResponse;
 import com.linkme.backend.controller.dto.MatchRecommendationResponse;
-import com.linkme.backend.entity.DimensionPrioritySelection;
-import com.linkme.backend.entity.Hobby;
 import com.linkme.backend.entity.User;
-import com.linkme.backend.entity.UserMatchingPreference;
-import com.linkme.backend.entity.UserPersonalitySelection;
-import com.linkme.backend.entity.UserRelationshipQualitySelection;
-import com.linkme.backend.mapper.UserHobbyMapper;
-import com.linkme.backend.mapper.UserMatchingDimensionMapper;
 import com.linkme.backend.mapper.UserMapper;
-import com.linkme.backend.mapper.UserMatchingPreferenceMapper;
-import com.linkme.backend.mapper.UserPersonalityMapper;
-import com.linkme.backend.mapper.UserRelationshipQualityMapper;
+import com.linkme.backend.match.MatchExclusionIndex;
+import com.linkme.backend.match.MatchFacts;
+import com.linkme.backend.match.MatchFeatureStore;
+import com.linkme.backend.match.MatchListRefresher;
+import com.linkme.backend.match.MatchListStore;
+import com.linkme.backend.match.MatchScorer;
+import com.linkme.backend.match.MatchScoringPipeline;
+import com.linkme.backend.match.MatchSnapshotStore;
+import com.linkme.backend.match.MatchStage;
+import com.linkme.backend.match.MatchStageMetrics;
+import com.linkme.backend.match.TopKHeap;
+import com.linkme.backend.match.UserFeatureVector;
 import com.linkme.backend.service.MatchRecommendService;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
-import java.time.Period;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 匹配推荐服务实现
  *
- * 计算逻辑（当前版本）：
- * - 基础分 80
- * - 年龄不在偏好范围内：-10
- * - 同城优先且不同地区：-5
- * - 爱好重合：运动户外类 +2，其余 +1
+ * 全量扫描模式（默认，特征库预热完成后生效）：
+ * - 由 MatchCandidateScanner 在内存特征快照上并行扫描全体用户，求 Top-K
+ * - 排除自己、不允许匹配的用户以及存在屏蔽关系的用户
+ * - 开启硬过滤时先用倒排索引排除不满足 must 维度（年龄/距离/关系模式）的用户，再打分
+ * - 结果物化到 Redis（MatchListStore），由 MatchListRefresher 后台刷新，请求只读一页
+ * - 只对当前页的用户回表查询资料
+ *
+ * 排除集合（MatchExclusionIndex）：已红心、已匹配以及曝光次数达到上限的用户不再推荐，
+ * 计算排序结果时排除，读取物化列表/快照的一页时再过滤一次（列表可能早于最新的红心）；
+ * 每次返回的一页记为一次曝光
+ *
+ * 推荐流（getRecommendationFeed）：首页把排序结果固定为快照并返回游标，
+ * 后续翻页按游标截取快照，顺序稳定，并异步预取下一页（见 MatchSnapshotStore）
+ *
+ * 各阶段耗时、候选人数与硬过滤淘汰数记入 MatchStageMetrics（阶段划分见 MatchStage）
+ *
+ * 窗口模式（预热未完成或关闭全量扫描时）：
+ * - 从数据库筛选最近注册的一批候选用户（排除自己/互相拉黑/不允许匹配）
+ * - 从常驻内存的 MatchFeatureStore 取当前用户与候选人的紧凑特征
+ * - 由 MatchScorer 打分（规则见 MatchScorer），按分数降序分页返回
+ *
+ * 匹配度查询（getCompatibility / getCompatibilities）：直接对指定的用户对打分，
+ * 特征取自 MatchFeatureStore（未命中时批量懒加载一次），对称部分经 MatchPairCache 复用，
+ * 不扫描、不回表，与推荐列表中的 matchScore 一致；对方关闭匹配时不返回分数
  *
  * @author riki
- * @version 1.0
+ * @version 2.0
  */
 @Service
 public class MatchRecommendServiceImpl implements MatchRecommendService {
 
-    private static final int BASE_SCORE = 80;
-    private static final int AGE_OUT_OF_RANGE_PENALTY = 10;
-    private static final int SAME_CITY_PENALTY = 5;
-    private static final int MUST_NOT_SATISFIED_PENALTY = 10;
-    private static final int RELATIONSHIP_MODE_MATCH_BONUS = 5;
-    private static final int COMMUNICATION_EXPECTATION_MATCH_BONUS = 3;
-    private static final int RELATIONSHIP_QUALITY_MATCH_BONUS_PER_ITEM = 2;
-    private static final int RELATIONSHIP_QUALITY_MATCH_BONUS_MAX = 6;
-    private static final int PERSONALITY_SELF_MATCH_BONUS_PER_ITEM = 1;
-    private static final int PERSONALITY_IDEAL_MATCH_BONUS_PER_ITEM = 2;
-
     @Autowired
     private UserMapper userMapper;
 
     @Autowired
-    private UserHobbyMapper userHobbyMapper;
+    private MatchFeatureStore matchFeatureStore;
+
+    @Autowired
+    private MatchScorer matchScorer;
+
+    @Autowired
+    private MatchListRefresher matchListRefresher;
 
     @Autowired
-    private UserMatchingPreferenceMapper userMatchingPreferenceMapper;
+    private MatchListStore matchListStore;
 
     @Autowired
-    private UserPersonalityMapper userPersonalityMapper;
+    private MatchSnapshotStore matchSnapshotStore;
 
     @Autowired
-    private UserRelationshipQualityMapper userRelationshipQualityMapper;
+    private MatchExclusionIndex matchExclusionIndex;
 
     @Autowired
-    private UserMatchingDimensionMapper userMatchingDimensionMapper;
+    private MatchStageMetrics matchStageMetrics;
+
+    @Value("${linkme.match.full-scan.enabled:true}")
+    private boolean fullScanEnabled;
+
+    @Value("${linkme.match.full-scan.max-results:1000}")
+    private int fullScanMaxResults;
+
+    @Value("${linkme.match.list.enabled:true}")
+    private boolean listEnabled;
+
+    @Value("${linkme.match.hard-filter.enabled:true}")
+    private boolean hardFilterEnabled;
 
     @Override
     public List<MatchRecommendationResponse> getRecommendations(Integer currentUserId, Integer page, Integer size) {
@@ -78,109 +107,19 @@ public class MatchRecommendServiceImpl implements MatchRecommendService {
         int candidateFetchSize = Math.max(safeSize * 5, 100);
         int offset = (safePage - 1) * safeSize;
 
-        User currentUser = userMapper.selectById(currentUserId);
-        if (currentUser == null) {
+        long start = matchStageMetrics.start();
+        UserFeatureVector viewer = matchFeatureStore.get(currentUserId);
+        if (viewer == null) {
             return Collections.emptyList();
         }
-        UserMatchingPreference preference = userMatchingPreferenceMapper.selectByUserId(currentUserId);
 
-        List<String> mustDimensionCodes = userMatchingDimensionMapper.selectMustDimensionCodesByUserId(currentUserId);
-        if (mustDimensionCodes == null) {
-            mustDimensionCodes = Collections.emptyList();
-        }
-        List<DimensionPrioritySelection> priorityDimensions = userMatchingDimensionMapper.selectPriorityDimensionsByUserId(currentUserId);
-        if (priorityDimensions == null) {
-            priorityDimensions = Collections.emptyList();
-        }
-
-        List<User> candidates = userMapper.selectMatchCandidates(currentUserId, 0, candidateFetchSize);
-        if (candidates == null || candidates.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        List<Integer> candidateUserIds = candidates.stream()
-                .map(User::getUserId)
-                .filter(Objects::nonNull)
-                .distinct()
-                .toList();
-
-        if (candidateUserIds.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        Map<Integer, UserMatchingPreference> candidatePreferenceMap = new HashMap<>();
-        if (!candidateUserIds.isEmpty()) {
-            List<UserMatchingPreference> candidatePreferences = userMatchingPreferenceMapper.selectByUserIds(candidateUserIds);
-            if (candidatePreferences != null) {
-                for (UserMatchingPreference p : candidatePreferences) {
-                    if (p != null && p.getUserId() != null) {
-                        candidatePreferenceMap.put(p.getUserId(), p);
-                    }
-                }
-            }
-        }
-
-        List<Integer> allUserIds = new ArrayList<>(candidateUserIds.size() + 1);
-        allUserIds.add(currentUserId);
-        allUserIds.addAll(candidateUserIds);
-
-        Map<Integer, Map<String, String>> selfTraitMapByUserId = new HashMap<>();
-        Map<Integer, Map<String, String>> idealTraitMapByUserId = new HashMap<>();
-        List<UserPersonalitySelection> personalitySelections = userPersonalityMapper.selectSelectionsByUserIds(allUserIds);
-        if (personalitySelections != null) {
-            for (UserPersonalitySelection s : personalitySelections) {
-                if (s == null || s.getUserId() == null || s.getCategoryName() == null || s.getOptionName() == null) {
-                    continue;
-                }
-                if ("self".equalsIgnoreCase(s.getTraitType())) {
-                    selfTraitMapByUserId
-                            .computeIfAbsent(s.getUserId(), k -> new HashMap<>())
-                            .put(s.getCategoryName(), s.getOptionName());
-                } else if ("ideal".equalsIgnoreCase(s.getTraitType())) {
-                    idealTraitMapByUserId
-                            .computeIfAbsent(s.getUserId(), k -> new HashMap<>())
-                            .put(s.getCategoryName(), s.getOptionName());
-                }
-            }
-        }
-
-        Map<Integer, Set<Integer>> relationshipQualityIdSetByUserId = new HashMap<>();
-        List<UserRelationshipQualitySelection> qualitySelections = userRelationshipQualityMapper.selectByUserIds(allUserIds);
-        if (qualitySelections != null) {
-            for (UserRelationshipQualitySelection q : qualitySelections) {
-                if (q == null || q.getUserId() == null || q.getQualityId() == null) {
-                    continue;
-                }
-                relationshipQualityIdSetByUserId
-                        .computeIfAbsent(q.getUserId(), k -> new HashSet<>())
-                        .add(q.getQualityId());
-            }
+        if (fullScanEnabled && matchFeatureStore.isPreloaded()) {
+            List<MatchRecommendationResponse> result = recommendByFullScan(currentUserId, viewer, offset, safeSize);
+            matchStageMetrics.request("full_scan", start);
+            return result;
         }
 
-        List<Hobby> currentHobbies = userHobbyMapper.selectHobbiesByUserId(currentUserId);
-        Map<Integer, Hobby> currentHobbyMap = currentHobbies == null ? new HashMap<>() : currentHobbies.stream()
-                .filter(h -> h.getHobbyId() != null)
-                .collect(Collectors.toMap(Hobby::getHobbyId, h -> h, (a, b) -> a));
-
-        List<ScoredUser> scored = new ArrayList<>(candidates.size());
-        for (User candidate : candidates) {
-            UserMatchingPreference candidatePreference = candidate == null ? null : candidatePreferenceMap.get(candidate.getUserId());
-            int score = calculateScore(currentUser, preference, currentHobbyMap, candidate);
-            score = applyPersonalityAndPreferenceScore(score,
-                    currentUser,
-                    preference,
-                    currentHobbyMap,
-                    candidate,
-                    candidatePreference,
-                    selfTraitMapByUserId,
-                    idealTraitMapByUserId,
-                    relationshipQualityIdSetByUserId,
-                    mustDimensionCodes,
-                    priorityDimensions);
-            scored.add(new ScoredUser(candidate, score));
-        }
-
-        scored.sort(Comparator.comparingInt(ScoredUser::score).reversed().thenComparingInt(su -> su.user().getUserId()));
+        List<ScoredUser> scored = scoreWindow(currentUserId, viewer, candidateFetchSize);
 
         int fromIndex = Math.min(offset, scored.size());
         int toIndex = Math.min(offset + safeSize, scored.size());
@@ -190,370 +129,276 @@ public class MatchRecommendServiceImpl implements MatchRecommendService {
         for (ScoredUser su : pageItems) {
             result.add(toResponse(su.user(), su.score()));
         }
+        recordImpressions(currentUserId, result);
+        matchStageMetrics.request("window", start);
         return result;
     }
 
-    private int applyPersonalityAndPreferenceScore(int baseScore,
-                                                   User currentUser,
-                                                   UserMatchingPreference preference,
-                                                   Map<Integer, Hobby> currentHobbyMap,
-                                                   User candidate,
-                                                   UserMatchingPreference candidatePreference,
-                                                   Map<Integer, Map<String, String>> selfTraitMapByUserId,
-                                                   Map<Integer, Map<String, String>> idealTraitMapByUserId,
-                                                   Map<Integer, Set<Integer>> relationshipQualityIdSetByUserId,
-                                                   List<String> mustDimensionCodes,
-                                                   List<DimensionPrioritySelection> priorityDimensions) {
-        int score = baseScore;
-
-        Integer candidateUserId = candidate == null ? null : candidate.getUserId();
-        if (candidateUserId == null) {
-            return clamp(score, 0, 100);
+    @Override
+    public MatchRecommendationFeedResponse getRecommendationFeed(Integer currentUserId, String cursor, Integer size) {
+        MatchRecommendationFeedResponse feed = new MatchRecommendationFeedResponse();
+        feed.setItems(Collections.emptyList());
+        if (currentUserId == null) {
+            return feed;
         }
 
-        // 计算兴趣重合数（用于 must/priority）
-        int overlapCount = 0;
-        List<Hobby> candidateHobbies = userHobbyMapper.selectHobbiesByUserId(candidateUserId);
-        if (candidateHobbies != null && currentHobbyMap != null && !currentHobbyMap.isEmpty()) {
-            for (Hobby h : candidateHobbies) {
-                if (h != null && h.getHobbyId() != null && currentHobbyMap.containsKey(h.getHobbyId())) {
-                    overlapCount++;
-                }
+        long start = matchStageMetrics.start();
+        MatchSnapshotStore.Snapshot snapshot;
+        int offset;
+        if (cursor == null || cursor.isBlank()) {
+            UserFeatureVector viewer = matchFeatureStore.get(currentUserId);
+            if (viewer == null) {
+                return feed;
             }
-        }
-
-        // 关系品质（多选）交集
-        Set<Integer> currentQualities = relationshipQualityIdSetByUserId.getOrDefault(currentUser.getUserId(), Collections.emptySet());
-        Set<Integer> candidateQualities = relationshipQualityIdSetByUserId.getOrDefault(candidateUserId, Collections.emptySet());
-        if (!currentQualities.isEmpty() && !candidateQualities.isEmpty()) {
-            int qualityOverlap = 0;
-            for (Integer q : currentQualities) {
-                if (candidateQualities.contains(q)) {
-                    qualityOverlap++;
+            int safeSize = size == null || size < 1 ? 20 : Math.min(size, 100);
+            long[] ranked;
+            if (fullScanEnabled && matchFeatureStore.isPreloaded()) {
+                ranked = rankAll(currentUserId, viewer);
+            } else {
+                List<ScoredUser> scored = scoreWindow(currentUserId, viewer, Math.max(safeSize * 5, 100));
+                ranked = new long[scored.size()];
+                for (int i = 0; i < ranked.length; i++) {
+                    ranked[i] = TopKHeap.encode(scored.get(i).user().getUserId(), scored.get(i).score());
                 }
             }
-            int qualityBonus = Math.min(qualityOverlap * RELATIONSHIP_QUALITY_MATCH_BONUS_PER_ITEM, RELATIONSHIP_QUALITY_MATCH_BONUS_MAX);
-            score += qualityBonus;
-        }
+            snapshot = matchSnapshotStore.create(currentUserId, ranked, safeSize);
+            offset = 0;
+        } else {
+            MatchSnapshotStore.Position position = matchSnapshotStore.resolve(currentUserId, cursor);
+            if (position == null) {
+                throw new IllegalArgumentException("游标无效或已过期，请重新获取推荐");
+            }
+            snapshot = position.snapshot();
+            offset = position.offset();
+        }
+
+        int pageSize = snapshot.pageSize();
+        long t = matchStageMetrics.start();
+        feed.setItems(hydrate(currentUserId, snapshot.slice(offset, pageSize),
+                matchSnapshotStore.users(snapshot, offset, pageSize)));
+        matchStageMetrics.stop(MatchStage.HYDRATE, t);
+        int nextOffset = offset + pageSize;
+        if (nextOffset < snapshot.size()) {
+            feed.setNextCursor(matchSnapshotStore.cursor(snapshot, nextOffset));
+            matchSnapshotStore.prefetch(snapshot, nextOffset, pageSize);
+        }
+        matchStageMetrics.request("feed", start);
+        return feed;
+    }
 
-        // 关系模式一致
-        boolean relationshipModeMatched = preference != null && candidatePreference != null
-                && preference.getRelationshipModeId() != null
-                && preference.getRelationshipModeId().equals(candidatePreference.getRelationshipModeId());
-        if (relationshipModeMatched) {
-            score += RELATIONSHIP_MODE_MATCH_BONUS;
-        }
+    @Override
+    public MatchCompatibilityResponse getCompatibility(Integer currentUserId, Integer userId) {
+        List<MatchCompatibilityResponse> result = getCompatibilities(currentUserId, Collections.singletonList(userId));
+        return result.isEmpty() ? null : result.get(0);
+    }
 
-        // 沟通期待一致
-        boolean communicationExpectationMatched = preference != null && candidatePreference != null
-                && preference.getCommunicationExpectationId() != null
-                && preference.getCommunicationExpectationId().equals(candidatePreference.getCommunicationExpectationId());
-        if (communicationExpectationMatched) {
-            score += COMMUNICATION_EXPECTATION_MATCH_BONUS;
+    @Override
+    public List<MatchCompatibilityResponse> getCompatibilities(Integer currentUserId, List<Integer> userIds) {
+        if (currentUserId == null || userIds == null || userIds.isEmpty()) {
+            return Collections.emptyList();
         }
-
-        // 性格特质匹配（self-self + ideal-self）
-        int personalityScore = 0;
-        Map<String, String> currentSelf = selfTraitMapByUserId.getOrDefault(currentUser.getUserId(), Collections.emptyMap());
-        Map<String, String> candidateSelf = selfTraitMapByUserId.getOrDefault(candidateUserId, Collections.emptyMap());
-        if (!currentSelf.isEmpty() && !candidateSelf.isEmpty()) {
-            for (Map.Entry<String, String> e : currentSelf.entrySet()) {
-                String cat = e.getKey();
-                String val = e.getValue();
-                if (cat != null && val != null && val.equals(candidateSelf.get(cat))) {
-                    personalityScore += PERSONALITY_SELF_MATCH_BONUS_PER_ITEM;
-                }
-            }
+        UserFeatureVector viewer = matchFeatureStore.get(currentUserId);
+        if (viewer == null) {
+            return Collections.emptyList();
         }
 
-        Map<String, String> currentIdeal = idealTraitMapByUserId.getOrDefault(currentUser.getUserId(), Collections.emptyMap());
-        Map<String, String> candidateIdeal = idealTraitMapByUserId.getOrDefault(candidateUserId, Collections.emptyMap());
-        personalityScore += calculateIdealToSelfScore(currentIdeal, candidateSelf);
-        personalityScore += calculateIdealToSelfScore(candidateIdeal, currentSelf);
-
-        score += personalityScore;
-
-        // must 扣分（策略A：不满足扣分）
-        Set<String> mustCodes = mustDimensionCodes == null ? Collections.emptySet() : new HashSet<>(mustDimensionCodes);
-
-        // age_range（你原规则已经扣过一次，这里只补充“候选人的年龄偏好”方向）
-        if (mustCodes.contains("age_range")) {
-            boolean ageSatisfied = isAgeSatisfiedMutual(currentUser, candidate, preference, candidatePreference);
-            if (!ageSatisfied) {
-                score -= MUST_NOT_SATISFIED_PENALTY;
+        Set<Integer> distinct = new LinkedHashSet<>(userIds);
+        distinct.remove(null);
+        distinct.remove(currentUserId);
+        Map<Integer, UserFeatureVector> vectors = matchFeatureStore.getAll(distinct);
+
+        int todayYmd = MatchFeatureStore.todayYmd();
+        MatchScoringPipeline pipeline = matchScorer.pipeline();
+        MatchFacts facts = new MatchFacts();
+        List<MatchCompatibilityResponse> result = new ArrayList<>(distinct.size());
+        for (Integer userId : distinct) {
+            MatchCompatibilityResponse item = new MatchCompatibilityResponse();
+            item.setUserId(userId);
+            UserFeatureVector candidate = vectors.get(userId);
+            if (candidate != null && candidate.allowMatch()) {
+                item.setMatchScore(matchScorer.scoreCached(pipeline, viewer, candidate, todayYmd, facts));
             }
+            result.add(item);
         }
+        return result;
+    }
 
-        // distance
-        if (mustCodes.contains("distance")) {
-            boolean distanceSatisfied = isDistanceSatisfiedMutual(currentUser, candidate, preference, candidatePreference);
-            if (!distanceSatisfied) {
-                score -= MUST_NOT_SATISFIED_PENALTY;
-            }
+    /**
+     * 窗口模式：对数据库中最近注册的一批候选人打分（跳过排除集合中的用户），按分数降序、userId 升序排列
+     */
+    private List<ScoredUser> scoreWindow(Integer currentUserId, UserFeatureVector viewer, int candidateFetchSize) {
+        long t = matchStageMetrics.start();
+        List<User> candidates = userMapper.selectMatchCandidates(currentUserId, 0, candidateFetchSize);
+        matchStageMetrics.stop(MatchStage.CANDIDATES, t);
+        if (candidates == null || candidates.isEmpty()) {
+            return Collections.emptyList();
         }
 
-        // interest_overlap
-        if (mustCodes.contains("interest_overlap")) {
-            if (overlapCount <= 0) {
-                score -= MUST_NOT_SATISFIED_PENALTY;
+        List<Integer> candidateUserIds = new ArrayList<>(candidates.size());
+        for (User candidate : candidates) {
+            if (candidate != null && candidate.getUserId() != null) {
+                candidateUserIds.add(candidate.getUserId());
             }
         }
+        t = matchStageMetrics.start();
+        Map<Integer, UserFeatureVector> vectors = matchFeatureStore.getAll(candidateUserIds);
+        matchStageMetrics.stop(MatchStage.FEATURES, t);
 
-        // personality_match
-        if (mustCodes.contains("personality_match")) {
-            if (personalityScore <= 0) {
-                score -= MUST_NOT_SATISFIED_PENALTY;
-            }
-        }
+        t = matchStageMetrics.start();
+        RoaringBitmap excluded = matchExclusionIndex.excluded(currentUserId);
+        matchStageMetrics.stop(MatchStage.EXCLUSIONS, t);
 
-        // relationship_mode
-        if (mustCodes.contains("relationship_mode")) {
-            if (!relationshipModeMatched) {
-                score -= MUST_NOT_SATISFIED_PENALTY;
+        t = matchStageMetrics.start();
+        int todayYmd = MatchFeatureStore.todayYmd();
+        MatchScoringPipeline pipeline = matchScorer.pipeline();
+        MatchFacts facts = new MatchFacts();
+        List<ScoredUser> scored = new ArrayList<>(candidates.size());
+        int rejected = 0;
+        for (User candidate : candidates) {
+            if (candidate == null || candidate.getUserId() == null) {
+                continue;
             }
-        }
-
-        // communication_style（用 self 里的“沟通风格”做匹配）
-        if (mustCodes.contains("communication_style")) {
-            boolean communicationStyleMatched = isCommunicationStyleMatched(currentSelf, candidateSelf);
-            if (!communicationStyleMatched) {
-                score -= MUST_NOT_SATISFIED_PENALTY;
+            UserFeatureVector candidateVector = vectors.get(candidate.getUserId());
+            if (candidateVector == null || (excluded != null && excluded.contains(candidate.getUserId()))) {
+                continue;
             }
-        }
-
-        // priority 小加权（最多3项，权重 3/2/1）
-        if (priorityDimensions != null && !priorityDimensions.isEmpty()) {
-            for (DimensionPrioritySelection p : priorityDimensions) {
-                if (p == null || p.getCode() == null) {
-                    continue;
-                }
-                int weight = priorityWeight(p.getPriorityOrder());
-                switch (p.getCode()) {
-                    case "age_range" -> {
-                        if (isAgeSatisfiedMutual(currentUser, candidate, preference, candidatePreference)) {
-                            score += weight;
-                        }
-                    }
-                    case "distance" -> {
-                        if (isDistanceSatisfiedMutual(currentUser, candidate, preference, candidatePreference)) {
-                            score += weight;
-                        }
-                    }
-                    case "interest_overlap" -> {
-                        if (overlapCount > 0) {
-                            score += weight;
-                        }
-                    }
-                    case "personality_match" -> {
-                        if (personalityScore > 0) {
-                            score += weight;
-                        }
-                    }
-                    case "relationship_mode" -> {
-                        if (relationshipModeMatched) {
-                            score += weight;
-                        }
-                    }
-                    case "communication_style" -> {
-                        if (isCommunicationStyleMatched(currentSelf, candidateSelf)) {
-                            score += weight;
-                        }
-                    }
-                    default -> {
-                    }
-                }
+            if (hardFilterEnabled && !matchScorer.passesHardFilters(viewer, candidateVector, todayYmd)) {
+                rejected++;
+                continue;
             }
+            scored.add(new ScoredUser(candidate, matchScorer.scoreCached(pipeline, viewer, candidateVector, todayYmd, facts)));
         }
+        matchStageMetrics.stop(MatchStage.SCORING, t);
+        matchStageMetrics.candidates(candidates.size());
+        matchStageMetrics.mustRejected(rejected);
 
-        return clamp(score, 0, 100);
+        t = matchStageMetrics.start();
+        scored.sort(Comparator.comparingInt(ScoredUser::score).reversed().thenComparingInt(su -> su.user().getUserId()));
+        matchStageMetrics.stop(MatchStage.SORT, t);
+        return scored;
     }
 
     /**
-     * 计算当前用户对候选用户的匹配度
+     * 全量扫描模式下的完整排序结果：优先读取物化列表，不存在时实时计算并写回
      */
-    private int calculateScore(User currentUser,
-                               UserMatchingPreference preference,
-                               Map<Integer, Hobby> currentHobbyMap,
-                               User candidate) {
-        int score = BASE_SCORE;
-
-        // 年龄范围（按当前用户的交友年龄要求）
-        Integer candidateAge = calculateAge(candidate == null ? null : candidate.getBirthday());
-        if (candidateAge != null && preference != null && Boolean.FALSE.equals(preference.getAgeUnlimited())) {
-            Integer min = preference.getAgeMin();
-            Integer max = preference.getAgeMax();
-            if (min != null && max != null) {
-                if (candidateAge < min || candidateAge > max) {
-                    score -= AGE_OUT_OF_RANGE_PENALTY;
-                }
-            }
-        }
+    private long[] rankAll(Integer currentUserId, UserFeatureVector viewer) {
+        if (!listEnabled) {
+            return matchListRefresher.compute(viewer, fullScanMaxResults);
+        }
+        int limit = matchListRefresher.listSize();
+        matchListRefresher.touch(currentUserId);
+        long t = matchStageMetrics.start();
+        long[] ranked = matchListStore.readPage(currentUserId, 0, limit);
+        matchStageMetrics.stop(MatchStage.LIST_READ, t);
+        matchStageMetrics.listRead(ranked != null);
+        if (ranked == null) {
+            MatchListRefresher.Ranking ranking = matchListRefresher.rank(viewer, limit);
+            t = matchStageMetrics.start();
+            matchListRefresher.store(currentUserId, ranking);
+            matchStageMetrics.stop(MatchStage.LIST_WRITE, t);
+            ranked = ranking.ranked();
+        }
+        return ranked;
+    }
 
-        // 距离偏好（同城优先：不同地区扣分）
-        if (preference != null && "same_city".equals(preference.getDistancePreference())) {
-            String a = currentUser == null ? null : normalizeRegion(currentUser.getRegion());
-            String b = normalizeRegion(candidate == null ? null : candidate.getRegion());
-            if (a != null && b != null && !a.equalsIgnoreCase(b)) {
-                score -= SAME_CITY_PENALTY;
-            }
+    /**
+     * 全量扫描模式：优先读取物化列表的一页，列表不存在时实时计算并写回
+     */
+    private List<MatchRecommendationResponse> recommendByFullScan(Integer currentUserId, UserFeatureVector viewer,
+                                                                  int offset, int size) {
+        int limit = listEnabled ? matchListRefresher.listSize() : fullScanMaxResults;
+        if (offset >= limit) {
+            return Collections.emptyList();
         }
-
-        // 爱好重合
-        List<Hobby> candidateHobbies = candidate == null ? Collections.emptyList() : userHobbyMapper.selectHobbiesByUserId(candidate.getUserId());
-        if (candidateHobbies != null && !candidateHobbies.isEmpty() && currentHobbyMap != null && !currentHobbyMap.isEmpty()) {
-            for (Hobby h : candidateHobbies) {
-                if (h == null || h.getHobbyId() == null) {
-                    continue;
-                }
-                if (currentHobbyMap.containsKey(h.getHobbyId())) {
-                    // 运动户外类 category_id = 3 -> +2，其他 +1
-                    if (h.getCategoryId() != null && h.getCategoryId() == 3) {
-                        score += 2;
-                    } else {
-                        score += 1;
-                    }
-                }
+        int pageSize = Math.min(size, limit - offset);
+
+        long[] pageKeys = null;
+        if (listEnabled) {
+            matchListRefresher.touch(currentUserId);
+            long t = matchStageMetrics.start();
+            pageKeys = matchListStore.readPage(currentUserId, offset, pageSize);
+            matchStageMetrics.stop(MatchStage.LIST_READ, t);
+            matchStageMetrics.listRead(pageKeys != null);
+            if (pageKeys == null) {
+                MatchListRefresher.Ranking ranking = matchListRefresher.rank(viewer, limit);
+                t = matchStageMetrics.start();
+                matchListRefresher.store(currentUserId, ranking);
+                matchStageMetrics.stop(MatchStage.LIST_WRITE, t);
+                pageKeys = slice(ranking.ranked(), offset, pageSize);
             }
+        } else {
+            pageKeys = slice(matchListRefresher.compute(viewer, offset + pageSize), offset, pageSize);
         }
-
-        return clamp(score, 0, 100);
+        long t = matchStageMetrics.start();
+        List<MatchRecommendationResponse> result = hydrate(currentUserId, pageKeys);
+        matchStageMetrics.stop(MatchStage.HYDRATE, t);
+        return result;
     }
 
-    private int calculateIdealToSelfScore(Map<String, String> idealTraitMap, Map<String, String> selfTraitMap) {
-        if (idealTraitMap == null || idealTraitMap.isEmpty() || selfTraitMap == null || selfTraitMap.isEmpty()) {
-            return 0;
-        }
-
-        int score = 0;
-
-        // 希望对方的社交风格 -> 社交能量来源
-        String idealSocial = idealTraitMap.get("希望对方的社交风格");
-        String selfEnergy = selfTraitMap.get("社交能量来源");
-        if (idealSocial != null && selfEnergy != null && matchesIdealSocialStyle(idealSocial, selfEnergy)) {
-            score += PERSONALITY_IDEAL_MATCH_BONUS_PER_ITEM;
-        }
-
-        // 希望对方的处事风格 -> 决策方式/生活节奏（近似映射）
-        String idealAction = idealTraitMap.get("希望对方的处事风格");
-        String selfDecision = selfTraitMap.get("决策方式");
-        String selfPace = selfTraitMap.get("生活节奏");
-        if (idealAction != null && matchesIdealActionStyle(idealAction, selfDecision, selfPace)) {
-            score += PERSONALITY_IDEAL_MATCH_BONUS_PER_ITEM;
-        }
-
-        // 希望对方的情绪特质：当前问卷未提供对应 self 维度，暂不计分
-        return score;
+    private static long[] slice(long[] ranked, int offset, int size) {
+        int fromIndex = Math.min(offset, ranked.length);
+        int toIndex = Math.min(offset + size, ranked.length);
+        return Arrays.copyOfRange(ranked, fromIndex, toIndex);
     }
 
-    private boolean matchesIdealSocialStyle(String idealSocial, String selfEnergy) {
-        if (idealSocial.contains("同频即可")) {
-            return true;
-        }
-        if (idealSocial.contains("热情健谈")) {
-            return selfEnergy.contains("外向型");
+    /**
+     * 按 TopKHeap 编码的有序结果回表查询用户资料，保持顺序；
+     * 物化列表可能滞后，这里再按特征库过滤掉已注销或已关闭匹配的用户，按排除集合过滤掉之后红心/匹配过的用户
+     */
+    private List<MatchRecommendationResponse> hydrate(int viewerId, long[] pageKeys) {
+        if (pageKeys.length == 0) {
+            return Collections.emptyList();
         }
-        if (idealSocial.contains("沉稳内敛")) {
-            return selfEnergy.contains("内向型");
+        List<Integer> pageUserIds = new ArrayList<>(pageKeys.length);
+        for (long key : pageKeys) {
+            pageUserIds.add(TopKHeap.userIdOf(key));
         }
-        return false;
+        return hydrate(viewerId, pageKeys, userMapper.selectBatchIds(pageUserIds));
     }
 
-    private boolean matchesIdealActionStyle(String idealAction, String selfDecision, String selfPace) {
-        String d = selfDecision == null ? "" : selfDecision;
-        String p = selfPace == null ? "" : selfPace;
-
-        if (idealAction.contains("严谨细致")) {
-            return p.contains("计划型");
-        }
-        if (idealAction.contains("高效行动")) {
-            return p.contains("计划型") || d.contains("理性型");
-        }
-        if (idealAction.contains("灵活变通")) {
-            return p.contains("弹性型") || d.contains("平衡型");
+    private List<MatchRecommendationResponse> hydrate(int viewerId, long[] pageKeys, List<User> users) {
+        if (pageKeys.length == 0) {
+            return Collections.emptyList();
         }
-        if (idealAction.contains("踏实靠谱")) {
-            return !p.isEmpty() || !d.isEmpty();
+        List<Integer> pageUserIds = new ArrayList<>(pageKeys.length);
+        for (long key : pageKeys) {
+            pageUserIds.add(TopKHeap.userIdOf(key));
         }
-        return false;
-    }
-
-    private boolean isCommunicationStyleMatched(Map<String, String> aSelf, Map<String, String> bSelf) {
-        if (aSelf == null || bSelf == null) {
-            return false;
-        }
-        String a = aSelf.get("沟通风格");
-        String b = bSelf.get("沟通风格");
-        return a != null && a.equals(b);
-    }
+        Map<Integer, UserFeatureVector> vectors = matchFeatureStore.getAll(pageUserIds);
+        RoaringBitmap excluded = matchExclusionIndex.excluded(viewerId);
 
-    private boolean isAgeSatisfiedMutual(User currentUser,
-                                         User candidate,
-                                         UserMatchingPreference currentPreference,
-                                         UserMatchingPreference candidatePreference) {
-        Integer currentAge = calculateAge(currentUser == null ? null : currentUser.getBirthday());
-        Integer candidateAge = calculateAge(candidate == null ? null : candidate.getBirthday());
-
-        boolean aOk = isAgeSatisfiedOneWay(candidateAge, currentPreference);
-        boolean bOk = isAgeSatisfiedOneWay(currentAge, candidatePreference);
-        return aOk && bOk;
-    }
-
-    private boolean isAgeSatisfiedOneWay(Integer targetAge, UserMatchingPreference preference) {
-        if (preference == null) {
-            return true;
-        }
-        if (Boolean.TRUE.equals(preference.getAgeUnlimited())) {
-            return true;
-        }
-        if (targetAge == null) {
-            return false;
-        }
-        Integer min = preference.getAgeMin();
-        Integer max = preference.getAgeMax();
-        if (min == null || max == null) {
-            return true;
+        Map<Integer, User> usersById = new HashMap<>();
+        if (users != null) {
+            for (User u : users) {
+                if (u != null && u.getUserId() != null) {
+                    usersById.put(u.getUserId(), u);
+                }
+            }
         }
-        return targetAge >= min && targetAge <= max;
-    }
 
-    private boolean isDistanceSatisfiedMutual(User currentUser,
-                                              User candidate,
-                                              UserMatchingPreference currentPreference,
-                                              UserMatchingPreference candidatePreference) {
-        String a = currentUser == null ? null : normalizeRegion(currentUser.getRegion());
-        String b = candidate == null ? null : normalizeRegion(candidate.getRegion());
-
-        boolean aOk = isDistanceSatisfiedOneWay(a, b, currentPreference);
-        boolean bOk = isDistanceSatisfiedOneWay(b, a, candidatePreference);
-        return aOk && bOk;
-    }
-
-    private boolean isDistanceSatisfiedOneWay(String selfRegion, String targetRegion, UserMatchingPreference preference) {
-        if (preference == null || preference.getDistancePreference() == null) {
-            return true;
-        }
-        String dp = preference.getDistancePreference();
-        if ("unlimited".equals(dp) || "same_city_or_remote".equals(dp)) {
-            return true;
-        }
-        if ("same_city".equals(dp)) {
-            if (selfRegion == null || targetRegion == null) {
-                return false;
+        List<MatchRecommendationResponse> result = new ArrayList<>(pageKeys.length);
+        for (long key : pageKeys) {
+            int userId = TopKHeap.userIdOf(key);
+            UserFeatureVector vector = vectors.get(userId);
+            User user = usersById.get(userId);
+            if (user != null && vector != null && vector.allowMatch()
+                    && (excluded == null || !excluded.contains(userId))) {
+                result.add(toResponse(user, TopKHeap.scoreOf(key)));
             }
-            return selfRegion.equalsIgnoreCase(targetRegion);
         }
-        return true;
+        recordImpressions(viewerId, result);
+        return result;
     }
 
-    private int priorityWeight(Integer priorityOrder) {
-        int o = priorityOrder == null ? 1 : Math.max(priorityOrder, 1);
-        if (o == 1) {
-            return 3;
-        }
-        if (o == 2) {
-            return 2;
+    /**
+     * 把返回给用户的一页记为一次曝光
+     */
+    private void recordImpressions(int viewerId, List<MatchRecommendationResponse> shown) {
+        int[] shownIds = new int[shown.size()];
+        for (int i = 0; i < shownIds.length; i++) {
+            shownIds[i] = shown.get(i).getUserId();
         }
-        return 1;
+        matchExclusionIndex.recordImpressions(viewerId, shownIds);
     }
 
     /**
@@ -574,38 +419,6 @@ public class MatchRecommendServiceImpl implements MatchRecommendService {
         return r;
     }
 
-    /**
-     * 根据生日计算年龄（年）
-     */
-    private Integer calculateAge(LocalDate birthday) {
-        if (birthday == null) {
-            return null;
-        }
-        LocalDate now = LocalDate.now();
-        if (birthday.isAfter(now)) {
-            return null;
-        }
-        return Period.between(birthday, now).getYears();
-    }
-
-    private String normalizeRegion(String region) {
-        if (region == null) {
-            return null;
-        }
-        String r = region.trim();
-        return r.isEmpty() ? null : r;
-    }
-
-    private int clamp(int v, int min, int max) {
-        if (v < min) {
-            return min;
-        }
-        if (v > max) {
-            return max;
-        }
-        return v;
-    }
-
     private record ScoredUser(User user, int score) {
     }
 }
@@ -1,6 +1,7 @@
 package com.linkme.backend.service.impl;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.linkme.backend.chat.ChatPushDispatcher;
 import com.linkme.backend.chat.websocket.ChatWebSocketHandler;
 import com.linkme.backend.controller.dto.NotificationResponse;
 import com.linkme.backend.entity.Notification;
@@ -24,10 +25,10 @@ import java.util.stream.Collectors;
  * 功能描述：
  * - 实现通知相关的业务逻辑处理
  * - 包括通知创建、查询、标记已读等功能
- * - 支持实时推送通知
+ * - 支持实时推送通知（由 ChatPushDispatcher 在事务提交后异步推送）
  * 
- * @author Ahz
- * @version 1.2
+ * @author Ahz, riki
+ * @version 1.4
  */
 @Service
 public class NotificationServiceImpl implements NotificationService {
@@ -41,6 +42,9 @@ public class NotificationServiceImpl implements NotificationService {
     @Autowired
     private ChatWebSocketHandler webSocketHandler;
 
+    @Autowired
+    private ChatPushDispatcher pushDispatcher;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
@@ -88,7 +92,16 @@ public class NotificationServiceImpl implements NotificationService {
 
         notificationMapper.insert(notification);
 
-        // 通过WebSocket实时推送通知
+        // 通过WebSocket实时推送通知（事务提交后在推送线程池中执行，回滚则不推送）
+        pushDispatcher.afterCommit("notification", notification.getUserId(), () -> pushNotification(notification));
+
+        return notification;
+    }
+
+    /**
+     * 通过WebSocket推送通知给接收者（由 ChatPushDispatcher 在事务提交后调用）
+     */
+    private void pushNotification(Notification notification) {
         try {
             NotificationResponse response = convertToResponse(notification);
 
@@ -115,12 +128,10 @@ public class NotificationServiceImpl implements NotificationService {
             pushMessage.put("data", notificationData);
             String pushJson = objectMapper.writeValueAsString(pushMessage);
 
-            webSocketHandler.sendMessageToUser(userId.toString(), pushJson);
+            webSocketHandler.sendMessageToUser(notification.getUserId().toString(), pushJson);
         } catch (Exception e) {
             System.err.println("WebSocket推送通知失败: " + e.getMessage());
         }
-
-        return notification;
     }
 
     @Override
@@ -5,8 +5,10 @@ import com.linkme.backend.entity.UserMatchingPreference;
 import com.linkme.backend.entity.UserPersonalitySelection;
 import com.linkme.backend.entity.UserRelationshipQualitySelection;
 import com.linkme.backend.mapper.*;
+import com.linkme.backend.match.UserProfileChangedEvent;
 import com.linkme.backend.service.QuestionnaireService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,7 +26,7 @@ import java.util.Map;
  * - 处理问卷数据的查询和组装
  *
  * @author riki
- * @version 1.1
+ * @version 1.2
  */
 @Service
 public class QuestionnaireServiceImpl implements QuestionnaireService {
@@ -44,6 +46,9 @@ public class QuestionnaireServiceImpl implements QuestionnaireService {
     @Autowired
     private UserMapper userMapper;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     /**
      * 保存或更新问卷
      *
@@ -130,6 +135,9 @@ public class QuestionnaireServiceImpl implements QuestionnaireService {
 
         // 6. 更新用户表的问卷完成状态
         userMapper.updateQuestionnaireCompleted(userId, true);
+
+        // 7. 事务提交后刷新匹配特征、重建该用户的推荐列表，并增量改写其他列表中与该用户相关的一项
+        eventPublisher.publishEvent(new UserProfileChangedEvent(userId, UserProfileChangedEvent.Change.QUESTIONNAIRE));
     }
 
     /**
@@ -13,8 +13,11 @@ import com.linkme.backend.mapper.FavoriteFolderMapper;
 import com.linkme.backend.mapper.FollowMapper;
 import com.linkme.backend.mapper.BlockMapper;
 import com.linkme.backend.mapper.PostMapper;
+import com.linkme.backend.match.MatchListRefresher;
+import com.linkme.backend.match.UserProfileChangedEvent;
 import com.linkme.backend.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -56,6 +59,12 @@ public class UserServiceImpl implements UserService {
     @Autowired
     private PostMapper postMapper;
     
+    @Autowired
+    private MatchListRefresher matchListRefresher;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
     
     @Override
@@ -63,6 +72,11 @@ public class UserServiceImpl implements UserService {
         return userMapper.selectById(userId);
     }
     
+    @Override
+    public User getAvatar(Integer userId) {
+        return userMapper.selectAvatarById(userId);
+    }
+    
     @Override
     public User getUserByEmail(String email) {
         if (email == null || email.trim().isEmpty()) {
@@ -164,6 +178,9 @@ public class UserServiceImpl implements UserService {
             
             if (result > 0) {
                 System.out.println("更新成功");
+                // 生日/地区等匹配画像字段可能变化，刷新匹配特征并增量改写相关的推荐列表
+                eventPublisher.publishEvent(new UserProfileChangedEvent(user.getUserId(),
+                        UserProfileChangedEvent.Change.PROFILE));
                 return true;
             } else {
                 System.err.println("更新用户信息失败：影响行数为 0，用户ID: " + user.getUserId());
@@ -217,7 +234,11 @@ public class UserServiceImpl implements UserService {
     @Override
     public boolean deleteUser(Integer userId) {
         try {
-            return userMapper.deleteById(userId) > 0;
+            boolean deleted = userMapper.deleteById(userId) > 0;
+            if (deleted) {
+                eventPublisher.publishEvent(new UserProfileChangedEvent(userId, UserProfileChangedEvent.Change.DELETED));
+            }
+            return deleted;
         } catch (Exception e) {
             return false;
         }
@@ -385,6 +406,11 @@ public class UserServiceImpl implements UserService {
             block.setCreatedAt(LocalDateTime.now());
             
             int result = blockMapper.insert(block);
+            if (result > 0) {
+                // 双方的物化推荐列表都可能包含对方
+                matchListRefresher.invalidate(blockerId);
+                matchListRefresher.invalidate(blockedId);
+            }
             return result > 0;
         } catch (Exception e) {
             return false;
@@ -395,6 +421,10 @@ public class UserServiceImpl implements UserService {
     public boolean unblockUser(Integer blockerId, Integer blockedId) {
         try {
             int result = blockMapper.deleteByBlockerAndBlocked(blockerId, blockedId);
+            if (result > 0) {
+                matchListRefresher.invalidate(blockerId);
+                matchListRefresher.invalidate(blockedId);
+            }
             return result > 0;
         } catch (Exception e) {
             return false;
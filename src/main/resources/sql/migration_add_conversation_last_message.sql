@@ -0,0 +1,49 @@
+-- 迁移脚本：为conversation表添加最后一条消息与未读数冗余字段
+-- 发送消息时在同一事务中更新，会话列表只需按索引查询会话表一次，不再逐个会话查询最新消息和未读数
+-- 执行后需运行下方回填语句，根据message表补全已有会话
+
+USE linkme;
+
+-- 1. 最后一条消息（对接收者隐藏的消息不更新这些字段）
+ALTER TABLE conversation
+ADD COLUMN last_message_id INT DEFAULT NULL COMMENT '最后一条消息ID',
+ADD COLUMN last_message_preview VARCHAR(255) DEFAULT NULL COMMENT '最后一条消息预览（文本消息截断，其他类型为空）',
+ADD COLUMN last_message_type VARCHAR(16) DEFAULT NULL COMMENT '最后一条消息类型',
+ADD COLUMN last_message_sender_id INT DEFAULT NULL COMMENT '最后一条消息发送者ID',
+ADD COLUMN last_message_at DATETIME DEFAULT NULL COMMENT '最后一条消息时间',
+ADD COLUMN last_activity_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '最后活跃时间（最后一条消息时间，没有消息时为创建时间）';
+
+-- 2. 双方各自的未读数
+ALTER TABLE conversation
+ADD COLUMN user1_unread INT NOT NULL DEFAULT 0 COMMENT '用户1未读消息数',
+ADD COLUMN user2_unread INT NOT NULL DEFAULT 0 COMMENT '用户2未读消息数';
+
+-- 3. 会话列表索引：置顶优先，再按最后活跃时间倒序
+CREATE INDEX idx_user1_inbox ON conversation(user1_id, user1_pinned, last_activity_at);
+CREATE INDEX idx_user2_inbox ON conversation(user2_id, user2_pinned, last_activity_at);
+
+-- 4. 回填已有会话
+UPDATE conversation c
+LEFT JOIN (
+    SELECT conversation_id, MAX(message_id) AS message_id
+    FROM message
+    WHERE hidden_for_user_id IS NULL
+    GROUP BY conversation_id
+) latest ON latest.conversation_id = c.conversation_id
+LEFT JOIN message m ON m.message_id = latest.message_id
+SET c.last_message_id = m.message_id,
+    c.last_message_preview = CASE WHEN m.content_type = 'text' THEN LEFT(m.content, 60) END,
+    c.last_message_type = m.content_type,
+    c.last_message_sender_id = m.sender_id,
+    c.last_message_at = m.created_at,
+    c.last_activity_at = COALESCE(m.created_at, c.created_at),
+    c.user1_unread = (
+        SELECT COUNT(*) FROM message u
+        WHERE u.conversation_id = c.conversation_id AND u.sender_id = c.user2_id
+          AND u.is_read = FALSE AND u.hidden_for_user_id IS NULL
+    ),
+    c.user2_unread = (
+        SELECT COUNT(*) FROM message u
+        WHERE u.conversation_id = c.conversation_id AND u.sender_id = c.user1_id
+          AND u.is_read = FALSE AND u.hidden_for_user_id IS NULL
+    );
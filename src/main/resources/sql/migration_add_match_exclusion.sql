@@ -0,0 +1,14 @@
+-- 迁移脚本：创建匹配排除集合表
+-- 保存每个用户推荐时需要排除的用户（已红心、已匹配、曝光次数达到上限），
+-- 由 MatchExclusionIndex 在内存中维护，每隔 linkme.match.exclusion.persist-interval-ms 写回一次
+-- 表中没有记录的用户会在首次访问时根据 heart / match_user 表重建
+
+USE linkme;
+
+CREATE TABLE IF NOT EXISTS match_exclusion (
+    user_id INT PRIMARY KEY COMMENT '用户ID',
+    interacted_bitmap MEDIUMBLOB NOT NULL COMMENT '已红心/已匹配的用户ID集合（RoaringBitmap 序列化）',
+    impression_bitmaps MEDIUMBLOB NOT NULL COMMENT '按曝光次数分层的用户ID集合（RoaringBitmap 序列化，逐层拼接）',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    FOREIGN KEY (user_id) REFERENCES user(user_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='匹配排除集合表';
@@ -0,0 +1,8 @@
+-- 迁移脚本：为匹配表添加按用户 + 匹配时间的索引
+-- 匹配收件箱（GET /match/matches）按 (created_at, match_id) 倒序键集分页，
+-- user1 / user2 两个分支各自沿索引倒序读取一页，不需要对该用户的全部匹配排序
+
+USE linkme;
+
+CREATE INDEX idx_user1_created ON match_user(user1_id, created_at);
+CREATE INDEX idx_user2_created ON match_user(user2_id, created_at);
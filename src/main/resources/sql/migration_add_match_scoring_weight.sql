@@ -0,0 +1,15 @@
+-- 迁移脚本：创建匹配打分权重表
+-- 用于在不重新部署的情况下调整匹配打分权重，表中的键覆盖 application.yml 中 linkme.match.scoring.* 的默认值
+-- 服务每隔 linkme.match.scoring.reload-interval-ms 重新读取一次
+
+USE linkme;
+
+CREATE TABLE IF NOT EXISTS match_scoring_weight (
+    weight_key VARCHAR(64) PRIMARY KEY COMMENT '权重键（如 base-score、must-not-satisfied-penalty）',
+    weight_value INT NOT NULL COMMENT '权重值',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='匹配打分权重表';
+
+-- 示例：把 must 维度不满足的扣分调整为 15
+-- INSERT INTO match_scoring_weight (weight_key, weight_value) VALUES ('must-not-satisfied-penalty', 15)
+--     ON DUPLICATE KEY UPDATE weight_value = VALUES(weight_value);
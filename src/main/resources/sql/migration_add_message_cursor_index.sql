@@ -0,0 +1,7 @@
+-- 迁移脚本：为消息表添加 (conversation_id, message_id) 索引
+-- 消息记录按消息ID游标分页（before / after / since），沿该索引范围扫描，
+-- 翻到多早的历史都只读取一页，不再像 LIMIT offset 那样扫描并丢弃前面的行
+
+USE linkme;
+
+CREATE INDEX idx_conversation_message ON message(conversation_id, message_id);
@@ -0,0 +1,46 @@
+-- 迁移脚本：为性格特质分类与选项增加稳定编码 code
+-- 匹配打分按 code 编写规则并在启动时预编译为选项ID矩阵，修改显示名称不再影响匹配
+-- code 为空的行按名称推断（兼容旧数据），修改 code 或新增选项后需重启服务生效
+
+USE linkme;
+
+ALTER TABLE personality_trait_category
+    ADD COLUMN code VARCHAR(32) DEFAULT NULL COMMENT '分类稳定编码（匹配规则使用，与显示名称无关）' AFTER category_id;
+
+ALTER TABLE personality_trait_option
+    ADD COLUMN code VARCHAR(32) DEFAULT NULL COMMENT '选项稳定编码（匹配规则使用，与显示名称无关）' AFTER category_id;
+
+-- 按现有名称回填
+UPDATE personality_trait_category SET code = 'social_energy' WHERE name = '社交能量来源';
+UPDATE personality_trait_category SET code = 'decision_style' WHERE name = '决策方式';
+UPDATE personality_trait_category SET code = 'life_pace' WHERE name = '生活节奏';
+UPDATE personality_trait_category SET code = 'communication_style' WHERE name = '沟通风格';
+UPDATE personality_trait_category SET code = 'ideal_social_style' WHERE name = '希望对方的社交风格';
+UPDATE personality_trait_category SET code = 'ideal_action_style' WHERE name = '希望对方的处事风格';
+UPDATE personality_trait_category SET code = 'ideal_emotion' WHERE name = '希望对方的情绪特质';
+
+UPDATE personality_trait_option SET code = 'extrovert' WHERE name = '外向型（社交充电）';
+UPDATE personality_trait_option SET code = 'introvert' WHERE name = '内向型（独处充电）';
+UPDATE personality_trait_option SET code = 'ambivert' WHERE name = '中间型（看情况）';
+UPDATE personality_trait_option SET code = 'rational' WHERE name = '理性型（逻辑优先）';
+UPDATE personality_trait_option SET code = 'emotional' WHERE name = '感性型（感受优先）';
+UPDATE personality_trait_option SET code = 'balanced' WHERE name = '平衡型';
+UPDATE personality_trait_option SET code = 'planned' WHERE name = '计划型（凡事按规划）';
+UPDATE personality_trait_option SET code = 'spontaneous' WHERE name = '随性型（走一步看一步）';
+UPDATE personality_trait_option SET code = 'flexible' WHERE name = '弹性型';
+UPDATE personality_trait_option SET code = 'direct' WHERE name = '直接坦率型';
+UPDATE personality_trait_option SET code = 'tactful' WHERE name = '委婉体贴型';
+UPDATE personality_trait_option SET code = 'humorous' WHERE name = '幽默风趣型';
+UPDATE personality_trait_option SET code = 'listener' WHERE name = '倾听为主型';
+UPDATE personality_trait_option SET code = 'quiet' WHERE name = '偶尔沉默型';
+UPDATE personality_trait_option SET code = 'outgoing' WHERE name = '热情健谈';
+UPDATE personality_trait_option SET code = 'composed' WHERE name = '沉稳内敛';
+UPDATE personality_trait_option SET code = 'same_wavelength' WHERE name = '同频即可';
+UPDATE personality_trait_option SET code = 'meticulous' WHERE name = '严谨细致';
+UPDATE personality_trait_option SET code = 'efficient' WHERE name = '高效行动';
+UPDATE personality_trait_option SET code = 'adaptable' WHERE name = '灵活变通';
+UPDATE personality_trait_option SET code = 'reliable' WHERE name = '踏实靠谱';
+UPDATE personality_trait_option SET code = 'optimistic' WHERE name = '乐观积极';
+UPDATE personality_trait_option SET code = 'rational_calm' WHERE name = '冷静理智';
+UPDATE personality_trait_option SET code = 'empathetic' WHERE name = '敏感共情';
+UPDATE personality_trait_option SET code = 'stable' WHERE name = '情绪稳定';
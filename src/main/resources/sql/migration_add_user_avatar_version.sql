@@ -0,0 +1,12 @@
+-- 迁移脚本：为用户表添加头像版本字段
+-- 头像以 Base64 存放在 LONGTEXT 的 avatar_url 中，消息列表、推送等批量补全用户信息时只读取 avatar_version，
+-- 拼出 /user/{userId}/avatar?v={avatar_version} 引用，客户端按需单独获取并按版本缓存头像
+-- 每次更换头像版本加 1，0 表示没有头像
+
+USE linkme;
+
+ALTER TABLE user
+ADD COLUMN avatar_version INT NOT NULL DEFAULT 0 COMMENT '头像版本（每次更换头像加 1，0 表示没有头像）' AFTER avatar_url;
+
+-- 已有头像的用户从版本 1 开始
+UPDATE user SET avatar_version = 1 WHERE avatar_url IS NOT NULL;
@@ -0,0 +1,10 @@
+-- 迁移脚本：为用户表添加经纬度字段
+-- 可选字段，用于匹配推荐的距离维度：双方都有经纬度时按实际距离分档计分，
+-- 否则仍按 region 是否相同判断
+-- 坐标只在内存网格索引（GeoGridIndex）中使用，不建数据库索引
+
+USE linkme;
+
+ALTER TABLE user
+ADD COLUMN latitude DECIMAL(9,6) DEFAULT NULL COMMENT '纬度（可选，匹配距离计算用）' AFTER region,
+ADD COLUMN longitude DECIMAL(9,6) DEFAULT NULL COMMENT '经度（可选，匹配距离计算用）' AFTER latitude;
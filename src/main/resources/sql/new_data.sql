@@ -19,7 +19,10 @@ CREATE TABLE IF NOT EXISTS user (
     gender ENUM('male', 'female', 'other')  COMMENT '性别',
     birthday DATE COMMENT '生日',
     region VARCHAR(100) DEFAULT '' COMMENT '地区',
+    latitude DECIMAL(9,6) DEFAULT NULL COMMENT '纬度（可选，匹配距离计算用）',
+    longitude DECIMAL(9,6) DEFAULT NULL COMMENT '经度（可选，匹配距离计算用）',
     avatar_url LONGTEXT COMMENT '头像Base64编码字符串',
+    avatar_version INT NOT NULL DEFAULT 0 COMMENT '头像版本（每次更换头像加 1，0 表示没有头像）',
     bio TEXT COMMENT '简介',
     role ENUM('customer', 'admin', 'moderator') DEFAULT 'customer' COMMENT '用户角色',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
@@ -194,7 +197,9 @@ CREATE TABLE IF NOT EXISTS match_user (
     CONSTRAINT chk_user_order CHECK (user1_id < user2_id),
     UNIQUE KEY uk_user_pair (user1_id, user2_id),
     INDEX idx_user1_id (user1_id),
-    INDEX idx_user2_id (user2_id)
+    INDEX idx_user2_id (user2_id),
+    INDEX idx_user1_created (user1_id, created_at),
+    INDEX idx_user2_created (user2_id, created_at)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='匹配表';
 
 -- 14. 会话表（Conversation）
@@ -206,13 +211,23 @@ CREATE TABLE IF NOT EXISTS conversation (
     user2_muted BOOLEAN DEFAULT FALSE COMMENT '用户2是否免打扰',
     user1_pinned BOOLEAN DEFAULT FALSE COMMENT '用户1是否置顶',
     user2_pinned BOOLEAN DEFAULT FALSE COMMENT '用户2是否置顶',
+    last_message_id INT DEFAULT NULL COMMENT '最后一条消息ID',
+    last_message_preview VARCHAR(255) DEFAULT NULL COMMENT '最后一条消息预览（文本消息截断，其他类型为空）',
+    last_message_type VARCHAR(16) DEFAULT NULL COMMENT '最后一条消息类型',
+    last_message_sender_id INT DEFAULT NULL COMMENT '最后一条消息发送者ID',
+    last_message_at DATETIME DEFAULT NULL COMMENT '最后一条消息时间',
+    last_activity_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '最后活跃时间（最后一条消息时间，没有消息时为创建时间）',
+    user1_unread INT NOT NULL DEFAULT 0 COMMENT '用户1未读消息数',
+    user2_unread INT NOT NULL DEFAULT 0 COMMENT '用户2未读消息数',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     FOREIGN KEY (user1_id) REFERENCES user(user_id) ON DELETE CASCADE,
     FOREIGN KEY (user2_id) REFERENCES user(user_id) ON DELETE CASCADE,
     CONSTRAINT chk_conversation_user_order CHECK (user1_id < user2_id),
     UNIQUE KEY uk_user_pair (user1_id, user2_id),
     INDEX `idx_user1_id` (`user1_id`),
-    INDEX `idx_user2_id` (`user2_id`)
+    INDEX `idx_user2_id` (`user2_id`),
+    INDEX `idx_user1_inbox` (`user1_id`, `user1_pinned`, `last_activity_at`),
+    INDEX `idx_user2_inbox` (`user2_id`, `user2_pinned`, `last_activity_at`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='会话表';
 
 -- 15. 消息表（Message）
@@ -227,6 +242,7 @@ CREATE TABLE IF NOT EXISTS message (
     FOREIGN KEY (conversation_id) REFERENCES conversation(conversation_id) ON DELETE CASCADE,
     FOREIGN KEY (sender_id) REFERENCES user(user_id) ON DELETE CASCADE,
     INDEX `idx_conversation_created` (`conversation_id`, `created_at`),
+    INDEX `idx_conversation_message` (`conversation_id`, `message_id`),
     INDEX `idx_sender_id` (`sender_id`),
     INDEX `idx_is_read` (`is_read`),
     INDEX `idx_created_at` (`created_at`)
@@ -353,6 +369,7 @@ CREATE TABLE IF NOT EXISTS user_hobby (
 -- 24. 性格特质分类表（PersonalityTraitCategory）
 CREATE TABLE IF NOT EXISTS personality_trait_category (
     category_id INT PRIMARY KEY AUTO_INCREMENT COMMENT '分类ID',
+    code VARCHAR(32) DEFAULT NULL COMMENT '分类稳定编码（匹配规则使用，与显示名称无关）',
     name VARCHAR(50) NOT NULL COMMENT '分类名称',
     description VARCHAR(255) DEFAULT NULL COMMENT '分类描述',
     trait_type ENUM('self', 'ideal') NOT NULL COMMENT '特质类型：self-自身特质，ideal-理想对象特质',
@@ -367,6 +384,7 @@ CREATE TABLE IF NOT EXISTS personality_trait_category (
 CREATE TABLE IF NOT EXISTS personality_trait_option (
     option_id INT PRIMARY KEY AUTO_INCREMENT COMMENT '选项ID',
     category_id INT NOT NULL COMMENT '分类ID',
+    code VARCHAR(32) DEFAULT NULL COMMENT '选项稳定编码（匹配规则使用，与显示名称无关）',
     name VARCHAR(100) NOT NULL COMMENT '选项名称',
     display_order INT DEFAULT 0 COMMENT '显示顺序',
     created_at DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
@@ -489,6 +507,23 @@ CREATE TABLE IF NOT EXISTS user_matching_priority_dimension (
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='用户匹配优先维度关联表';
 
 
+-- 35. 匹配打分权重表（MatchScoringWeight）
+CREATE TABLE IF NOT EXISTS match_scoring_weight (
+    weight_key VARCHAR(64) PRIMARY KEY COMMENT '权重键（如 base-score、must-not-satisfied-penalty）',
+    weight_value INT NOT NULL COMMENT '权重值',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='匹配打分权重表';
+
+
+-- 36. 匹配排除集合表（MatchExclusion）
+CREATE TABLE IF NOT EXISTS match_exclusion (
+    user_id INT PRIMARY KEY COMMENT '用户ID',
+    interacted_bitmap MEDIUMBLOB NOT NULL COMMENT '已红心/已匹配的用户ID集合（RoaringBitmap 序列化）',
+    impression_bitmaps MEDIUMBLOB NOT NULL COMMENT '按曝光次数分层的用户ID集合（RoaringBitmap 序列化，逐层拼接）',
+    updated_at DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    FOREIGN KEY (user_id) REFERENCES user(user_id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='匹配排除集合表';
+
 
 -- 输出初始化完成信息
 SELECT 'LinkMe数据库初始化完成！' AS '初始化状态';
@@ -666,51 +666,51 @@ INSERT INTO hobby (category_id, name, display_order) VALUES
 (6, 'city walk', 10);
 
 -- 22. 插入性格特质分类
-INSERT INTO personality_trait_category (name, description, trait_type, display_order) VALUES
+INSERT INTO personality_trait_category (code, name, description, trait_type, display_order) VALUES
 -- 自身特质
-('社交能量来源', '描述个人社交能量的获取方式', 'self', 1),
-('决策方式', '描述个人做决策时的倾向', 'self', 2),
-('生活节奏', '描述个人生活方式的节奏偏好', 'self', 3),
-('沟通风格', '描述个人在沟通中的风格特点', 'self', 4),
+('social_energy', '社交能量来源', '描述个人社交能量的获取方式', 'self', 1),
+('decision_style', '决策方式', '描述个人做决策时的倾向', 'self', 2),
+('life_pace', '生活节奏', '描述个人生活方式的节奏偏好', 'self', 3),
+('communication_style', '沟通风格', '描述个人在沟通中的风格特点', 'self', 4),
 -- 理想对象特质
-('希望对方的社交风格', '描述对理想对象社交风格的期望', 'ideal', 1),
-('希望对方的处事风格', '描述对理想对象处事风格的期望', 'ideal', 2),
-('希望对方的情绪特质', '描述对理想对象情绪特质的期望', 'ideal', 3);
+('ideal_social_style', '希望对方的社交风格', '描述对理想对象社交风格的期望', 'ideal', 1),
+('ideal_action_style', '希望对方的处事风格', '描述对理想对象处事风格的期望', 'ideal', 2),
+('ideal_emotion', '希望对方的情绪特质', '描述对理想对象情绪特质的期望', 'ideal', 3);
 
 -- 23. 插入性格特质选项
-INSERT INTO personality_trait_option (category_id, name, display_order) VALUES
+INSERT INTO personality_trait_option (category_id, code, name, display_order) VALUES
 -- 社交能量来源
-(1, '外向型（社交充电）', 1),
-(1, '内向型（独处充电）', 2),
-(1, '中间型（看情况）', 3),
+(1, 'extrovert', '外向型（社交充电）', 1),
+(1, 'introvert', '内向型（独处充电）', 2),
+(1, 'ambivert', '中间型（看情况）', 3),
 -- 决策方式
-(2, '理性型（逻辑优先）', 1),
-(2, '感性型（感受优先）', 2),
-(2, '平衡型', 3),
+(2, 'rational', '理性型（逻辑优先）', 1),
+(2, 'emotional', '感性型（感受优先）', 2),
+(2, 'balanced', '平衡型', 3),
 -- 生活节奏
-(3, '计划型（凡事按规划）', 1),
-(3, '随性型（走一步看一步）', 2),
-(3, '弹性型', 3),
+(3, 'planned', '计划型（凡事按规划）', 1),
+(3, 'spontaneous', '随性型（走一步看一步）', 2),
+(3, 'flexible', '弹性型', 3),
 -- 沟通风格
-(4, '直接坦率型', 1),
-(4, '委婉体贴型', 2),
-(4, '幽默风趣型', 3),
-(4, '倾听为主型', 4),
-(4, '偶尔沉默型', 5),
+(4, 'direct', '直接坦率型', 1),
+(4, 'tactful', '委婉体贴型', 2),
+(4, 'humorous', '幽默风趣型', 3),
+(4, 'listener', '倾听为主型', 4),
+(4, 'quiet', '偶尔沉默型', 5),
 -- 希望对方的社交风格
-(5, '热情健谈', 1),
-(5, '沉稳内敛', 2),
-(5, '同频即可', 3),
+(5, 'outgoing', '热情健谈', 1),
+(5, 'composed', '沉稳内敛', 2),
+(5, 'same_wavelength', '同频即可', 3),
 -- 希望对方的处事风格
-(6, '严谨细致', 1),
-(6, '高效行动', 2),
-(6, '灵活变通', 3),
-(6, '踏实靠谱', 4),
+(6, 'meticulous', '严谨细致', 1),
+(6, 'efficient', '高效行动', 2),
+(6, 'adaptable', '灵活变通', 3),
+(6, 'reliable', '踏实靠谱', 4),
 -- 希望对方的情绪特质
-(7, '乐观积极', 1),
-(7, '冷静理智', 2),
-(7, '敏感共情', 3),
-(7, '情绪稳定', 4);
+(7, 'optimistic', '乐观积极', 1),
+(7, 'rational_calm', '冷静理智', 2),
+(7, 'empathetic', '敏感共情', 3),
+(7, 'stable', '情绪稳定', 4);
 
 -- 24. 插入关系品质
 INSERT INTO relationship_quality (name, display_order) VALUES
@@ -0,0 +1,44 @@
+package com.linkme.backend.match;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD 点积内核（jdk.incubator.vector）
+ *
+ * 使用平台首选宽度（AVX2 为 8 个 float，AVX-512 为 16 个），逐段乘加后做一次横向求和，余数部分按标量处理。
+ * 只在 simd profile 下编译，由 EmbeddingKernel.select 反射创建：孵化模块未加载时加载本类会抛出 LinkageError。
+ *
+ * @author riki
+ * @version 1.1
+ */
+public final class VectorEmbeddingKernel implements EmbeddingKernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        float sum = 0f;
+        if (bound > 0) {
+            FloatVector acc = FloatVector.zero(SPECIES);
+            for (; i < bound; i += SPECIES.length()) {
+                FloatVector va = FloatVector.fromArray(SPECIES, a, aOffset + i);
+                FloatVector vb = FloatVector.fromArray(SPECIES, b, bOffset + i);
+                acc = va.fma(vb, acc);
+            }
+            sum = acc.reduceLanes(VectorOperators.ADD);
+        }
+        for (; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "simd-" + SPECIES.vectorBitSize();
+    }
+}
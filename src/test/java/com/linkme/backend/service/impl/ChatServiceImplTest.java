@@ -0,0 +1,176 @@
+package com.linkme.backend.service.impl;
+
+import com.linkme.backend.controller.dto.MessageResponse;
+import com.linkme.backend.entity.Conversation;
+import com.linkme.backend.entity.Message;
+import com.linkme.backend.mapper.ConversationMapper;
+import com.linkme.backend.mapper.MessageMapper;
+import com.linkme.backend.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 消息记录按页码 / 游标翻页的一致性
+ *
+ * MessageMapper.selectPageByCursor 由内存中的消息列表按 MessageMapper.xml 的语义模拟
+ * （按会话与隐藏过滤、按消息ID排序、LIMIT offset, limit、结果正序）。
+ *
+ * @author riki
+ * @version 1.0
+ */
+class ChatServiceImplTest {
+
+    private static final int CONVERSATION_ID = 7;
+    private static final int USER_ID = 1;
+    private static final int PARTNER_ID = 2;
+    private static final int MAX_SIZE = 100;
+
+    private final List<Message> stored = new ArrayList<>();
+
+    private ChatServiceImpl chatService;
+
+    @BeforeEach
+    void setUp() {
+        // 450 条消息，其中每 7 条有一条对当前用户隐藏、每 11 条有一条对对方隐藏
+        for (int id = 1; id <= 450; id++) {
+            Message m = new Message();
+            m.setMessageId(id);
+            m.setConversationId(CONVERSATION_ID);
+            m.setSenderId(id % 2 == 0 ? USER_ID : PARTNER_ID);
+            m.setContentType("text");
+            m.setContent("m" + id);
+            m.setIsRead(false);
+            m.setCreatedAt(LocalDateTime.of(2026, 1, 1, 0, 0).plusSeconds(id));
+            if (id % 7 == 0) {
+                m.setHiddenForUserId(USER_ID);
+            } else if (id % 11 == 0) {
+                m.setHiddenForUserId(PARTNER_ID);
+            }
+            stored.add(m);
+        }
+
+        Conversation conversation = new Conversation();
+        conversation.setConversationId(CONVERSATION_ID);
+        conversation.setUser1Id(USER_ID);
+        conversation.setUser2Id(PARTNER_ID);
+        ConversationMapper conversationMapper = mock(ConversationMapper.class);
+        when(conversationMapper.selectById(CONVERSATION_ID)).thenReturn(conversation);
+
+        MessageMapper messageMapper = mock(MessageMapper.class);
+        when(messageMapper.selectPageByCursor(anyInt(), anyInt(), any(), any(), anyInt(), anyInt()))
+                .thenAnswer(inv -> selectPageByCursor(inv.getArgument(0), inv.getArgument(1), inv.getArgument(2),
+                        inv.getArgument(3), inv.getArgument(4), inv.getArgument(5)));
+
+        UserMapper userMapper = mock(UserMapper.class);
+        when(userMapper.selectNicknameAvatarByIds(anyCollection())).thenReturn(new ArrayList<>());
+
+        chatService = new ChatServiceImpl();
+        ReflectionTestUtils.setField(chatService, "conversationMapper", conversationMapper);
+        ReflectionTestUtils.setField(chatService, "messageMapper", messageMapper);
+        ReflectionTestUtils.setField(chatService, "userMapper", userMapper);
+        ReflectionTestUtils.setField(chatService, "messageMaxSize", MAX_SIZE);
+    }
+
+    @Test
+    void pagesWithSizeAboveMaxCoverEveryVisibleMessageOnce() {
+        List<Integer> visible = visibleIdsNewestFirst();
+        List<Integer> walked = new ArrayList<>();
+        for (int page = 1; ; page++) {
+            List<MessageResponse> messages = chatService.getMessagesByConversationId(CONVERSATION_ID, USER_ID, page, 200);
+            if (messages.isEmpty()) {
+                break;
+            }
+            assertTrue(messages.size() <= MAX_SIZE, "每页不超过 max-size");
+            List<Integer> ids = ids(messages);
+            assertEquals(ids.stream().sorted().collect(Collectors.toList()), ids, "页内按时间正序");
+            // 从最新一页向前翻，逐页倒序拼接
+            for (int i = ids.size() - 1; i >= 0; i--) {
+                walked.add(ids.get(i));
+            }
+        }
+        assertEquals(visible, walked, "页码翻完后不重叠、不遗漏");
+    }
+
+    @Test
+    void firstPageMatchesLatestCursorPage() {
+        List<Integer> byPage = ids(chatService.getMessagesByConversationId(CONVERSATION_ID, USER_ID, 1, 200));
+        List<Integer> byCursor = ids(chatService.getMessagesByCursor(CONVERSATION_ID, USER_ID, null, null, MAX_SIZE));
+        assertEquals(byCursor, byPage);
+    }
+
+    @Test
+    void pagesAndBeforeCursorsReturnTheSameSegments() {
+        Integer before = null;
+        for (int page = 1; page <= 5; page++) {
+            List<Integer> byPage = ids(chatService.getMessagesByConversationId(CONVERSATION_ID, USER_ID, page, 50));
+            List<Integer> byCursor = ids(chatService.getMessagesByCursor(CONVERSATION_ID, USER_ID, before, null, 50));
+            assertEquals(byCursor, byPage, "第 " + page + " 页");
+            if (byCursor.isEmpty()) {
+                break;
+            }
+            before = byCursor.get(0);
+        }
+    }
+
+    @Test
+    void hiddenMessagesNeverReturned() {
+        Set<Integer> hidden = stored.stream()
+                .filter(m -> m.getHiddenForUserId() != null && m.getHiddenForUserId() == USER_ID)
+                .map(Message::getMessageId)
+                .collect(Collectors.toSet());
+        Set<Integer> seen = new HashSet<>();
+        for (int page = 1; page <= 10; page++) {
+            seen.addAll(ids(chatService.getMessagesByConversationId(CONVERSATION_ID, USER_ID, page, 80)));
+        }
+        seen.retainAll(hidden);
+        assertTrue(seen.isEmpty(), "对当前用户隐藏的消息不出现在任何一页");
+    }
+
+    private List<Integer> visibleIdsNewestFirst() {
+        return stored.stream()
+                .filter(m -> m.getHiddenForUserId() == null || m.getHiddenForUserId() != USER_ID)
+                .map(Message::getMessageId)
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+    }
+
+    private static List<Integer> ids(List<MessageResponse> messages) {
+        return messages.stream().map(MessageResponse::getMessageId).collect(Collectors.toList());
+    }
+
+    /**
+     * 与 MessageMapper.xml 中 selectPageByCursor 相同的语义
+     */
+    private List<Message> selectPageByCursor(Integer conversationId, Integer userId, Integer beforeId, Integer afterId,
+                                             Integer offset, Integer limit) {
+        Comparator<Message> byId = Comparator.comparing(Message::getMessageId);
+        List<Message> page = stored.stream()
+                .filter(m -> m.getConversationId().equals(conversationId))
+                .filter(m -> m.getHiddenForUserId() == null || !m.getHiddenForUserId().equals(userId))
+                .filter(m -> afterId != null ? m.getMessageId() > afterId
+                        : beforeId == null || m.getMessageId() < beforeId)
+                .sorted(afterId != null ? byId : byId.reversed())
+                .skip(offset)
+                .limit(limit)
+                .sorted(byId)
+                .collect(Collectors.toList());
+        return page;
+    }
+}